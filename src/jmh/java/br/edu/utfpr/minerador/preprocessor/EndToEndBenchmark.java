@@ -0,0 +1,231 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.benchmark.BenchmarkRunner;
+import br.edu.utfpr.minerador.preprocessor.benchmark.H2IndexDialect;
+import br.edu.utfpr.minerador.preprocessor.benchmark.StreamingFetchAdapter;
+import br.edu.utfpr.minerador.preprocessor.benchmark.SyntheticProject;
+import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
+import br.edu.utfpr.minerador.preprocessor.database.IssueAggregator;
+import br.edu.utfpr.minerador.preprocessor.denormalization.CommitsBuilder;
+import br.edu.utfpr.minerador.preprocessor.denormalization.IssuesToAnalyzeBuilder;
+import br.edu.utfpr.minerador.preprocessor.script.ParallelScriptExecutor;
+import br.edu.utfpr.minerador.preprocessor.script.ScriptStatement;
+import com.zaxxer.hikari.HikariConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the stages of {@link Main} after the restore on a
+ * {@link SyntheticProject} in an in-memory H2 database in MySQL mode, and
+ * reports the wall time and rows per second of each stage (statements per
+ * second for the scripts).
+ *
+ * The stages run the same code as a real run: the scripts run on a pool of
+ * the H2 database through {@link ParallelScriptExecutor}, only with the
+ * prefix lengths of their indexes removed (e.g. "ADD INDEX (rev(255))"), which
+ * H2 does not support, and the deferred indexes are looked up and added by an
+ * {@link H2IndexDialect}. The database keeps all rows in memory, so large scales
+ * need a large heap (e.g. -Xmx8g for 1M commits).
+ *
+ * Usage: java --add-opens java.base/java.lang=ALL-UNNAMED -cp
+ * target/benchmarks.jar br.edu.utfpr.minerador.preprocessor.EndToEndBenchmark
+ * [--commits=100000] [--issues=20000] [--key-density=0.3] [--threads=N]
+ * [--project=synthetic]
+ *
+ * The --add-opens is needed from Java 9 on, as the pool generates its proxies
+ * with ClassLoader.defineClass.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class EndToEndBenchmark {
+
+    static {
+        // before the first logger, see BenchmarkRunner
+        System.setProperty("log4j.configuration", BenchmarkRunner.LOG4J_CONFIGURATION);
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(EndToEndBenchmark.class);
+
+    /**
+     * Column of an index with the length of its prefix, e.g. "(rev(255))"
+     */
+    private static final Pattern INDEX_PREFIX = Pattern.compile("\\((\\w+)\\(\\d+\\)\\)");
+
+    private final List<StageResult> results = new ArrayList<>();
+
+    public static void main(String[] args) throws SQLException, IOException {
+        final Arguments arguments = new Arguments(args);
+        final String project = arguments.getOption("project", "synthetic").toLowerCase(Locale.ROOT);
+        final SyntheticProject synthetic = new SyntheticProject(project,
+                arguments.getIntOption("commits", 100000), arguments.getIntOption("issues", 20000),
+                Double.parseDouble(arguments.getOption("key-density", "0.3")));
+        final int threads = arguments.getIntOption("threads", Runtime.getRuntime().availableProcessors());
+
+        final String jdbcUrl = "jdbc:h2:mem:" + project + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        final HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setMaximumPoolSize(threads);
+        config.setPoolName("benchmark");
+        final ConnectionFactory factory = new ConnectionFactory(config);
+        try (Connection conn = StreamingFetchAdapter.wrap(DriverManager.getConnection(jdbcUrl))) {
+            final EndToEndBenchmark benchmark = new EndToEndBenchmark();
+            benchmark.run(conn, factory, synthetic, project, threads);
+            benchmark.report();
+        } finally {
+            factory.close();
+        }
+    }
+
+    void run(final Connection conn, final ConnectionFactory factory, final SyntheticProject synthetic,
+            final String project, final int threads) {
+        final ParallelScriptExecutor scriptExecutor = new ParallelScriptExecutor(factory, threads);
+        stage("generation", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                return synthetic.generate(conn);
+            }
+        });
+        stage("preprocessing.sql", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                return executeScript(scriptExecutor, "preprocessing.sql", project);
+            }
+        });
+        stage("aggregation", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                new IssueAggregator(conn, project).aggregate();
+                return count(conn, project + "_issues.issues");
+            }
+        });
+        stage("linking", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                Main.createLinkTables(conn, project);
+                return Main.linkIssueToScmlog(conn, project, new String[]{synthetic.getProjectKey()}, threads,
+                        null, null).getTotalCommits();
+            }
+        });
+        stage("link indexes", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                Main.linkTableIndexes(project).setDialect(H2IndexDialect.INSTANCE).create(conn);
+                return count(conn, project + "_issues.issues_scmlog");
+            }
+        });
+        stage("denormalization", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                executeScript(scriptExecutor, "denormalization.sql", project);
+                return new CommitsBuilder(conn, project).build();
+            }
+        });
+        stage("issues to analyze", new Stage() {
+
+            @Override
+            public long run() throws Exception {
+                executeScript(scriptExecutor, "issues_to_analyze.sql", project);
+                return new IssuesToAnalyzeBuilder(conn, project).build();
+            }
+        });
+    }
+
+    private void stage(String name, Stage stage) {
+        log.info("Running " + name + "...");
+        final long start = System.currentTimeMillis();
+        try {
+            final long rows = stage.run();
+            results.add(new StageResult(name, rows, System.currentTimeMillis() - start, null));
+        } catch (Exception ex) {
+            final String error = ex.toString().split("\\R", 2)[0];
+            log.warn("Stage " + name + " failed: " + error);
+            log.debug("Stage " + name + " failed.", ex);
+            results.add(new StageResult(name, 0, System.currentTimeMillis() - start, error));
+        }
+    }
+
+    void report() {
+        final StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%n%-24s %12s %12s %14s%n", "stage", "rows", "wall (ms)", "rows/sec"));
+        for (StageResult result : results) {
+            report.append(result).append(String.format("%n"));
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * Executes the script as a real run does, without the prefix lengths of its
+     * indexes.
+     *
+     * @return Statements executed
+     */
+    private static long executeScript(ParallelScriptExecutor scriptExecutor, String scriptName, String project)
+            throws IOException, SQLException {
+        final List<ScriptStatement> statements = new ArrayList<>();
+        try (InputStream script = Main.class.getClassLoader().getResourceAsStream(scriptName)) {
+            for (ScriptStatement statement : ParallelScriptExecutor.parse(script)) {
+                statements.add(new ScriptStatement(statement.getIndex(),
+                        INDEX_PREFIX.matcher(statement.getSql()).replaceAll("($1)")));
+            }
+        }
+        scriptExecutor.execute(statements, project, scriptName, null);
+        return statements.size();
+    }
+
+    private static long count(Connection conn, String table) throws SQLException {
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery("SELECT COUNT(1) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private interface Stage {
+
+        /**
+         * @return Rows the stage processed
+         */
+        long run() throws Exception;
+    }
+
+    private static class StageResult {
+
+        final String name;
+        final long rows;
+        final long millis;
+        final String error;
+
+        StageResult(String name, long rows, long millis, String error) {
+            this.name = name;
+            this.rows = rows;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return String.format(Locale.ROOT, "%-24s %12s %12d %14s  %s", name, "-", millis, "-", error);
+            }
+            return String.format(Locale.ROOT, "%-24s %12d %12d %14.0f", name, rows, millis,
+                    rows * 1000.0 / Math.max(1, millis));
+        }
+    }
+}
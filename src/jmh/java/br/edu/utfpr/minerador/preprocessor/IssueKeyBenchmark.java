@@ -0,0 +1,144 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.benchmark.Corpus;
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Matching of issue keys in commit messages: the regular expression of
+ * {@link Main#buildPatternByName(String)}, the {@link IssueKeyScanner}, the
+ * whole {@link IssueKeyExtractor} and {@link Main#replaceUrl(String)}, and the
+ * resolution of the occurrences by the {@link IssueIndex} or by their keys in
+ * a map. Each operation is one message.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueKeyBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    @Param({"trailer", "multikey", "nomatch", "mixed"})
+    public String corpus;
+
+    private String[] messages;
+    private Matcher matcher;
+    private IssueKeyScanner.Cursor cursor;
+    private IssueKeyExtractor extractor;
+    private IssueKeyHits hits;
+    private Map<String, Issue> issuesByKey;
+    private IssueIndex issueIndex;
+
+    @Setup
+    public void setUp() {
+        messages = Corpus.messages(corpus, MESSAGES);
+        matcher = Pattern.compile(Main.buildPatternByName(Corpus.PROJECT)).matcher("");
+        final IssueKeyScanner scanner = new IssueKeyScanner(Corpus.PROJECT);
+        cursor = scanner.cursor("");
+        extractor = new IssueKeyExtractor(scanner);
+        hits = extractor.newHits();
+
+        // the keys of the corpus are numbered up to 6000
+        issuesByKey = new HashMap<>();
+        for (int number = 1; number <= 6000; number += 2) {
+            issuesByKey.put(Corpus.PROJECT + "-" + number, new Issue(number, null));
+        }
+        issueIndex = new IssueIndex(scanner, issuesByKey);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int regex() {
+        int found = 0;
+        for (String message : messages) {
+            matcher.reset(message);
+            while (matcher.find()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int scanner() {
+        int found = 0;
+        for (String message : messages) {
+            cursor.reset(message);
+            while (cursor.find()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int extract() {
+        hits.clear();
+        for (String message : messages) {
+            extractor.extract(message, hits);
+        }
+        return hits.endHit(hits.getMessageCount() - 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int resolveByIndex() {
+        int resolved = 0;
+        for (String message : messages) {
+            cursor.reset(message);
+            while (cursor.find()) {
+                if (issueIndex.get(cursor.keyIndex(), cursor.number()) != null) {
+                    resolved++;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int resolveByKey() {
+        int resolved = 0;
+        for (String message : messages) {
+            cursor.reset(message);
+            while (cursor.find()) {
+                if (issuesByKey.get(cursor.issueKey()) != null) {
+                    resolved++;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void replaceUrl(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(Main.replaceUrl(message));
+        }
+    }
+}
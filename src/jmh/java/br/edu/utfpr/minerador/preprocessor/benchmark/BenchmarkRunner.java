@@ -0,0 +1,45 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, always with the GC
+ * profiler, so each benchmark reports its allocation rate per operation
+ * (gc.alloc.rate.norm) besides its throughput. The forks log only to stdout
+ * (see {@link #LOG4J_CONFIGURATION}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Logging of the benchmarks, instead of log4j.properties, whose log file
+     * is a Windows path: elsewhere it is a file of the working directory.
+     */
+    public static final String LOG4J_CONFIGURATION = "benchmark-log4j.properties";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        final List<String> jvmArgsAppend = new ArrayList<>(
+                commandLine.getJvmArgsAppend().orElse(Collections.<String>emptyList()));
+        jvmArgsAppend.add("-Dlog4j.configuration=" + LOG4J_CONFIGURATION);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(jvmArgsAppend.toArray(new String[jvmArgsAppend.size()]))
+                .build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Commit messages and versions shaped like those of the Apache projects the
+ * preprocessor mines. They are generated from a fixed seed, so every run
+ * measures the same input.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Corpus {
+
+    public static final String PROJECT = "DERBY";
+
+    private static final String[] WORDS = {
+        "fix", "the", "derby", "network", "server", "client", "driver", "when", "a", "statement", "is",
+        "closed", "before", "result", "set", "patch", "contributed", "by", "merged", "from", "trunk",
+        "javadoc", "test", "suite", "cleanup", "-", "r1234567", "NullPointerException", "in", "EmbedConnection",
+        "(see", "review)", "upgrade", "to", "10.5", "release", "notes", "build.xml", "tools/ant"
+    };
+    private static final String[] SEPARATORS = {": ", " ", ", ", ". ", ") ", "; ", "\n"};
+    private static final String TRAILER = "\n\ngit-svn-id: https://svn.apache.org/repos/asf/db/derby/code/trunk@%d"
+            + " 13f79535-47bb-0310-9956-ffa450edef68\n";
+    private static final String[] QUALIFIERS = {"", "", "", "-M1", "-M2", "-beta", "-RC1", "-alpha", ".win"};
+
+    private Corpus() {
+    }
+
+    /**
+     * @param kind "trailer" (one key and a git-svn-id trailer), "multikey"
+     * (several keys, some spaced like "DERBY - 12"), "nomatch" (long
+     * messages with the project name but no key) or "mixed" (all of them)
+     */
+    public static String[] messages(String kind, int count) {
+        final Random random = new Random(42);
+        final String[] messages = new String[count];
+        for (int i = 0; i < count; i++) {
+            final String messageKind = kind.equals("mixed")
+                    ? new String[]{"trailer", "multikey", "nomatch"}[i % 3] : kind;
+            switch (messageKind) {
+                case "trailer":
+                    messages[i] = key(random) + SEPARATORS[0] + words(random, 8 + random.nextInt(20))
+                            + String.format(TRAILER, 100000 + random.nextInt(1000000));
+                    break;
+                case "multikey":
+                    final StringBuilder message = new StringBuilder("Merge ");
+                    final int keys = 2 + random.nextInt(5);
+                    for (int k = 0; k < keys; k++) {
+                        message.append(random.nextInt(4) == 0 ? PROJECT + " - " + random.nextInt(6000) : key(random))
+                                .append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+                    }
+                    messages[i] = message.append(words(random, 10)).append('.').toString();
+                    break;
+                case "nomatch":
+                    messages[i] = words(random, 300 + random.nextInt(400));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown kind of message: " + kind);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * @return Distinct versions (e.g. 10.5.1.1, 1.21-M2), in random order
+     */
+    public static List<String> versions(int count) {
+        final Random random = new Random(42);
+        final List<String> versions = new ArrayList<>(count);
+        while (versions.size() < count) {
+            final StringBuilder version = new StringBuilder().append(random.nextInt(11))
+                    .append('.').append(random.nextInt(25));
+            final int components = random.nextInt(3);
+            for (int c = 0; c < components; c++) {
+                version.append('.').append(random.nextInt(10));
+            }
+            version.append(QUALIFIERS[random.nextInt(QUALIFIERS.length)]);
+            if (!versions.contains(version.toString())) {
+                versions.add(version.toString());
+            }
+        }
+        return versions;
+    }
+
+    private static String key(Random random) {
+        return PROJECT + "-" + (1 + random.nextInt(6000));
+    }
+
+    /**
+     * @return Words of commit messages separated by spaces and punctuation
+     */
+    public static String words(Random random, int count) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(12) == 0 ? SEPARATORS[random.nextInt(SEPARATORS.length)] : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import br.edu.utfpr.minerador.preprocessor.database.DeferredIndexes;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deferred indexes of an H2 database in MySQL mode, which has no
+ * information_schema.statistics, but information_schema.indexes, and adds one
+ * index per ALTER TABLE.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class H2IndexDialect implements DeferredIndexes.Dialect {
+
+    public static final H2IndexDialect INSTANCE = new H2IndexDialect();
+
+    private H2IndexDialect() {
+    }
+
+    @Override
+    public Set<String> findIndexNames(Connection conn, String table) throws SQLException {
+        final String[] name = table.split("[.]", 2);
+        final Set<String> names = new HashSet<>();
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT DISTINCT index_name FROM information_schema.indexes"
+                + " WHERE table_schema = ? AND table_name = ?")) {
+            statement.setString(1, name[0]);
+            statement.setString(2, name[1]);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    names.add(result.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public List<String> alterStatements(String table, Map<String, String> indexes) {
+        final List<String> statements = new ArrayList<>();
+        for (Map.Entry<String, String> index : indexes.entrySet()) {
+            statements.add(DeferredIndexes.MYSQL.alterStatements(table,
+                    Collections.singletonMap(index.getKey(), index.getValue())).get(0));
+        }
+        return statements;
+    }
+}
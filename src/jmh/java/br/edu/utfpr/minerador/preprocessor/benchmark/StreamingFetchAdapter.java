@@ -0,0 +1,58 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Connection of a database other than MySQL that accepts the MySQL driver
+ * convention of streaming a result set with a fetch size of
+ * Integer.MIN_VALUE, which other drivers reject, by ignoring negative fetch
+ * sizes.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class StreamingFetchAdapter implements InvocationHandler {
+
+    private final Object delegate;
+
+    private StreamingFetchAdapter(Object delegate) {
+        this.delegate = delegate;
+    }
+
+    public static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new StreamingFetchAdapter(connection));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("setFetchSize".equals(method.getName()) && (Integer) args[0] < 0) {
+            return null;
+        }
+        final Object result;
+        try {
+            result = method.invoke(delegate, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+        if (result instanceof CallableStatement) {
+            return wrapStatement(result, CallableStatement.class);
+        } else if (result instanceof PreparedStatement) {
+            return wrapStatement(result, PreparedStatement.class);
+        } else if (result instanceof Statement) {
+            return wrapStatement(result, Statement.class);
+        }
+        return result;
+    }
+
+    private static Object wrapStatement(Object statement, Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StreamingFetchAdapter(statement));
+    }
+}
@@ -0,0 +1,296 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the restored schemas of a project ({0}_vcs and {0}_issues) with
+ * the tables and columns the preprocessing reads, from a fixed seed.
+ *
+ * The shape follows the Apache projects the preprocessor mines: most issues
+ * are fixed and have a fix version, a fraction of the commits reference one
+ * to three issue keys (some with a git-svn-id trailer), most commits change
+ * up to five files, a few more than twenty, and some files are moved to
+ * another directory.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class SyntheticProject {
+
+    private static final int BATCH_SIZE = 5000;
+    private static final long START = Timestamp.valueOf("2004-08-10 00:00:00").getTime();
+    private static final long HOUR = 60L * 60 * 1000;
+    private static final String[] EXTENSIONS = {".java", ".java", ".java", ".xml", ".properties", ".txt"};
+
+    private final String project;
+    private final String key;
+    private final int commits;
+    private final int issues;
+    private final double keyDensity;
+
+    private long rows;
+
+    /**
+     * @param commits Rows of scmlog
+     * @param issues Rows of issues
+     * @param keyDensity Fraction of the commits that reference issue keys
+     */
+    public SyntheticProject(String project, int commits, int issues, double keyDensity) {
+        this.project = project;
+        this.key = project.toUpperCase();
+        this.commits = commits;
+        this.issues = issues;
+        this.keyDensity = keyDensity;
+    }
+
+    public String getProjectKey() {
+        return key;
+    }
+
+    /**
+     * @return Number of rows inserted
+     */
+    public long generate(Connection conn) throws SQLException {
+        rows = 0;
+        final boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            createSchemas(conn);
+            generateIssues(conn, new Random(42));
+            generateCommits(conn, new Random(43));
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return rows;
+    }
+
+    private void createSchemas(Connection conn) throws SQLException {
+        final String vcs = project + "_vcs.";
+        final String its = project + "_issues.";
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA " + project + "_vcs");
+            statement.execute("CREATE SCHEMA " + project + "_issues");
+
+            statement.execute("CREATE TABLE " + vcs + "people (id int(11) NOT NULL, name varchar(255),"
+                    + " email varchar(255), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "scmlog (id int(11) NOT NULL, rev mediumtext,"
+                    + " committer_id int(11), author_id int(11), date datetime, message longtext,"
+                    + " repository_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "files (id int(11) NOT NULL, file_name varchar(255),"
+                    + " repository_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "actions (id int(11) NOT NULL, type varchar(1),"
+                    + " file_id int(11), commit_id int(11), branch_id int(11), PRIMARY KEY (id),"
+                    + " KEY commit_id (commit_id))");
+            statement.execute("CREATE TABLE " + vcs + "file_links (id int(11) NOT NULL, parent_id int(11),"
+                    + " file_id int(11), commit_id int(11), file_path varchar(4096), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "commits_files_lines (id int(11) NOT NULL, commit int(11),"
+                    + " path varchar(4096), added int(11), removed int(11), PRIMARY KEY (id))");
+
+            statement.execute("CREATE TABLE " + its + "people (id int(11) NOT NULL, name varchar(255),"
+                    + " email varchar(255), user_id varchar(255), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + its + "issues (id int(11) NOT NULL, issue varchar(255),"
+                    + " type varchar(32), summary varchar(255), description longtext, status varchar(32),"
+                    + " resolution varchar(32), priority varchar(32), submitted_by int(11), submitted_on datetime,"
+                    + " assigned_to int(11), tracker_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + its + "issues_ext_jira (id int(11) NOT NULL,"
+                    + " issue_key varchar(32), fix_version varchar(255), issue_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + its + "changes (id int(11) NOT NULL, issue_id int(11),"
+                    + " field varchar(64), old_value varchar(255), new_value varchar(255), changed_by int(11),"
+                    + " changed_on datetime, PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + its + "comments (id int(11) NOT NULL, issue_id int(11),"
+                    + " text longtext, submitted_by int(11), submitted_on datetime, PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + its + "issues_watchers (id int(11) NOT NULL, issue_id int(11),"
+                    + " person_id int(11), PRIMARY KEY (id))");
+        }
+    }
+
+    private void generateIssues(Connection conn, Random random) throws SQLException {
+        final String its = project + "_issues.";
+        final List<String> versions = Corpus.versions(Math.max(10, issues / 500));
+        final int people = Math.max(10, issues / 100);
+        final long span = Math.max(1, commits) * HOUR;
+
+        try (Batch insertPerson = new Batch(conn, "INSERT INTO " + its + "people VALUES (?, ?, ?, ?)")) {
+            for (int p = 1; p <= people; p++) {
+                // a third of the reporters are also committers
+                final String name = p % 3 == 0 ? "Developer " + (p / 3) : "Reporter " + p;
+                insertPerson.add(p, name, "person" + p + "@example.org", "user" + p);
+            }
+        }
+
+        try (Batch insertIssue = new Batch(conn, "INSERT INTO " + its + "issues VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                Batch insertJira = new Batch(conn, "INSERT INTO " + its + "issues_ext_jira VALUES (?, ?, ?, ?)");
+                Batch insertChange = new Batch(conn, "INSERT INTO " + its + "changes VALUES (?, ?, ?, ?, ?, ?, ?)");
+                Batch insertComment = new Batch(conn, "INSERT INTO " + its + "comments VALUES (?, ?, ?, ?, ?)");
+                Batch insertWatcher = new Batch(conn, "INSERT INTO " + its + "issues_watchers VALUES (?, ?, ?)")) {
+            int changeId = 0;
+            int commentId = 0;
+            int watcherId = 0;
+            for (int i = 1; i <= issues; i++) {
+                final boolean fixed = random.nextDouble() < 0.7;
+                final long submittedOn = START + (long) (random.nextDouble() * span);
+                final long fixedOn = submittedOn + (1 + random.nextInt(24 * 90)) * HOUR;
+                final int reporter = 1 + random.nextInt(people);
+
+                insertIssue.add(i, key + "-" + i, random.nextInt(4) == 0 ? "Improvement" : "Bug",
+                        Corpus.words(random, 8), Corpus.words(random, 40 + random.nextInt(80)),
+                        fixed ? "Closed" : "Open", fixed ? "Fixed" : null, "Major", reporter,
+                        new Timestamp(submittedOn), 1 + random.nextInt(people), 1);
+
+                String fixVersion = null;
+                if (fixed && random.nextInt(10) > 0) {
+                    fixVersion = versions.get(random.nextInt(versions.size()));
+                    if (random.nextInt(5) == 0) {
+                        fixVersion += "," + versions.get(random.nextInt(versions.size()));
+                    }
+                }
+                insertJira.add(i, key + "-" + i, fixVersion, i);
+
+                insertChange.add(++changeId, i, "Status", "Open", "In Progress", reporter,
+                        new Timestamp(submittedOn + HOUR));
+                if (fixed) {
+                    insertChange.add(++changeId, i, "Resolution", null, "Fixed", reporter, new Timestamp(fixedOn));
+                    if (random.nextInt(20) == 0) {
+                        insertChange.add(++changeId, i, "Status", "Resolved", "Reopened", reporter,
+                                new Timestamp(fixedOn + HOUR));
+                    }
+                }
+
+                final int comments = random.nextInt(7);
+                for (int c = 0; c < comments; c++) {
+                    insertComment.add(++commentId, i, Corpus.words(random, 10 + random.nextInt(60)),
+                            1 + random.nextInt(people), new Timestamp(submittedOn + (c + 1) * HOUR));
+                }
+                final int watchers = random.nextInt(4);
+                for (int w = 0; w < watchers; w++) {
+                    insertWatcher.add(++watcherId, i, 1 + random.nextInt(people));
+                }
+            }
+        }
+    }
+
+    private void generateCommits(Connection conn, Random random) throws SQLException {
+        final String vcs = project + "_vcs.";
+        final int committers = Math.max(5, commits / 2000);
+        final int files = Math.max(100, commits / 4);
+        // current directory of each file, moved by renames
+        final int[] directories = new int[files + 1];
+        final boolean[] created = new boolean[files + 1];
+
+        try (Batch insertPerson = new Batch(conn, "INSERT INTO " + vcs + "people VALUES (?, ?, ?)")) {
+            for (int p = 1; p <= committers; p++) {
+                insertPerson.add(p, "Developer " + p, "dev" + p + "@apache.org");
+            }
+        }
+
+        try (Batch insertFile = new Batch(conn, "INSERT INTO " + vcs + "files VALUES (?, ?, ?)")) {
+            for (int f = 1; f <= files; f++) {
+                insertFile.add(f, "File" + f + EXTENSIONS[f % EXTENSIONS.length], 1);
+                directories[f] = random.nextInt(200);
+            }
+        }
+
+        try (Batch insertCommit = new Batch(conn, "INSERT INTO " + vcs + "scmlog VALUES (?, ?, ?, ?, ?, ?, ?)");
+                Batch insertAction = new Batch(conn, "INSERT INTO " + vcs + "actions VALUES (?, ?, ?, ?, ?)");
+                Batch insertLink = new Batch(conn, "INSERT INTO " + vcs + "file_links VALUES (?, ?, ?, ?, ?)");
+                Batch insertLines = new Batch(conn, "INSERT INTO " + vcs + "commits_files_lines VALUES (?, ?, ?, ?, ?)")) {
+            int actionId = 0;
+            int linkId = 0;
+            int linesId = 0;
+            for (int c = 1; c <= commits; c++) {
+                final int committer = 1 + random.nextInt(committers);
+                insertCommit.add(c, Integer.toString(100000 + c), committer, committer,
+                        new Timestamp(START + c * HOUR), message(random, c), 1);
+
+                final int changed = random.nextInt(50) == 0 ? 21 + random.nextInt(30) : 1 + random.nextInt(5);
+                for (int a = 0; a < changed; a++) {
+                    final int file = 1 + random.nextInt(files);
+                    String type = "M";
+                    if (!created[file]) {
+                        created[file] = true;
+                        type = "A";
+                        insertLink.add(++linkId, null, file, c, path(directories, file));
+                    } else if (random.nextInt(40) == 0) {
+                        directories[file] = random.nextInt(200);
+                        type = "V";
+                        insertLink.add(++linkId, null, file, c, path(directories, file));
+                    }
+                    insertAction.add(++actionId, type, file, c, 1);
+                    insertLines.add(++linesId, c, path(directories, file), random.nextInt(200), random.nextInt(100));
+                }
+            }
+        }
+    }
+
+    private String message(Random random, int commit) {
+        if (random.nextDouble() >= keyDensity || issues == 0) {
+            return Corpus.words(random, 5 + random.nextInt(random.nextInt(10) == 0 ? 400 : 30));
+        }
+        final StringBuilder message = new StringBuilder();
+        final int keys = random.nextInt(5) == 0 ? 2 + random.nextInt(2) : 1;
+        for (int k = 0; k < keys; k++) {
+            message.append(k == 0 ? "" : ", ").append(key).append(random.nextInt(8) == 0 ? " - " : "-")
+                    .append(1 + random.nextInt(issues));
+        }
+        message.append(": ").append(Corpus.words(random, 5 + random.nextInt(30)));
+        if (random.nextBoolean()) {
+            message.append("\n\ngit-svn-id: https://svn.apache.org/repos/asf/").append(project)
+                    .append("/trunk@").append(100000 + commit).append(" 13f79535-47bb-0310-9956-ffa450edef68\n");
+        }
+        return message.toString();
+    }
+
+    private static String path(int[] directories, int file) {
+        return "/trunk/src/main/java/org/apache/synthetic/package" + directories[file]
+                + "/File" + file + EXTENSIONS[file % EXTENSIONS.length];
+    }
+
+    /**
+     * Batched INSERT that commits every {@link #BATCH_SIZE} rows.
+     */
+    private class Batch implements AutoCloseable {
+
+        private final Connection conn;
+        private final PreparedStatement insert;
+        private int pending;
+
+        Batch(Connection conn, String sql) throws SQLException {
+            this.conn = conn;
+            this.insert = conn.prepareStatement(sql);
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    insert.setNull(i + 1, Types.VARCHAR);
+                } else {
+                    insert.setObject(i + 1, values[i]);
+                }
+            }
+            insert.addBatch();
+            rows++;
+            if (++pending == BATCH_SIZE) {
+                insert.executeBatch();
+                conn.commit();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                insert.executeBatch();
+                conn.commit();
+            } finally {
+                insert.close();
+            }
+        }
+    }
+}
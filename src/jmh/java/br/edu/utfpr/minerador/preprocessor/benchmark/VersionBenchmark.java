@@ -0,0 +1,85 @@
+package br.edu.utfpr.minerador.preprocessor.benchmark;
+
+import br.edu.utfpr.minerador.preprocessor.Main;
+import br.edu.utfpr.minerador.preprocessor.comparator.VersionComparator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Minor and major versions of fix versions, and their comparison by
+ * {@link VersionComparator}, one version (or pair) per operation, and the sort
+ * of a whole list of versions.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    private static final int VERSIONS = 500;
+
+    @Param({"500"})
+    public int sortSize;
+
+    private String[] versions;
+    private List<String> unsorted;
+    private final VersionComparator comparator = new VersionComparator();
+
+    @Setup
+    public void setUp() {
+        versions = Corpus.versions(VERSIONS).toArray(new String[0]);
+        unsorted = Corpus.versions(sortSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS)
+    public void minorVersion(Blackhole blackhole) {
+        for (String version : versions) {
+            blackhole.consume(Main.getMinorVersion(version));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS)
+    public void majorVersion(Blackhole blackhole) {
+        for (String version : versions) {
+            blackhole.consume(Main.getMajorVersion(version));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS - 1)
+    public int compare() {
+        int sum = 0;
+        for (int i = 1; i < versions.length; i++) {
+            sum += comparator.compare(versions[i - 1], versions[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<String> sort() {
+        final List<String> sorted = new ArrayList<>(unsorted);
+        Collections.sort(sorted, comparator);
+        return sorted;
+    }
+}
@@ -0,0 +1,62 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line arguments: positional values plus options in the form
+ * "--name=value" or "--name".
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Arguments {
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    public Arguments(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                if (equals > 0) {
+                    options.put(arg.substring(2, equals), arg.substring(equals + 1));
+                } else {
+                    options.put(arg.substring(2), "");
+                }
+            } else {
+                values.add(arg);
+            }
+        }
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public String get(int index) {
+        return values.get(index);
+    }
+
+    public boolean hasOption(String name) {
+        return options.containsKey(name);
+    }
+
+    public String getOption(String name, String defaultValue) {
+        String value = options.get(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public int getIntOption(String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + name + " must be a number: " + value, e);
+        }
+    }
+}
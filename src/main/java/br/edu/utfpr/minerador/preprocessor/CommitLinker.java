@@ -0,0 +1,203 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.database.CommitHandler;
+import br.edu.utfpr.minerador.preprocessor.database.IssueLinkWriter;
+import br.edu.utfpr.minerador.preprocessor.metrics.Counter;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import br.edu.utfpr.minerador.preprocessor.model.Commit;
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Links each commit to the issues referenced by its message, as the commits
+ * are read.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class CommitLinker implements CommitHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitLinker.class);
+
+    private final IssueKeyExtractor extractor;
+    private final Map<String, Issue> issuesByKey;
+    private final IssueIndex issueIndex;
+    private final IssueLinkWriter writer;
+
+    // reused by handle
+    private IssueKeyHits hits;
+
+    private final Map<Integer, List<String>> fixedIssuesIdFixVersion = new HashMap<>();
+    private final Set<Integer> fixedIssuesSet = new HashSet<>();
+
+    // read by the progress reports
+    private volatile int totalCommits;
+    private int totalCommitsWithOccurrences;
+    private int totalPatternOccurrences;
+    private int totalPatternRelatedWithAnIssue;
+
+    private boolean recordIssueKeys;
+
+    // detached until setMetrics
+    private Counter commitsScanned = new Counter();
+    private Counter patternHits = new Counter();
+    private Counter patternRelated = new Counter();
+    private Timer commitLink = new Timer();
+
+    /**
+     * For extractors of regular expressions only, whose keys are looked up in
+     * the map.
+     */
+    public CommitLinker(IssueKeyExtractor extractor,
+            Map<String, Issue> issuesByKey, IssueLinkWriter writer) {
+        this(extractor, issuesByKey, null, writer);
+    }
+
+    /**
+     * @param extractor Used by {@link #handle(Commit)}, may be null when the
+     * keys are extracted elsewhere and given to
+     * {@link #link(Commit, IssueKeyHits, int)}
+     * @param issueIndex Resolves the occurrences of the scanner of the
+     * extractor, may be null if it has none
+     */
+    public CommitLinker(IssueKeyExtractor extractor,
+            Map<String, Issue> issuesByKey, IssueIndex issueIndex, IssueLinkWriter writer) {
+        this.extractor = extractor;
+        this.issuesByKey = issuesByKey;
+        this.issueIndex = issueIndex;
+        this.writer = writer;
+    }
+
+    /**
+     * @param recordIssueKeys Writes every issue key found (see
+     * {@link IssueLinkWriter#addIssueKey(int, String)})
+     */
+    public void setRecordIssueKeys(boolean recordIssueKeys) {
+        this.recordIssueKeys = recordIssueKeys;
+    }
+
+    /**
+     * Records the commits scanned, the pattern hits, the hits related with an
+     * issue and the time to look up and write the issues of each commit with
+     * an issue key (not of each lookup, which is a map read).
+     *
+     * @param prefix E.g. "derby.linking"
+     */
+    public void setMetrics(MetricRegistry metrics, String prefix) {
+        commitsScanned = metrics.counter(prefix + ".commits_scanned");
+        patternHits = metrics.counter(prefix + ".pattern_hits");
+        patternRelated = metrics.counter(prefix + ".pattern_related");
+        commitLink = metrics.timer(prefix + ".commit_link");
+    }
+
+    @Override
+    public void handle(Commit commit) throws SQLException {
+        if (hits == null) {
+            hits = extractor.newHits();
+        }
+        hits.clear();
+        extractor.extract(commit.getMessage(), hits);
+        link(commit, hits, 0);
+    }
+
+    /**
+     * Resolves and writes the issue keys found in the commit message. It must
+     * be called from a single thread. An occurrence of the scanner is resolved
+     * by the {@link IssueIndex}, without building its key unless it is
+     * recorded.
+     *
+     * @param hits Hits of the messages of a batch of commits
+     * @param message Index of the message of the commit in the hits
+     */
+    public void link(Commit commit, IssueKeyHits hits, int message) throws SQLException {
+        totalCommits++;
+        commitsScanned.inc();
+
+        final int firstHit = hits.firstHit(message);
+        final int endHit = hits.endHit(message);
+        final long start = firstHit == endHit ? 0 : System.nanoTime();
+        for (int hit = firstHit; hit < endHit; hit++) {
+            totalPatternOccurrences++;
+            patternHits.inc();
+            if (recordIssueKeys) {
+                writer.addIssueKey(commit.getId(), hits.issueKey(hit, commit.getMessage()));
+            }
+            final String issueKey = hits.key(hit);
+            final Issue issue = issueKey != null
+                    ? issuesByKey.get(issueKey)
+                    : issueIndex.get(hits.keyIndex(hit), hits.number(hit));
+            if (link(commit.getId(), issue)) {
+                totalPatternRelatedWithAnIssue++;
+                patternRelated.inc();
+            }
+        }
+        if (firstHit != endHit) {
+            commitLink.update(System.nanoTime() - start);
+            totalCommitsWithOccurrences++;
+        } else if (log.isDebugEnabled()) {
+            log.debug("No issue key in commit " + commit.getId() + ": " + commit.getMessage());
+        }
+    }
+
+    /**
+     * Links a commit read by a previous run to an issue referenced by its
+     * message, without counting the commit again.
+     *
+     * @return True if the key references an issue and the pair was not
+     * written yet
+     */
+    public boolean relink(int scmlogId, String issueKey) throws SQLException {
+        return link(scmlogId, issuesByKey.get(issueKey));
+    }
+
+    private boolean link(int scmlogId, Issue issue) throws SQLException {
+        if (issue == null) {
+            return false;
+        }
+        final int issueId = issue.getId();
+
+        // adiciona a issue corrigida e as suas versões, uma vez
+        if (fixedIssuesSet.add(issue.getId())) {
+            fixedIssuesIdFixVersion.put(issueId, issue.getFixVersions());
+        }
+        if (writer.linkCommit(issueId, scmlogId)) {
+            return true;
+        }
+        log.debug("Issue " + issueId + " and commit " + scmlogId + " already exists.");
+        return false;
+    }
+
+    /**
+     * @return Fixed issue to its fix versions
+     */
+    public Map<Integer, List<String>> getFixedIssuesIdFixVersion() {
+        return fixedIssuesIdFixVersion;
+    }
+
+    public Set<Integer> getFixedIssuesSet() {
+        return fixedIssuesSet;
+    }
+
+    public int getTotalCommits() {
+        return totalCommits;
+    }
+
+    public int getTotalCommitsWithOccurrences() {
+        return totalCommitsWithOccurrences;
+    }
+
+    public int getTotalPatternOccurrences() {
+        return totalPatternOccurrences;
+    }
+
+    public int getTotalPatternRelatedWithAnIssue() {
+        return totalPatternRelatedWithAnIssue;
+    }
+}
@@ -0,0 +1,111 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues by the index of their project key in an {@link IssueKeyScanner} and
+ * their number, so an occurrence is resolved by two array reads instead of
+ * building its key and hashing it. Issue numbers of Jira are dense, so each
+ * project key has an array as long as its highest number; the few numbers
+ * beyond {@link #MAX_DENSE_NUMBER} (e.g. mistyped keys) are kept in a map.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueIndex {
+
+    public static final int MAX_DENSE_NUMBER = 1 << 22;
+
+    private static final Issue[] NO_ISSUES = new Issue[0];
+
+    private final Issue[][] issuesByNumber;
+    private final Map<Long, Issue> sparseIssues = new HashMap<>();
+
+    /**
+     * @param issuesByKey Upper case issue key (e.g. DERBY-1234) to issue; keys
+     * of other projects or not ending by a number are ignored
+     */
+    public IssueIndex(IssueKeyScanner scanner, Map<String, Issue> issuesByKey) {
+        final Map<String, Integer> keyIndexes = new HashMap<>();
+        for (int k = scanner.getKeyCount() - 1; k >= 0; k--) {
+            // a repeated project key is found by its first index
+            keyIndexes.put(scanner.getKey(k), k);
+        }
+
+        final int[] maxNumbers = new int[scanner.getKeyCount()];
+        for (String issueKey : issuesByKey.keySet()) {
+            final int keyIndex = keyIndex(keyIndexes, issueKey);
+            if (keyIndex >= 0 && number(issueKey) < MAX_DENSE_NUMBER) {
+                maxNumbers[keyIndex] = Math.max(maxNumbers[keyIndex], number(issueKey) + 1);
+            }
+        }
+
+        issuesByNumber = new Issue[scanner.getKeyCount()][];
+        for (int k = 0; k < issuesByNumber.length; k++) {
+            issuesByNumber[k] = maxNumbers[k] == 0 ? NO_ISSUES : new Issue[maxNumbers[k]];
+        }
+        for (Map.Entry<String, Issue> issue : issuesByKey.entrySet()) {
+            final int keyIndex = keyIndex(keyIndexes, issue.getKey());
+            if (keyIndex < 0) {
+                continue;
+            }
+            final int number = number(issue.getKey());
+            if (number < MAX_DENSE_NUMBER) {
+                issuesByNumber[keyIndex][number] = issue.getValue();
+            } else {
+                sparseIssues.put(sparseKey(keyIndex, number), issue.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param number Issue number, -1 if the occurrence has none
+     * @return Issue, or null if there is none with the number
+     */
+    public Issue get(int keyIndex, int number) {
+        final Issue[] issues = issuesByNumber[keyIndex];
+        if (number < 0) {
+            return null;
+        }
+        if (number < issues.length) {
+            return issues[number];
+        }
+        return sparseIssues.isEmpty() ? null : sparseIssues.get(sparseKey(keyIndex, number));
+    }
+
+    private static long sparseKey(int keyIndex, int number) {
+        return ((long) keyIndex << 32) | number;
+    }
+
+    /**
+     * @return Index of the project key of the issue key, -1 if it is not of
+     * the scanner or does not end by a number without leading zeros
+     */
+    private static int keyIndex(Map<String, Integer> keyIndexes, String issueKey) {
+        final int dash = issueKey.lastIndexOf('-');
+        final Integer keyIndex = dash < 0 ? null : keyIndexes.get(issueKey.substring(0, dash));
+        return keyIndex == null || number(issueKey) < 0 ? -1 : keyIndex;
+    }
+
+    /**
+     * @return Number after the last '-' of the issue key, -1 if it is not
+     * written as a number that fits in an int
+     */
+    private static int number(String issueKey) {
+        final int first = issueKey.lastIndexOf('-') + 1;
+        final int length = issueKey.length() - first;
+        if (length == 0 || length > 10 || (length > 1 && issueKey.charAt(first) == '0')) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = first; i < issueKey.length(); i++) {
+            final char c = issueKey.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number <= Integer.MAX_VALUE ? (int) number : -1;
+    }
+}
@@ -0,0 +1,117 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extracts the issue keys referenced by a commit message, with an
+ * {@link IssueKeyScanner} for Jira keys or a regular expression for Bugzilla
+ * references. It reuses its cursor or {@link Matcher}, so each thread must
+ * have its own instance (see {@link #copy()}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueKeyExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(IssueKeyExtractor.class);
+    private static final Pattern REGEX_NUMBER = Pattern.compile("\\d+");
+
+    private final IssueKeyScanner scanner;
+    private final IssueKeyScanner.Cursor cursor;
+
+    private final Pattern regex;
+    private final Matcher matcher;
+    private final Matcher matcherNumber;
+    private final boolean isIssuesFromBugzilla;
+
+    /**
+     * Extracts Jira issue keys (e.g. ARIES-1234).
+     */
+    public IssueKeyExtractor(IssueKeyScanner scanner) {
+        this.scanner = scanner;
+        this.cursor = scanner.cursor("");
+        this.regex = null;
+        this.matcher = null;
+        this.matcherNumber = null;
+        this.isIssuesFromBugzilla = false;
+    }
+
+    /**
+     * Extracts the occurrences of a regular expression; for Bugzilla, only
+     * the issue number of each occurrence.
+     */
+    public IssueKeyExtractor(Pattern regex, boolean isIssuesFromBugzilla) {
+        this.scanner = null;
+        this.cursor = null;
+        this.regex = regex;
+        this.matcher = regex.matcher("");
+        this.matcherNumber = REGEX_NUMBER.matcher("");
+        this.isIssuesFromBugzilla = isIssuesFromBugzilla;
+    }
+
+    /**
+     * @return New extractor with the same configuration, to be used by
+     * another thread
+     */
+    public IssueKeyExtractor copy() {
+        return scanner != null
+                ? new IssueKeyExtractor(scanner)
+                : new IssueKeyExtractor(regex, isIssuesFromBugzilla);
+    }
+
+    /**
+     * @return Description of what is extracted, for logging
+     */
+    public String getPattern() {
+        return scanner != null ? scanner.toString() : regex.pattern();
+    }
+
+    /**
+     * @return Empty hits for {@link #extract(String, IssueKeyHits)}
+     */
+    public IssueKeyHits newHits() {
+        return new IssueKeyHits(scanner);
+    }
+
+    /**
+     * Adds the issue keys of the message to the hits, as the hits of their
+     * next message: for Jira, the occurrences of the scanner, which does not
+     * allocate; for the regular expression, upper case keys (e.g. ARIES-1234,
+     * or 1234 for Bugzilla), one for each occurrence.
+     */
+    public void extract(String message, IssueKeyHits hits) {
+        // stops at "git-svn-id: https://svn.apache.org/*" of the message
+        // to avoid false positive matches of pattern
+        // (e.g. git-svn-id: https://svn.apache.org/camel-1.1.0)
+        if (scanner != null) {
+            cursor.reset(message);
+            while (cursor.find()) {
+                hits.add(cursor);
+            }
+            hits.endMessage();
+            return;
+        }
+
+        matcher.reset(message).region(0, IssueKeyScanner.trailerStart(message));
+
+        // para cada ocorrência do padrão
+        while (matcher.find()) {
+
+            String issueKey = matcher.group().replace(" ", ""); // e.g.: ARIES-1234
+
+            if (isIssuesFromBugzilla) {
+                matcherNumber.reset(issueKey);
+                if (matcherNumber.find()) {
+                    issueKey = matcherNumber.group(); // e.g.: 1234
+                } else {
+                    log.info("Not found issue for match pattern " + issueKey);
+                }
+            }
+
+            hits.add(issueKey.toUpperCase());
+        }
+        hits.endMessage();
+    }
+}
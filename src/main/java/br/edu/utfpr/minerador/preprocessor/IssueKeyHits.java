@@ -0,0 +1,154 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.Arrays;
+
+/**
+ * Issue keys found in a sequence of commit messages, by an
+ * {@link IssueKeyExtractor}. An occurrence of an {@link IssueKeyScanner} is
+ * kept as primitives: the index of its project key, its number and where its
+ * digits are in the message, so adding it does not allocate; an occurrence of
+ * a regular expression is kept as its upper case key. The arrays grow by
+ * doubling and are reused after {@link #clear()}.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueKeyHits {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final IssueKeyScanner scanner;
+
+    private int[] keyIndexes = new int[INITIAL_CAPACITY];
+    private int[] numbers = new int[INITIAL_CAPACITY];
+    private int[] numberStarts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private String[] keys;
+    private int size;
+
+    // index after the last hit of each message
+    private int[] messageEnds = new int[INITIAL_CAPACITY];
+    private int messageCount;
+
+    /**
+     * @param scanner Scanner of the occurrences, null if only keys are added
+     */
+    public IssueKeyHits(IssueKeyScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    /**
+     * Adds the current occurrence of the cursor to the current message.
+     */
+    public void add(IssueKeyScanner.Cursor cursor) {
+        ensureCapacity();
+        keyIndexes[size] = cursor.keyIndex();
+        numbers[size] = cursor.number();
+        numberStarts[size] = cursor.numberStart();
+        ends[size] = cursor.end();
+        if (keys != null) {
+            keys[size] = null;
+        }
+        size++;
+    }
+
+    /**
+     * Adds an upper case key (e.g. 1234 for Bugzilla) to the current message.
+     */
+    public void add(String issueKey) {
+        ensureCapacity();
+        if (keys == null) {
+            keys = new String[keyIndexes.length];
+        }
+        keyIndexes[size] = -1;
+        numbers[size] = -1;
+        keys[size] = issueKey;
+        size++;
+    }
+
+    /**
+     * Closes the hits of the current message, the next ones are of the next
+     * message.
+     */
+    public void endMessage() {
+        if (messageCount == messageEnds.length) {
+            messageEnds = Arrays.copyOf(messageEnds, messageCount * 2);
+        }
+        messageEnds[messageCount++] = size;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return Index of the first hit of the message
+     */
+    public int firstHit(int message) {
+        return message == 0 ? 0 : messageEnds[message - 1];
+    }
+
+    /**
+     * @return Index after the last hit of the message
+     */
+    public int endHit(int message) {
+        return messageEnds[message];
+    }
+
+    /**
+     * @return Index of the project key (see
+     * {@link IssueKeyScanner#getKey(int)}), -1 for a key added as text
+     */
+    public int keyIndex(int hit) {
+        return keyIndexes[hit];
+    }
+
+    /**
+     * @return Issue number (see {@link IssueKeyScanner.Cursor#number()}), -1
+     * for a key added as text
+     */
+    public int number(int hit) {
+        return numbers[hit];
+    }
+
+    /**
+     * @return Key added as text, or null for an occurrence of the scanner
+     */
+    public String key(int hit) {
+        return keys == null ? null : keys[hit];
+    }
+
+    /**
+     * @param message The message of the hit
+     * @return Normalized issue key (e.g. "DERBY - 0123" is DERBY-0123)
+     */
+    public String issueKey(int hit, CharSequence message) {
+        final String key = key(hit);
+        if (key != null) {
+            return key;
+        }
+        final String projectKey = scanner.getKey(keyIndexes[hit]);
+        return new StringBuilder(projectKey.length() + ends[hit] - numberStarts[hit] + 1)
+                .append(projectKey).append('-')
+                .append(message, numberStarts[hit], ends[hit])
+                .toString();
+    }
+
+    public void clear() {
+        size = 0;
+        messageCount = 0;
+    }
+
+    private void ensureCapacity() {
+        if (size < keyIndexes.length) {
+            return;
+        }
+        final int capacity = size * 2;
+        keyIndexes = Arrays.copyOf(keyIndexes, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        numberStarts = Arrays.copyOf(numberStarts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        if (keys != null) {
+            keys = Arrays.copyOf(keys, capacity);
+        }
+    }
+}
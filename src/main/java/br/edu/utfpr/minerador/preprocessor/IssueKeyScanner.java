@@ -0,0 +1,385 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds issue keys of one or more projects (e.g. DERBY-1234, SOLR - 56) in a
+ * single pass over the text, without java.util.regex.
+ *
+ * It recognizes the same occurrences as {@link Main#buildPatternByName(String)}:
+ * the project key (ignoring ASCII case), optional whitespace, one or more '-',
+ * optional whitespace and the issue number, which must be followed by one of
+ * ':', ',', ']', ')', '(', ';', '_', a whitespace, a '.' not followed by a
+ * word character or a '-' not followed by a letter.
+ *
+ * The scan stops at the git-svn-id trailer of the Apache mirrors (e.g.
+ * "git-svn-id: https://svn.apache.org/repos/asf/camel-1.1.0"), whose URL would
+ * give false occurrences; an issue key right before it is followed by what
+ * follows the trailer line, as if {@link Main#replaceUrl(String)} had removed
+ * it.
+ *
+ * The scanner is immutable and can be shared by threads; each thread uses its
+ * own {@link Cursor}, which does not allocate while scanning.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueKeyScanner {
+
+    private static final int ASCII = 128;
+
+    private static final String GIT_SVN_ID = "git-svn-id:";
+    // '.' is any character but a line terminator, as in the regular expression
+    private static final String SVN_APACHE_URL = "https://svn.apache.org/";
+
+    private final String[] keys;
+    private final char[][] upperKeys;
+    private final int[][] keysByFirstChar;
+
+    /**
+     * @param projectKeys Project keys (e.g. DERBY, SOLR), case is ignored
+     */
+    public IssueKeyScanner(String... projectKeys) {
+        if (projectKeys.length == 0) {
+            throw new IllegalArgumentException("At least one project key is required.");
+        }
+        keys = new String[projectKeys.length];
+        upperKeys = new char[projectKeys.length][];
+
+        List<List<Integer>> byFirstChar = new ArrayList<>(ASCII);
+        for (int c = 0; c < ASCII; c++) {
+            byFirstChar.add(new ArrayList<Integer>(1));
+        }
+        for (int k = 0; k < projectKeys.length; k++) {
+            final String key = projectKeys[k].trim();
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Empty project key.");
+            }
+            upperKeys[k] = new char[key.length()];
+            for (int i = 0; i < key.length(); i++) {
+                final char c = key.charAt(i);
+                if (c >= ASCII) {
+                    throw new IllegalArgumentException("Project key must be ASCII: " + key);
+                }
+                upperKeys[k][i] = toUpperCase(c);
+            }
+            keys[k] = new String(upperKeys[k]);
+            byFirstChar.get(upperKeys[k][0]).add(k);
+        }
+
+        keysByFirstChar = new int[ASCII][];
+        for (int c = 0; c < ASCII; c++) {
+            final List<Integer> candidates = byFirstChar.get(toUpperCase((char) c));
+            keysByFirstChar[c] = new int[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                keysByFirstChar[c][i] = candidates.get(i);
+            }
+        }
+    }
+
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    /**
+     * @return Upper case project key
+     */
+    public String getKey(int keyIndex) {
+        return keys[keyIndex];
+    }
+
+    public Cursor cursor(CharSequence text) {
+        return new Cursor(text);
+    }
+
+    @Override
+    public String toString() {
+        return String.join("|", keys);
+    }
+
+    /**
+     * Iterates over the issue keys found in a text, like {@link java.util.regex.Matcher#find()}.
+     */
+    public final class Cursor {
+
+        private CharSequence text;
+        private int limit;
+        private boolean limitIsBoundary;
+        private int position;
+        private int start;
+        private int numberStart;
+        private int end;
+        private int keyIndex;
+        private int number;
+
+        private Cursor(CharSequence text) {
+            reset(text);
+        }
+
+        public Cursor reset(CharSequence text) {
+            this.text = text;
+            this.limit = trailerStart(text);
+            this.limitIsBoundary = limit < text.length() && isFollowedByLineBreak(text, limit);
+            this.position = 0;
+            this.start = -1;
+            this.end = -1;
+            return this;
+        }
+
+        /**
+         * @return True if another issue key was found
+         */
+        public boolean find() {
+            final CharSequence text = this.text;
+            final int length = limit;
+
+            for (int i = position; i < length; i++) {
+                final char c = text.charAt(i);
+                if (c >= ASCII) {
+                    continue;
+                }
+                final int[] candidates = keysByFirstChar[c];
+                for (int k = 0; k < candidates.length; k++) {
+                    if (matchAt(text, length, i, candidates[k])) {
+                        position = end;
+                        return true;
+                    }
+                }
+            }
+            position = length;
+            start = -1;
+            end = -1;
+            return false;
+        }
+
+        private boolean matchAt(CharSequence text, int length, int from, int key) {
+            final char[] upperKey = upperKeys[key];
+            int i = from;
+            if (length - i < upperKey.length) {
+                return false;
+            }
+            for (int j = 0; j < upperKey.length; j++, i++) {
+                final char c = text.charAt(i);
+                if (c >= ASCII || toUpperCase(c) != upperKey[j]) {
+                    return false;
+                }
+            }
+
+            // \s*[-]+\s*
+            while (i < length && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == length || text.charAt(i) != '-') {
+                return false;
+            }
+            while (i < length && text.charAt(i) == '-') {
+                i++;
+            }
+            while (i < length && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+
+            // \d+
+            final int digits = i;
+            long value = 0;
+            while (i < length && isDigit(text.charAt(i))) {
+                if (value <= Integer.MAX_VALUE) {
+                    value = value * 10 + (text.charAt(i) - '0');
+                }
+                i++;
+            }
+            if (i == digits || !(i == length ? limitIsBoundary : isFollowedByBoundary(text, length, i))) {
+                return false;
+            }
+
+            this.start = from;
+            this.numberStart = digits;
+            this.end = i;
+            this.keyIndex = key;
+            this.number = value <= Integer.MAX_VALUE && (i - digits == 1 || text.charAt(digits) != '0')
+                    ? (int) value : -1;
+            return true;
+        }
+
+        /**
+         * Index of the first character of the occurrence.
+         */
+        public int start() {
+            checkMatch();
+            return start;
+        }
+
+        /**
+         * Index of the first digit of the occurrence.
+         */
+        public int numberStart() {
+            checkMatch();
+            return numberStart;
+        }
+
+        /**
+         * Index after the last digit of the occurrence.
+         */
+        public int end() {
+            checkMatch();
+            return end;
+        }
+
+        /**
+         * Index of the project key, see {@link IssueKeyScanner#getKey(int)}.
+         */
+        public int keyIndex() {
+            checkMatch();
+            return keyIndex;
+        }
+
+        /**
+         * @return Issue number, or -1 if it has leading zeros or does not fit
+         * in an int, as the number of no issue key does
+         */
+        public int number() {
+            checkMatch();
+            return number;
+        }
+
+        /**
+         * @return Normalized issue key (e.g. "DERBY - 0123" is DERBY-0123)
+         */
+        public String issueKey() {
+            checkMatch();
+            return new StringBuilder(keys[keyIndex].length() + end - numberStart + 1)
+                    .append(keys[keyIndex]).append('-')
+                    .append(text, numberStart, end)
+                    .toString();
+        }
+
+        private void checkMatch() {
+            if (start < 0) {
+                throw new IllegalStateException("No match available");
+            }
+        }
+    }
+
+    /**
+     * @return Index of the whitespace before the first git-svn-id trailer of
+     * the Apache mirrors (\s+git-svn-id:\shttps://svn.apache.org/), or the
+     * length of the text without it
+     */
+    static int trailerStart(CharSequence text) {
+        final int length = text.length();
+        int from = 1;
+        int i;
+        while ((i = indexOf(text, GIT_SVN_ID, from)) >= 0) {
+            if (isWhitespace(text.charAt(i - 1)) && isSvnApacheUrlAt(text, i + GIT_SVN_ID.length())) {
+                while (i > 0 && isWhitespace(text.charAt(i - 1))) {
+                    i--;
+                }
+                return i;
+            }
+            from = i + 1;
+        }
+        return length;
+    }
+
+    // \shttps://svn.apache.org/
+    private static boolean isSvnApacheUrlAt(CharSequence text, int from) {
+        if (text.length() - from < SVN_APACHE_URL.length() + 1 || !isWhitespace(text.charAt(from))) {
+            return false;
+        }
+        for (int j = 0; j < SVN_APACHE_URL.length(); j++) {
+            final char c = SVN_APACHE_URL.charAt(j);
+            final char t = text.charAt(from + 1 + j);
+            if (c == '.' ? isLineTerminator(t) : c != t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the line of the trailer starting at the index is
+     * followed by a '\n' or a '\r', the whitespace that would follow its
+     * removal
+     */
+    private static boolean isFollowedByLineBreak(CharSequence text, int trailerStart) {
+        final int length = text.length();
+        int i = trailerStart;
+        // the whitespace before the trailer, which may span lines
+        while (i < length && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        while (i < length && !isLineTerminator(text.charAt(i))) {
+            i++;
+        }
+        return i < length && isWhitespace(text.charAt(i));
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(target, from);
+        }
+        final int last = text.length() - target.length();
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < target.length() && text.charAt(i + j) == target.charAt(j)) {
+                j++;
+            }
+            if (j == target.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // (?=\.(?!\w)|-(?![a-zA-Z])|:|\s|,|]|\)|\(|;|_)
+    private static boolean isFollowedByBoundary(CharSequence text, int length, int i) {
+        if (i == length) {
+            return false;
+        }
+        final char c = text.charAt(i);
+        switch (c) {
+            case '.':
+                return i + 1 == length || !isWordChar(text.charAt(i + 1));
+            case '-':
+                return i + 1 == length || !isLetter(text.charAt(i + 1));
+            case ':':
+            case ',':
+            case ']':
+            case ')':
+            case '(':
+            case ';':
+            case '_':
+                return true;
+            default:
+                return isWhitespace(c);
+        }
+    }
+
+    // \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // the complement of '.'
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // \d
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // \w
+    private static boolean isWordChar(char c) {
+        return isLetter(c) || isDigit(c) || c == '_';
+    }
+
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
@@ -1,9 +1,31 @@
 package br.edu.utfpr.minerador.preprocessor;
 
-import br.edu.utfpr.minerador.preprocessor.comparator.VersionComparator;
+import br.edu.utfpr.minerador.preprocessor.database.Checkpoints;
+import br.edu.utfpr.minerador.preprocessor.database.CommitDao;
 import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
-import br.edu.utfpr.minerador.preprocessor.model.Commit;
-import com.mysql.jdbc.exceptions.jdbc4.MySQLIntegrityConstraintViolationException;
+import br.edu.utfpr.minerador.preprocessor.database.ConnectionProfile;
+import br.edu.utfpr.minerador.preprocessor.database.DeferredIndexes;
+import br.edu.utfpr.minerador.preprocessor.database.FixVersionDictionary;
+import br.edu.utfpr.minerador.preprocessor.database.HighWaterMarks;
+import br.edu.utfpr.minerador.preprocessor.database.IssueAggregator;
+import br.edu.utfpr.minerador.preprocessor.database.IssueDao;
+import br.edu.utfpr.minerador.preprocessor.database.IssueLinkWriter;
+import br.edu.utfpr.minerador.preprocessor.database.MetadataDao;
+import br.edu.utfpr.minerador.preprocessor.denormalization.CommitsBuilder;
+import br.edu.utfpr.minerador.preprocessor.denormalization.IssuesToAnalyzeBuilder;
+import br.edu.utfpr.minerador.preprocessor.metrics.Gauge;
+import br.edu.utfpr.minerador.preprocessor.metrics.JmxExporter;
+import br.edu.utfpr.minerador.preprocessor.metrics.JvmGauges;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricsReport;
+import br.edu.utfpr.minerador.preprocessor.metrics.ProgressReporter;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import br.edu.utfpr.minerador.preprocessor.model.Version;
+import br.edu.utfpr.minerador.preprocessor.restore.DumpFingerprint;
+import br.edu.utfpr.minerador.preprocessor.restore.DumpRestorer;
+import br.edu.utfpr.minerador.preprocessor.restore.SchemaCloner;
+import br.edu.utfpr.minerador.preprocessor.script.ParallelScriptExecutor;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -13,17 +35,24 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import javax.management.JMException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,44 +63,427 @@ import org.slf4j.LoggerFactory;
 public class Main {
 
     private static final Logger log = LoggerFactory.getLogger(Main.class);
-    private static final String SQL_DELIMITER = ";";
+    private static final int MIN_CONNECTIONS_PER_PROJECT = 4;
+    private static final String DEFAULT_METRICS_REPORT = "preprocessor-metrics.json";
+    private static final String STEP_RESTORE = "restore";
+    private static final String STEP_OPTIMIZATION = "optimization";
+    private static final String STEP_AGGREGATION = "aggregation";
+    private static final String STEP_LINKING = "linking";
+    private static final String STEP_LINK_INDEXES = "link_indexes";
+    private static final String STEP_COMMITS = "commits";
+    private static final String STEP_ISSUES_TO_ANALYZE = "issues_to_analyze";
+    private static final Pattern GIT_SVN_ID = Pattern.compile("(\\s+git-svn-id:\\shttps://svn.apache.org/).*");
 
     public static void main(String[] args) throws SQLException {
 
         long start = System.currentTimeMillis();
 
-        if (args.length < 2) {
-            log.warn("Enter the backupsPath and projectName.\n"
-                    + "E.g. preprocessor.jar /backups project");
+        Arguments arguments = new Arguments(args);
+        if (arguments.size() < 2 && !(arguments.size() == 1 && arguments.hasOption("all-projects"))) {
+            log.warn("Enter the backupsPath and projectName (or a comma-separated list of projects).\n"
+                    + "E.g. preprocessor.jar /backups project [--threads=4] [--restore-threads=8] [--no-snapshot] [--restart] [--incremental] [--keys=DERBY,JDO] [--profile=name] [--metrics-report=file.json]\n"
+                    + "     preprocessor.jar /backups derby,jdo [--parallel-projects=2]\n"
+                    + "     preprocessor.jar /backups --all-projects [--parallel-projects=2]");
+            System.exit(1);
         }
 
-        ConnectionFactory factory = new ConnectionFactory();
+        String backupsPath = arguments.get(0);
+        List<String> projects = arguments.hasOption("all-projects")
+                ? findProjects(new File(backupsPath))
+                : Arrays.asList(arguments.get(1).split(","));
+        int parallelProjects = Math.max(1, Math.min(projects.size(), arguments.getIntOption("parallel-projects", 2)));
+        int threads = arguments.getIntOption("threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / parallelProjects));
+        int restoreThreads = arguments.getIntOption("restore-threads", threads);
+
+        // exported while the run goes on and written as a report at the end
+        MetricRegistry metrics = MetricRegistry.getDefault();
+        JvmGauges.register(metrics);
+        try {
+            JmxExporter.register(metrics, JmxExporter.DEFAULT_NAME);
+        } catch (JMException ex) {
+            log.warn("Error to export the metrics over JMX.", ex);
+        }
 
-        try (Connection mysqlConnection = factory.getConnection()) {
+        // the pool opens only the connections the stages ask for
+        ConnectionProfile profile = ConnectionProfile.load(arguments.getOption("profile", System.getenv("PREPROCESSOR_PROFILE")));
+        int connectionsPerProject = getConnectionsPerProject(profile, threads, restoreThreads);
+        ConnectionFactory factory = new ConnectionFactory(profile, null, parallelProjects * connectionsPerProject);
+        log.info("Connecting to " + profile.getHost() + ":" + profile.getPort() + " with at most "
+                + factory.getConfig().getMaximumPoolSize() + " connections...");
+        registerConnectionsGauge("connections.in_use", factory);
+        List<ProjectResult> results = new ArrayList<>();
+        // refills the pristine schemas of the projects after their run
+        ExecutorService snapshotRefills = Executors.newSingleThreadExecutor();
+
+        try {
+            if (projects.size() == 1) {
+                String keys = arguments.getOption("keys", projects.get(0));
+                results.add(preprocessProject(factory, arguments, backupsPath, projects.get(0), keys,
+                        threads, restoreThreads, snapshotRefills));
+            } else {
+                results.addAll(preprocessProjects(factory, arguments, backupsPath, projects, parallelProjects,
+                        threads, restoreThreads, snapshotRefills));
+            }
+        } finally {
+            awaitSnapshotRefills(snapshotRefills);
+            factory.close();
+        }
 
-            String backupsPath = args[0];
-            String projectName = args[1];
+        boolean succeeded = true;
+        StringBuilder summary = new StringBuilder("\n\nSummary of " + results.size() + " projects:\n");
+        for (ProjectResult result : results) {
+            summary.append(result).append('\n');
+            succeeded &= result.isSucceeded();
+        }
+        log.info(summary.toString());
 
-            restoreDatabase(backupsPath, projectName, mysqlConnection);
+        writeMetricsReport(new File(arguments.getOption("metrics-report", DEFAULT_METRICS_REPORT)),
+                start, succeeded, results);
 
-            log.info("Executing optimization...");
-            executeOptimizationScript(mysqlConnection, projectName);
+        log.info("Finished in " + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+        System.exit(succeeded ? 0 : 1);
+    }
 
-            log.info("Linking issue to commit...");
-            linkIssueToScmlog(mysqlConnection, projectName);
+    /**
+     * Waits for the pristine schemas being refilled, which the next runs
+     * need. Their errors are only logged (see {@link #restoreSnapshots}).
+     */
+    private static void awaitSnapshotRefills(ExecutorService snapshotRefills) {
+        snapshotRefills.shutdown();
+        try {
+            while (!snapshotRefills.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for the pristine schemas to be refilled...");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            snapshotRefills.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the metrics of the run (see {@link MetricsReport}). Errors are
+     * only logged, the run is already finished.
+     */
+    private static void writeMetricsReport(File file, long start, boolean succeeded, List<ProjectResult> results) {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("started", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date(start)));
+        run.put("seconds", (System.currentTimeMillis() - start) / 1000);
+        run.put("succeeded", succeeded);
+        List<Map<String, Object>> projects = new ArrayList<>();
+        for (ProjectResult result : results) {
+            projects.add(result.toMap());
+        }
+        run.put("projects", projects);
+        try {
+            MetricsReport.write(file, run, MetricRegistry.getDefault());
+            log.info("Metrics written to " + file.getAbsolutePath() + ".");
+        } catch (IOException ex) {
+            log.warn("Error to write the metrics to " + file.getAbsolutePath() + ".", ex);
+        }
+    }
 
-            log.info("Successfuly pre-processed!");
+    private static void registerConnectionsGauge(String name, final ConnectionFactory factory) {
+        MetricRegistry.getDefault().register(name, new Gauge<Integer>() {
 
-        } catch (SQLException | IOException | InterruptedException ex) {
-            log.error("Error.", ex);
-            System.exit(1);
+            @Override
+            public Integer getValue() {
+                return factory.getConnectionsInUse();
+            }
+        });
+    }
+
+    /**
+     * @return Context recording the time of a stage of the project, e.g.
+     * "derby.stage.linking"
+     */
+    private static Timer.Context timeStage(String projectName, String stage) {
+        return MetricRegistry.getDefault().timer(projectName + ".stage." + stage).time();
+    }
+
+    /**
+     * Runs the pipelines of at most {@code parallelProjects} projects at the
+     * same time. They share the connection pool, each project holding at most
+     * an equal share of it, and the processors.
+     */
+    private static List<ProjectResult> preprocessProjects(final ConnectionFactory factory,
+            final Arguments arguments, final String backupsPath, List<String> projects, int parallelProjects,
+            final int threads, final int restoreThreads, final ExecutorService snapshotRefills) {
+
+        final int connectionsPerProject = Math.max(MIN_CONNECTIONS_PER_PROJECT,
+                factory.getConfig().getMaximumPoolSize() / parallelProjects);
+        if (arguments.hasOption("keys")) {
+            log.warn("--keys is ignored in batch mode, each project uses its own name.");
+        }
+        log.info("Preprocessing " + projects.size() + " projects, " + parallelProjects + " at the same time, with "
+                + connectionsPerProject + " connections and " + threads + " threads each...");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelProjects);
+        final List<Future<ProjectResult>> futures = new ArrayList<>();
+        try {
+            for (final String project : projects) {
+                futures.add(executor.submit(new Callable<ProjectResult>() {
+
+                    @Override
+                    public ProjectResult call() {
+                        return preprocessProject(factory.withBudget(connectionsPerProject),
+                                arguments, backupsPath, project, project, threads, restoreThreads,
+                                snapshotRefills);
+                    }
+                }));
+            }
+
+            final List<ProjectResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    results.add(ProjectResult.failed(projects.get(i), 0, ex));
+                } catch (ExecutionException ex) {
+                    results.add(ProjectResult.failed(projects.get(i), 0, ex.getCause()));
+                }
+            }
+            return results;
         } finally {
-            factory.close();
+            executor.shutdownNow();
         }
-        log.info("Finished in " + ((System.currentTimeMillis() - start) / 1000) + " secs.");
-        System.exit(0);
     }
-    private static void executeOptimizationScript(Connection mysqlConnection, String projectName) throws SQLException {
+
+    /**
+     * @return Connections of the widest stage of a project, plus the main
+     * connection of the project and the one that saves the checkpoints
+     */
+    static int getConnectionsPerProject(ConnectionProfile profile, int threads, int restoreThreads) {
+        return Math.max(profile.getStageConnections(STEP_RESTORE, restoreThreads) + 1,
+                profile.getStageConnections(STEP_OPTIMIZATION, threads)) + 2;
+    }
+
+    /**
+     * @return Projects with both dumps (e.g. derby_issues.sql and
+     * derby_vcs.sql) in the backups directory, sorted by name
+     */
+    static List<String> findProjects(File backupsDir) {
+        final List<String> projects = new ArrayList<>();
+        final String[] files = backupsDir.list();
+        if (files != null) {
+            for (String file : files) {
+                if (file.endsWith("_issues.sql")) {
+                    final String project = file.substring(0, file.length() - "_issues.sql".length());
+                    if (new File(backupsDir, project + "_vcs.sql").exists()) {
+                        projects.add(project);
+                    }
+                }
+            }
+        }
+        Collections.sort(projects);
+        return projects;
+    }
+
+    /**
+     * Restores, optimizes and links one project. Errors are logged and
+     * returned, so the other projects of a batch go on.
+     *
+     * @param keys Comma-separated Jira project keys referenced by commits
+     * @param snapshotRefills Refills the pristine schemas restored by the run,
+     * after the run succeeded
+     */
+    private static ProjectResult preprocessProject(ConnectionFactory factory, Arguments arguments,
+            String backupsPath, String projectName, String keys, int threads, int restoreThreads,
+            ExecutorService snapshotRefills) {
+
+        long start = System.currentTimeMillis();
+        registerConnectionsGauge(projectName + ".connections.in_use", factory);
+
+        try (Timer.Context total = timeStage(projectName, "total");
+                Connection mysqlConnection = factory.getConnection()) {
+
+            String[] projectKeys = keys.split(",");
+
+            boolean snapshot = !arguments.hasOption("no-snapshot");
+
+            // resumes a failed run from the first unfinished step
+            Checkpoints checkpoints = Checkpoints.load(factory, projectName, arguments.hasOption("restart"));
+            MetadataDao metadata = new MetadataDao(mysqlConnection);
+
+            HighWaterMarks previous = HighWaterMarks.load(metadata, projectName);
+            boolean incremental = arguments.hasOption("incremental");
+            if (incremental && previous == null) {
+                log.warn(projectName + " was never preprocessed, running a full preprocessing...");
+                incremental = false;
+            } else if (incremental && !FixVersionDictionary.exists(mysqlConnection, projectName)) {
+                log.warn(projectName + " was preprocessed without the fix version dictionary, running a full preprocessing...");
+                incremental = false;
+            } else if (incremental && !checkpoints.isEmpty()) {
+                log.warn("The previous run of " + projectName + " did not finish, resuming it instead...");
+                incremental = false;
+            }
+
+            CommitLinker linker = null;
+            Callable<Void> snapshotRefill = null;
+            if (incremental) {
+                try (Timer.Context timer = timeStage(projectName, "incremental")) {
+                    linker = preprocessIncrementally(mysqlConnection, factory, projectName, projectKeys, threads,
+                            previous);
+                }
+            } else {
+                if (checkpoints.isFinished(STEP_RESTORE)) {
+                    log.info("Restore finished by the previous run.");
+                } else {
+                    // plus the connection that reads the fingerprints of the snapshots
+                    ConnectionFactory restoreFactory = factory.withBudget(
+                            factory.getProfile().getStageConnections(STEP_RESTORE, restoreThreads) + 1);
+                    try (Timer.Context timer = timeStage(projectName, STEP_RESTORE)) {
+                        snapshotRefill = restoreDatabase(backupsPath, projectName, mysqlConnection, restoreFactory,
+                                restoreThreads, snapshot);
+                    }
+                    checkpoints.finished(STEP_RESTORE);
+                }
+
+                if (checkpoints.isFinished(STEP_OPTIMIZATION)) {
+                    log.info("Optimization finished by the previous run.");
+                } else {
+                    log.info("Executing optimization...");
+                    ConnectionFactory optimizationFactory = factory.withBudget(
+                            factory.getProfile().getStageConnections(STEP_OPTIMIZATION, threads));
+                    try (Timer.Context timer = timeStage(projectName, STEP_OPTIMIZATION)) {
+                        executeOptimizationScript(mysqlConnection, optimizationFactory, projectName, threads,
+                                checkpoints);
+                    }
+                    checkpoints.finished(STEP_OPTIMIZATION);
+                }
+
+                HighWaterMarks marks = HighWaterMarks.current(mysqlConnection, projectName);
+
+                if (checkpoints.isFinished(STEP_LINKING)) {
+                    log.info("Linking finished by the previous run.");
+                } else {
+                    log.info("Linking issue to commit...");
+                    try (Timer.Context timer = timeStage(projectName, STEP_LINKING)) {
+                        linker = linkIssueToScmlog(mysqlConnection, projectName, projectKeys, threads, null, null);
+                    }
+                    checkpoints.finished(STEP_LINKING);
+                }
+                if (!checkpoints.isFinished(STEP_LINK_INDEXES)) {
+                    try (Timer.Context timer = timeStage(projectName, STEP_LINK_INDEXES)) {
+                        linkTableIndexes(projectName).create(mysqlConnection);
+                    }
+                    checkpoints.finished(STEP_LINK_INDEXES);
+                }
+
+                log.info("Executing denormalization...");
+                ConnectionFactory denormalizationFactory = factory.withBudget(
+                        factory.getProfile().getStageConnections(STEP_OPTIMIZATION, threads));
+                try (Timer.Context timer = timeStage(projectName, "denormalization")) {
+                    denormalize(mysqlConnection, denormalizationFactory, projectName, threads, checkpoints);
+                }
+
+                marks.save(metadata, projectName);
+                checkpoints.clear();
+            }
+            log.info("Successfuly pre-processed " + projectName + "!");
+            if (snapshotRefill != null) {
+                snapshotRefills.submit(snapshotRefill);
+            }
+            long seconds = (System.currentTimeMillis() - start) / 1000;
+            if (linker == null) {
+                // linked by the previous run
+                IssueDao issueDao = new IssueDao(mysqlConnection, projectName);
+                return ProjectResult.succeeded(projectName, seconds,
+                        new CommitDao(mysqlConnection, projectName).countCommits(20, 0),
+                        issueDao.countLinks(), issueDao.countLinkedIssues());
+            }
+            return ProjectResult.succeeded(projectName, seconds, linker);
+
+        } catch (SQLException | IOException | RuntimeException ex) {
+            log.error("Error to preprocess " + projectName + ".", ex);
+            return ProjectResult.failed(projectName, (System.currentTimeMillis() - start) / 1000, ex);
+        }
+    }
+
+    /**
+     * @param threads Number of independent statements of the scripts executed
+     * at the same time
+     * @param checkpoints Statements finished by a previous run are skipped
+     */
+    private static void executeOptimizationScript(Connection mysqlConnection, ConnectionFactory factory,
+            String projectName, int threads, Checkpoints checkpoints) throws IOException, SQLException {
+
+        createLinkTables(mysqlConnection, projectName);
+
+        final String preprocessingIssues = "preprocessing.sql";
+
+        ParallelScriptExecutor scriptExecutor = new ParallelScriptExecutor(factory, threads);
+
+        InputStream script = Main.class.getClassLoader().getResourceAsStream(preprocessingIssues);
+        scriptExecutor.execute(script, projectName, preprocessingIssues, checkpoints);
+
+        if (!checkpoints.isFinished(STEP_AGGREGATION)) {
+            log.info("Aggregating comments, watchers and changes of issues...");
+            try (Timer.Context timer = timeStage(projectName, STEP_AGGREGATION)) {
+                new IssueAggregator(mysqlConnection, projectName).aggregate();
+            }
+            checkpoints.finished(STEP_AGGREGATION);
+        }
+    }
+
+    /**
+     * Creates the {0} schema with the commits linked to issues and the issues
+     * to analyze, after the linking.
+     *
+     * @param checkpoints Statements finished by a previous run are skipped
+     */
+    private static void denormalize(Connection mysqlConnection, ConnectionFactory factory,
+            String projectName, int threads, Checkpoints checkpoints) throws IOException, SQLException {
+
+        ParallelScriptExecutor scriptExecutor = new ParallelScriptExecutor(factory, threads);
+
+        final String denormalization = "denormalization.sql";
+
+        InputStream denormalizationScript = Main.class.getClassLoader().getResourceAsStream(denormalization);
+        scriptExecutor.execute(denormalizationScript, projectName, denormalization, checkpoints);
+
+        if (!checkpoints.isFinished(STEP_COMMITS)) {
+            log.info("Denormalizing commits linked to issues...");
+            try (Timer.Context timer = timeStage(projectName, STEP_COMMITS)) {
+                new CommitsBuilder(mysqlConnection, projectName).build();
+            }
+            checkpoints.finished(STEP_COMMITS);
+        }
+        new DeferredIndexes()
+                .add(projectName + ".commits", "commit_id", "commit_id")
+                .add(projectName + ".commits", "committer_id", "committer_id")
+                .add(projectName + ".commits", "date", "date")
+                .add(projectName + ".commits", "repository_id", "repository_id")
+                .add(projectName + ".commits", "action_type", "action_type")
+                .add(projectName + ".commits", "branch_id", "branch_id")
+                .add(projectName + ".commits", "file_id", "file_id")
+                .add(projectName + ".commits", "file_path", "file_path")
+                .create(mysqlConnection);
+
+        final String issuesToAnalyze = "issues_to_analyze.sql";
+
+        InputStream issuesToAnalyzeScript = Main.class.getClassLoader().getResourceAsStream(issuesToAnalyze);
+        scriptExecutor.execute(issuesToAnalyzeScript, projectName, issuesToAnalyze, checkpoints);
+
+        if (!checkpoints.isFinished(STEP_ISSUES_TO_ANALYZE)) {
+            log.info("Selecting issues to analyze...");
+            try (Timer.Context timer = timeStage(projectName, STEP_ISSUES_TO_ANALYZE)) {
+                new IssuesToAnalyzeBuilder(mysqlConnection, projectName).build();
+            }
+            checkpoints.finished(STEP_ISSUES_TO_ANALYZE);
+        }
+        new DeferredIndexes()
+                .add(projectName + ".issues_to_analyze", "fixed_date", "fixed_date")
+                .add(projectName + ".issues_to_analyze", "issue_id", "issue_id")
+                .create(mysqlConnection);
+    }
+
+    /**
+     * Tables written by {@link #linkIssueToScmlog}, with the keys the writing
+     * needs (see {@link #linkTableIndexes(String)})
+     */
+    static void createLinkTables(Connection mysqlConnection, String projectName) throws SQLException {
 
         String issueDatabaseName = projectName + "_issues";
         mysqlConnection.prepareStatement(
@@ -80,44 +492,108 @@ public class Main {
                 + "  issue_id int(11) NOT NULL,"
                 + "  scmlog_id int(11) NOT NULL,"
                 + "  PRIMARY KEY (id),"
-                + "  UNIQUE KEY unq_issue_scmlog (issue_id,scmlog_id),"
-                + "  KEY issue_id (issue_id),"
-                + "  KEY scmlog_id (scmlog_id)"
+                + "  UNIQUE KEY unq_issue_scmlog (issue_id,scmlog_id)"
                 + ")").execute();
 
         mysqlConnection.prepareStatement(
                 "CREATE TABLE IF NOT EXISTS " + issueDatabaseName + ".issues_fix_version ("
                 + "  issue_id int(11) NOT NULL,"
-                + "  fix_version varchar(255) NOT NULL,"
-                + "  minor_fix_version varchar(255) NOT NULL,"
-                + "  major_fix_version varchar(255) NOT NULL,"
-                + "  UNIQUE KEY unq_issue_fix_version (issue_id,fix_version),"
-                + "  KEY issue_id (issue_id),"
-                + "  KEY fix_version (fix_version),"
-                + "  KEY minor_fix_version (minor_fix_version),"
-                + "  KEY major_fix_version (major_fix_version)"
+                + "  fix_version_id int(11) NOT NULL,"
+                + "  UNIQUE KEY unq_issue_fix_version (issue_id,fix_version_id)"
                 + ")").execute();
 
+        // also creates the view issues_fix_version_order
+        new FixVersionDictionary(mysqlConnection, projectName).createIfNotExists();
+
         mysqlConnection.prepareStatement(
-                "CREATE TABLE IF NOT EXISTS " + issueDatabaseName + ".issues_fix_version_order ("
-                + "  minor_fix_version varchar(255) NOT NULL,"
-                + "  major_fix_version varchar(255) NOT NULL,"
-                + "  version_order int(11) NOT NULL,"
-                + "  UNIQUE KEY unq_major_fix_version_order (major_fix_version,version_order),"
-                + "  KEY minor_fix_version (minor_fix_version),"
-                + "  KEY major_fix_version (major_fix_version),"
-                + "  KEY version_order (version_order)"
+                "CREATE TABLE IF NOT EXISTS " + issueDatabaseName + ".scmlog_issue_keys ("
+                + "  scmlog_id int(11) NOT NULL,"
+                + "  issue_key varchar(255) NOT NULL,"
+                + "  UNIQUE KEY unq_scmlog_issue_key (scmlog_id,issue_key)"
                 + ")").execute();
+    }
 
-        final String preprocessingIssues = "preprocessing.sql";
+    /**
+     * Secondary indexes of the tables of {@link #createLinkTables}, added
+     * after the linking
+     */
+    static DeferredIndexes linkTableIndexes(String projectName) {
+        String issueDatabaseName = projectName + "_issues";
+        return new DeferredIndexes()
+                .add(issueDatabaseName + ".issues_scmlog", "issue_id", "issue_id")
+                .add(issueDatabaseName + ".issues_scmlog", "scmlog_id", "scmlog_id")
+                .add(issueDatabaseName + ".issues_fix_version", "fix_version_id", "fix_version_id")
+                .add(issueDatabaseName + ".scmlog_issue_keys", "issue_key", "issue_key");
+    }
 
-        InputStream script = Main.class.getClassLoader().getResourceAsStream(preprocessingIssues);
-        executeSqlScript(mysqlConnection, script, issueDatabaseName);
+    /**
+     * Preprocesses only the rows appended by the miners since the previous
+     * run: num_files of new commits, the aggregates of new and changed
+     * issues, the links of new commits and of old commits to newly fixed
+     * issues, and the new linked commits of {0}.commits.
+     *
+     * @param previous Marks saved by the previous run
+     * @return Statistics of the linking of the new commits
+     */
+    private static CommitLinker preprocessIncrementally(Connection conn, ConnectionFactory factory, String project,
+            String[] projectKeys, int threads, HighWaterMarks previous) throws SQLException, IOException {
+
+        final HighWaterMarks current = HighWaterMarks.current(conn, project);
+        log.info("Preprocessing from " + previous + " to " + current + "...");
+
+        createLinkTables(conn, project);
+        // the incremental linking reads the links by their indexes
+        linkTableIndexes(project).create(conn);
+
+        try (PreparedStatement updateNumFiles = conn.prepareStatement(
+                "UPDATE " + project + "_vcs.scmlog s SET s.num_files ="
+                + " (SELECT COUNT(DISTINCT(ca.file_id))"
+                + "    FROM " + project + "_vcs.actions ca"
+                + "   WHERE ca.commit_id = s.id)"
+                + " WHERE s.id > ?")) {
+            updateNumFiles.setInt(1, previous.getScmlogId());
+            log.info("Counted files of " + updateNumFiles.executeUpdate() + " new commits.");
+        }
+
+        final IssueDao issueDao = new IssueDao(conn, project);
+        final Set<Integer> devCommentedIssues = issueDao.markDevelopers();
+        final Set<Integer> touchedIssues = issueDao.findTouchedIssueIds(previous);
+        // the links of discussed issues are unchanged, they are only aggregated again
+        final Set<Integer> aggregatedIssues = new HashSet<>(touchedIssues);
+        aggregatedIssues.addAll(issueDao.findDiscussedIssueIds(previous));
+        aggregatedIssues.addAll(devCommentedIssues);
+        log.info("Aggregating " + aggregatedIssues.size() + " new or changed issues...");
+        new IssueAggregator(conn, project).aggregate(aggregatedIssues);
+
+        final int lastLinkId;
+        try (Statement statement = conn.createStatement();
+                ResultSet maxLinkId = statement.executeQuery(
+                        "SELECT COALESCE(MAX(id), 0) FROM " + project + "_issues.issues_scmlog")) {
+            maxLinkId.next();
+            lastLinkId = maxLinkId.getInt(1);
+        }
+
+        log.info("Linking issue to commit...");
+        final CommitLinker linker = linkIssueToScmlog(conn, project, projectKeys, threads, previous, touchedIssues);
+
+        log.info("Appended " + new CommitsBuilder(conn, project).append(lastLinkId) + " rows to " + project + ".commits.");
+
+        current.save(new MetadataDao(conn), project);
+        return linker;
     }
 
-    private static void restoreDatabase(final String backupsPath,
-            final String projectName, final Connection mysqlConnection)
-            throws IOException, InterruptedException, SQLException {
+    /**
+     * Restores the issues and vcs dumps concurrently
+     *
+     * @param threads Number of tables restored at the same time
+     * @param snapshot Moves the pristine schema of unchanged dumps instead of
+     * restoring them again
+     * @return Refill of the pristine schemas (see {@link #restoreSnapshots}),
+     * null without snapshot
+     */
+    private static Callable<Void> restoreDatabase(final String backupsPath,
+            final String projectName, final Connection mysqlConnection, final ConnectionFactory factory,
+            final int threads, final boolean snapshot) throws IOException, SQLException {
 
         File backupsDir = new File(backupsPath);
         File backups = new File(backupsDir, projectName + "_issues.sql");
@@ -128,7 +604,7 @@ public class Main {
 
         File vcsBackup = new File(backupsDir, projectName + "_vcs.sql");
 
-        if (!backups.exists()) {
+        if (!vcsBackup.exists()) {
             throw new FileNotFoundException(backupsPath + "/" + projectName + "_vcs.sql not found.");
         }
 
@@ -150,72 +626,146 @@ public class Main {
             statement.executeUpdate("CREATE SCHEMA " + vcsDatabaseName);
             mysqlConnection.commit();
 
-            restore(backups, issueDatabaseName);
-            restore(vcsBackup, vcsDatabaseName);
-            Thread.sleep(10000);
+            Map<File, String> dumps = new LinkedHashMap<>();
+            dumps.put(backups, issueDatabaseName);
+            dumps.put(vcsBackup, vcsDatabaseName);
+
+            Callable<Void> snapshotRefill = null;
+            if (snapshot) {
+                snapshotRefill = restoreSnapshots(projectName, dumps, factory, threads);
+            } else {
+                DumpRestorer restorer = new DumpRestorer(factory, threads);
+                restorer.setProgressName(projectName + ".restore");
+                restorer.restore(dumps);
+            }
 
             log.info("Restored successfuly!");
+            return snapshotRefill;
 
         } catch (SQLException e) {
             log.info("Error to create schema.", e);
             mysqlConnection.rollback();
+            // the restore must not be checkpointed
+            throw e;
+        } finally {
+            mysqlConnection.setAutoCommit(true);
         }
-        mysqlConnection.setAutoCommit(true);
     }
 
-    private static void restore(File file, String databaseName) throws IOException, InterruptedException, SQLException {
-        String command = "mysql --user=root --password=root " + databaseName + " < " + file.getAbsolutePath();
-        Process process = Runtime.getRuntime().exec(new String[]{"cmd", "/c", command});
-        log.info(command);
+    /**
+     * Each restored dump is kept in a pristine schema (e.g.
+     * derby_issues_pristine). The tables of the pristine schema of an
+     * unchanged dump are moved to the working schema by RENAME TABLE, in
+     * seconds; a changed dump is restored straight into the working schema.
+     *
+     * Either way the pristine schema is then created again with empty tables
+     * like the restored ones, before the preprocessing alters them. The
+     * returned refill copies their rows from the working tables, after the
+     * run, in the background: the preprocessing adds columns and tables, but
+     * does not change the columns of the dump. The fingerprints are saved
+     * only when the refill succeeds, so a failed or resumed run restores the
+     * dumps again next time.
+     *
+     * @param dumps Dump file to existing, empty, working schema
+     * @return Refill of the pristine schemas
+     */
+    private static Callable<Void> restoreSnapshots(final String projectName, final Map<File, String> dumps,
+            final ConnectionFactory factory, final int threads) throws IOException, SQLException {
+
+        final Map<File, String> changedDumps = new LinkedHashMap<>();
+        final Map<String, String> unchangedSchemas = new LinkedHashMap<>();
+        final Map<String, String> pristineSchemas = new LinkedHashMap<>();
+        final Map<String, String> fingerprints = new LinkedHashMap<>();
+        final SchemaCloner cloner = new SchemaCloner(factory, threads);
+
+        try (Connection conn = factory.getConnection()) {
+            final MetadataDao metadata = new MetadataDao(conn);
+            metadata.createIfNotExists();
+
+            for (Map.Entry<File, String> dump : dumps.entrySet()) {
+                final String pristineSchema = dump.getValue() + "_pristine";
+                final String fingerprint = DumpFingerprint.of(dump.getKey());
+                pristineSchemas.put(dump.getValue(), pristineSchema);
+                fingerprints.put(pristineSchema, fingerprint);
+
+                if (fingerprint.equals(metadata.findFingerprint(pristineSchema))
+                        && cloner.exists(pristineSchema)) {
+                    log.info(dump.getKey().getName() + " is unchanged, moving " + pristineSchema + "...");
+                    unchangedSchemas.put(pristineSchema, dump.getValue());
+                } else {
+                    changedDumps.put(dump.getKey(), dump.getValue());
+                }
+                // the pristine schema is emptied until the refill
+                metadata.deleteFingerprint(pristineSchema);
+            }
+        }
 
-        process.waitFor();
-        process.destroy();
+        cloner.move(unchangedSchemas);
+        if (!changedDumps.isEmpty()) {
+            DumpRestorer restorer = new DumpRestorer(factory, threads);
+            restorer.setProgressName(projectName + ".restore");
+            restorer.restore(changedDumps);
+        }
+        cloner.copyDefinitions(pristineSchemas);
+
+        return new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                log.info("Refilling " + pristineSchemas.values() + "...");
+                try (Timer.Context timer = timeStage(projectName, "snapshot_refill")) {
+                    cloner.copyRows(pristineSchemas);
+                    try (Connection conn = factory.getConnection()) {
+                        final MetadataDao metadata = new MetadataDao(conn);
+                        for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+                            metadata.saveFingerprint(fingerprint.getKey(), fingerprint.getValue());
+                        }
+                    }
+                } catch (SQLException | RuntimeException ex) {
+                    log.error("Error to refill " + pristineSchemas.values()
+                            + ", the next run restores the dumps again.", ex);
+                }
+                return null;
+            }
+        };
     }
 
     /**
      * Links issue to commit by commit message pattern
      *
      * @param pattern Pattern contained in commit message
+     * @param projectKeys Jira project keys referenced by commits (e.g. DERBY)
+     * @param threads Number of threads matching the commit messages
+     * @param previous Marks of the previous run, to link only the new
+     * commits, or null to link all commits
+     * @param touchedIssues Issues created or changed since the previous run,
+     * linked to old commits that referenced them, or null
+     * @return Statistics of the linking
      */
-    private static void linkIssueToScmlog(Connection conn, String project) throws SQLException {
-
-        final Statement statement = conn.createStatement();
-        final ResultSet commitMessages = statement.executeQuery("SELECT id, message FROM " + project + "_vcs.scmlog WHERE num_files <= 20");
-        final Set<Commit> commits = new HashSet<>();
-
-        log.info("Querying commits...");
-        while (commitMessages.next()) {
-            commits.add(new Commit(commitMessages.getInt("id"), commitMessages.getString("message")));
-        }
-
-        int totalPatternOccurrences = 0;
-        int totalPatternRelatedWithAnIssue = 0;
+    static CommitLinker linkIssueToScmlog(Connection conn, String project, String[] projectKeys, int threads,
+            HighWaterMarks previous, Set<Integer> touchedIssues) throws SQLException {
 
         conn.setAutoCommit(false);
 
-        ResultSet queryIfIssuesIsFromJira = conn.prepareStatement("SELECT 1 "
-                + "FROM information_schema.tables "
-                + "WHERE table_schema = '" + project + "_issues' "
-                + "    AND table_name = 'issues_ext_bugzilla' "
-                + "LIMIT 1").executeQuery();
-        boolean isIssuesFromBugzilla = queryIfIssuesIsFromJira.next();
+        final IssueDao issueDao = new IssueDao(conn, project);
+        boolean isIssuesFromBugzilla = issueDao.isFromBugzilla();
 
-        final String selectIssueId;
-        final String issueReferencePattern;
+        final IssueKeyExtractor extractor;
+        final Map<String, Issue> issuesByKey;
+        final IssueIndex issueIndex;
+        log.info("Indexing issues...");
         if (isIssuesFromBugzilla) {
-            issueReferencePattern = "(?i)(bug|issue|fixed|fix|bugzilla)+(\\s)*(id|for)?(:|-)?\\s*#?\\s*(\\d+)(,\\s*\\d+)*";
-            selectIssueId = "SELECT id FROM " + project + "_issues.issues WHERE issue = ?";
+            final String bugzillaPattern = "(?i)(bug|issue|fixed|fix|bugzilla)+(\\s)*(id|for)?(:|-)?\\s*#?\\s*(\\d+)(,\\s*\\d+)*";
+            extractor = new IssueKeyExtractor(Pattern.compile(bugzillaPattern, Pattern.MULTILINE | Pattern.CASE_INSENSITIVE), true);
+            issuesByKey = issueDao.findBugzillaIssuesByKey();
+            issueIndex = null;
         } else {
-            issueReferencePattern = buildPatternByName(project);
-            selectIssueId
-                    = "SELECT DISTINCT i.id, iej.fix_version FROM " + project + "_issues.issues i"
-                    + "  JOIN " + project + "_issues.changes c ON c.issue_id = i.id"
-                    + "  JOIN " + project + "_issues.issues_ext_jira iej ON iej.issue_id = i.id"
-                    + " WHERE UPPER(iej.issue_key) = ?"
-                    + "   AND i.resolution = 'Fixed'"
-                    + "   AND c.field = 'Resolution'"
-                    + "   AND c.new_value = i.resolution";
+            final IssueKeyScanner scanner = new IssueKeyScanner(projectKeys);
+            extractor = new IssueKeyExtractor(scanner);
+            issuesByKey = issueDao.findJiraIssuesByKey(true);
+            issueIndex = new IssueIndex(scanner, issuesByKey);
         }
+        final String issueReferencePattern = extractor.getPattern();
 
         final int totalIssues;
         try (PreparedStatement countIssuesStatement = conn.prepareStatement("SELECT COUNT(1) FROM " + project + "_issues.issues");
@@ -231,80 +781,62 @@ public class Main {
             totalCommits = countCommitsResult.getInt(1);
         }
 
-        final Pattern regex = Pattern.compile(issueReferencePattern, Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
-        final Pattern regexNumber = Pattern.compile("\\d+");
-
-        final Map<Integer, List<String>> fixedIssuesIdFixVersion = new HashMap<>();
-        final Set<Integer> fixedIssuesSet = new HashSet<>();
-
-        int totalCommitsWithOccurrences = 0;
+        final IssueLinkWriter writer = new IssueLinkWriter(conn, project);
 
-        for (Commit commit : commits) {
-            // remove "git-svn-id: https://svn.apache.org/*" from message
-            // to avoid false positive matches of pattern
-            // (e.g. git-svn-id: https://svn.apache.org/camel-1.1.0)
-            final String commitMessage = replaceUrl(commit.getMessage());
-            final Matcher matcher = regex.matcher(commitMessage);
+        final int afterCommitId = previous == null ? 0 : previous.getScmlogId();
 
-            int matcherCount = 0;
-
-            // para cada ocorrência do padrão
-            while (matcher.find()) {
-
-                String issueKey = matcher.group().replace(" ", ""); // e.g.: ARIES-1234
-
-                if (isIssuesFromBugzilla) {
-                    Matcher matcherNumber = regexNumber.matcher(issueKey);
-                    if (matcherNumber.find()) {
-                        issueKey = matcherNumber.group(); // e.g.: 1234
-                    } else {
-                        log.info("Not found issue for match pattern " + issueKey);
+        log.info("Querying commits...");
+        final CommitDao commitDao = new CommitDao(conn, project);
+        final CommitLinker linker = new CommitLinker(threads > 1 ? null : extractor, issuesByKey, issueIndex, writer);
+        linker.setRecordIssueKeys(true);
+        linker.setMetrics(MetricRegistry.getDefault(), project + ".linking");
+        try (ProgressReporter progress = ProgressReporter.start(project + ".linking", "commits",
+                commitDao.countCommits(20, afterCommitId), new Gauge<Integer>() {
+
+                    @Override
+                    public Integer getValue() {
+                        return linker.getTotalCommits();
                     }
+                })) {
+            if (threads > 1) {
+                try (ParallelCommitMatcher matcher = new ParallelCommitMatcher(extractor, linker, threads)) {
+                    commitDao.forEachCommit(20, afterCommitId, matcher);
+                    matcher.finish();
                 }
+            } else {
+                commitDao.forEachCommit(20, afterCommitId, linker);
+            }
+        }
 
-                totalPatternOccurrences++;
-                matcherCount++;
-                PreparedStatement selectRelatedIssue = conn.prepareStatement(selectIssueId);
-                selectRelatedIssue.setString(1, issueKey.toUpperCase());
-
-                ResultSet executeQuery = selectRelatedIssue.executeQuery();
-
-                if (executeQuery.next()) {
-                    try (PreparedStatement queryToRelate = conn.prepareStatement(
-                            "INSERT INTO " + project
-                            + "_issues.issues_scmlog (issue_id, scmlog_id) VALUES (?, ?)")) {
-                        final int issueId = executeQuery.getInt(1);
-                        queryToRelate.setInt(1, issueId);
-                        queryToRelate.setInt(2, commit.getId());
-
-                        // adiciona as versões da issue corrigida
-                        fixedIssuesIdFixVersion.put(issueId, Arrays.asList(executeQuery.getString(2).split(",")));
-                        // adiciona a issue corrigida
-                        fixedIssuesSet.add(issueId);
-                        try {
-                            queryToRelate.execute();
-                            totalPatternRelatedWithAnIssue++;
-                        } catch (MySQLIntegrityConstraintViolationException e) {
-                            log.info("Issue " + issueId + " and commit " + commit.getId() + " already exists.");
-                        }
-                    }
+        final FixVersionDictionary dictionary = new FixVersionDictionary(conn, project);
+        if (previous != null) {
+            // old commits that referenced issues fixed since the previous run
+            final Set<String> touchedKeys = new HashSet<>();
+            for (Map.Entry<String, Issue> issue : issuesByKey.entrySet()) {
+                if (touchedIssues.contains(issue.getValue().getId())) {
+                    touchedKeys.add(issue.getKey());
                 }
             }
-            if (matcherCount > 0) {
-                totalCommitsWithOccurrences++;
-            } else {
-                log.info(commitMessage);
+            int relinked = 0;
+            for (Map.Entry<String, List<Integer>> commits
+                    : issueDao.findCommitsByIssueKeys(touchedKeys, afterCommitId).entrySet()) {
+                for (Integer scmlogId : commits.getValue()) {
+                    if (linker.relink(scmlogId, commits.getKey())) {
+                        relinked++;
+                    }
+                }
             }
-//            log.info(matcherCount + " ocorrências para o commit " + commit.getId());
+            log.info("Linked " + relinked + " old commits to " + touchedKeys.size() + " new or changed issues.");
+
+            // the order is rebuilt with the versions of the previous runs
+            dictionary.load();
         }
 
-        PreparedStatement issueFixVersionInsert = conn.prepareStatement(
-                "INSERT INTO " + project
-                + "_issues.issues_fix_version (issue_id, fix_version, minor_fix_version, major_fix_version) VALUES (?, ?, ?, ?)");
+        final Map<Integer, List<String>> fixedIssuesIdFixVersion = linker.getFixedIssuesIdFixVersion();
+        final Set<Integer> fixedIssuesSet = linker.getFixedIssuesSet();
 
         int countIssuesWithFixVersion = 0;
 
-        Set<String> distincMinorVersion = new HashSet<>();
         for (Map.Entry<Integer, List<String>> entrySet : fixedIssuesIdFixVersion.entrySet()) {
             Integer issueId = entrySet.getKey();
             List<String> versions = entrySet.getValue();
@@ -315,21 +847,8 @@ public class Main {
 //                log.info("Issue " + issueId + " is fixed in " + versions.size() + " versions.");
 
                 for (String version : versions) {
-                    try {
-                        issueFixVersionInsert.setInt(1, issueId);
-                        issueFixVersionInsert.setString(2, version);
-
-                        String minorVersion = getMinorVersion(version);
-                        issueFixVersionInsert.setString(3, minorVersion);
-
-//                        String majorVersion = getMajorVersion(version);
-                        issueFixVersionInsert.setString(4, minorVersion);
-
-                        distincMinorVersion.add(minorVersion);
-
-                        issueFixVersionInsert.execute();
-                    } catch (MySQLIntegrityConstraintViolationException e) {
-                        log.info("Issue " + issueId + " and version " + version + " already exists.");
+                    if (!writer.addFixVersion(issueId, dictionary.idOf(version))) {
+                        log.debug("Issue " + issueId + " and version " + version + " already exists.");
                     }
                 }
 
@@ -337,87 +856,32 @@ public class Main {
             }
         }
 
-        issueFixVersionInsert.close();
-
-        List<String> minorVersionsOrdered = new ArrayList<>(distincMinorVersion);
-        log.info(Arrays.toString(minorVersionsOrdered.toArray()));
-
-        Collections.sort(minorVersionsOrdered, new VersionComparator());
-
-        PreparedStatement issueFixVersionOrderInsert = conn.prepareStatement(
-                "INSERT INTO " + project
-                + "_issues.issues_fix_version_order (minor_fix_version, major_fix_version, version_order) VALUES (?, ?, ?)");
-        int order = 1;
-        for (String minorVersion : minorVersionsOrdered) {
-            try {
-                issueFixVersionOrderInsert.setString(1, minorVersion);
-//                issueFixVersionOrderInsert.setString(2, getMajorVersion(minorVersion));
-                issueFixVersionOrderInsert.setString(2, minorVersion);
-                issueFixVersionOrderInsert.setInt(3, order++);
-
-                issueFixVersionOrderInsert.execute();
-            } catch (MySQLIntegrityConstraintViolationException e) {
-                log.info("Issue " + minorVersion + " order " + order + " already exists.");
-            }
-        }
+        log.info(Arrays.toString(dictionary.getMinorVersionsOrdered().toArray()));
+        dictionary.save();
 
+        writer.close();
         conn.commit();
         conn.setAutoCommit(true);
 
         log.info("\n\n"
-                + commits.size() + " of " + totalCommits + " (total) commits has less than or equal to 20 files\n"
-                + totalCommitsWithOccurrences + " of " + commits.size() + " commits has at least one occurrence of pattern \"" + issueReferencePattern + "\"\n\n"
-                + totalPatternOccurrences + " occurrences of pattern \"" + issueReferencePattern + "\" in commits' message was found\n"
-                + totalPatternRelatedWithAnIssue + " of " + totalPatternOccurrences + " occurrences was related with an issue\n\n"
+                + linker.getTotalCommits() + " of " + totalCommits + " (total) commits has less than or equal to 20 files\n"
+                + linker.getTotalCommitsWithOccurrences() + " of " + linker.getTotalCommits() + " commits has at least one occurrence of pattern \"" + issueReferencePattern + "\"\n\n"
+                + linker.getTotalPatternOccurrences() + " occurrences of pattern \"" + issueReferencePattern + "\" in commits' message was found\n"
+                + linker.getTotalPatternRelatedWithAnIssue() + " of " + linker.getTotalPatternOccurrences() + " occurrences was related with an issue\n\n"
                 + fixedIssuesSet.size() + " of " + totalIssues + " (total) issues was fixed\n"
                 + countIssuesWithFixVersion + " of " + fixedIssuesSet.size() + " issues has 'fix version'\n\n"
         );
+        return linker;
     }
 
     // 1.1.1 > 1
     public static String getMajorVersion(String version) {
-        String majorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 1) {
-            majorVersion = versionsSplited[0];
-        } else {
-            majorVersion = version;
-        }
-        return majorVersion;
+        return Version.of(version).getMajorVersion();
     }
 
     // 1.1.1 > 1.1
     public static String getMinorVersion(String version) {
-        String minorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 2) {
-            minorVersion = versionsSplited[0] + "." + versionsSplited[1];
-        } else {
-            minorVersion = version;
-        }
-        return minorVersion;
-    }
-
-    private static void executeSqlScript(Connection conn, InputStream inputFile, String databaseName) throws SQLException {
-
-        // Create SQL scanner
-        Scanner scanner = new Scanner(inputFile).useDelimiter(SQL_DELIMITER);
-
-        // Loop through the SQL file statements
-        while (scanner.hasNext()) {
-
-            // Get statement
-            String rawStatement = scanner.next() + SQL_DELIMITER;
-            try (Statement currentStatement = conn.createStatement()) {
-                // Execute statement
-                final int executeUpdate = currentStatement.executeUpdate(rawStatement.replace("{0}", databaseName.split("_")[0]));
-                if (executeUpdate == 1) {
-                    log.debug("DML executed sucessfully.");
-                } else {
-                    log.debug("DDL executed sucessfully.");
-                }
-            }
-        }
+        return Version.of(version).getMinorVersion();
     }
 
     static String buildPatternByName(String projectName) {
@@ -426,6 +890,6 @@ public class Main {
     }
 
     static String replaceUrl(String text) {
-        return text.replaceAll("(\\s+git-svn-id:\\shttps://svn.apache.org/).*", "");
+        return GIT_SVN_ID.matcher(text).replaceAll("");
     }
 }
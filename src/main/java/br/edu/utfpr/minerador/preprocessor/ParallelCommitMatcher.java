@@ -0,0 +1,121 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.database.CommitHandler;
+import br.edu.utfpr.minerador.preprocessor.model.Commit;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Matches commit messages on a pool of worker threads. Commits are grouped in
+ * batches, each batch is matched by a worker with its own
+ * {@link IssueKeyExtractor} into one {@link IssueKeyHits}, and the results are
+ * given to the {@link CommitLinker} on the calling thread, in the order the
+ * commits were read. At most two batches per thread are in flight, so memory
+ * stays bounded.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ParallelCommitMatcher implements CommitHandler, AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final IssueKeyExtractor extractor;
+    private final CommitLinker linker;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final ExecutorService executor;
+
+    private final Deque<Future<IssueKeyHits>> batchesInFlight = new ArrayDeque<>();
+    private final Deque<List<Commit>> commitsInFlight = new ArrayDeque<>();
+    private List<Commit> batch;
+
+    /**
+     * @param extractor Copied for each batch, see {@link IssueKeyExtractor#copy()}
+     */
+    public ParallelCommitMatcher(IssueKeyExtractor extractor, CommitLinker linker, int threads) {
+        this(extractor, linker, threads, DEFAULT_BATCH_SIZE);
+    }
+
+    public ParallelCommitMatcher(IssueKeyExtractor extractor, CommitLinker linker,
+            int threads, int batchSize) {
+        this.extractor = extractor;
+        this.linker = linker;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = threads * 2;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void handle(Commit commit) throws SQLException {
+        batch.add(commit);
+        if (batch.size() >= batchSize) {
+            submit();
+        }
+    }
+
+    /**
+     * Matches the remaining commits and waits for all results to be linked.
+     */
+    public void finish() throws SQLException {
+        if (!batch.isEmpty()) {
+            submit();
+        }
+        while (!batchesInFlight.isEmpty()) {
+            linkOldestBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void submit() throws SQLException {
+        final List<Commit> commits = batch;
+        batch = new ArrayList<>(batchSize);
+
+        batchesInFlight.add(executor.submit(new Callable<IssueKeyHits>() {
+
+            @Override
+            public IssueKeyHits call() {
+                final IssueKeyExtractor batchExtractor = extractor.copy();
+                final IssueKeyHits hits = batchExtractor.newHits();
+                for (Commit commit : commits) {
+                    batchExtractor.extract(commit.getMessage(), hits);
+                }
+                return hits;
+            }
+        }));
+        commitsInFlight.add(commits);
+
+        while (batchesInFlight.size() > maxBatchesInFlight) {
+            linkOldestBatch();
+        }
+    }
+
+    private void linkOldestBatch() throws SQLException {
+        final List<Commit> commits = commitsInFlight.poll();
+        final IssueKeyHits hits;
+        try {
+            hits = batchesInFlight.poll().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while matching commits.", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Error to match commits.", ex.getCause());
+        }
+
+        for (int i = 0; i < commits.size(); i++) {
+            linker.link(commits.get(i), hits, i);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of the preprocessing of one project, for the summary of a batch.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ProjectResult {
+
+    private final String project;
+    private final long seconds;
+    private final Throwable error;
+    private final boolean linked;
+    private final int commits;
+    private final int links;
+    private final int fixedIssues;
+
+    private ProjectResult(String project, long seconds, Throwable error,
+            boolean linked, int commits, int links, int fixedIssues) {
+        this.project = project;
+        this.seconds = seconds;
+        this.error = error;
+        this.linked = linked;
+        this.commits = commits;
+        this.links = links;
+        this.fixedIssues = fixedIssues;
+    }
+
+    /**
+     * @param linker Statistics of the linking, may be null
+     */
+    public static ProjectResult succeeded(String project, long seconds, CommitLinker linker) {
+        if (linker == null) {
+            return new ProjectResult(project, seconds, null, false, 0, 0, 0);
+        }
+        return succeeded(project, seconds, linker.getTotalCommits(), linker.getTotalPatternRelatedWithAnIssue(),
+                linker.getFixedIssuesSet().size());
+    }
+
+    /**
+     * Statistics of a linking finished by a previous run, read from its tables.
+     */
+    public static ProjectResult succeeded(String project, long seconds, int commits, int links, int fixedIssues) {
+        return new ProjectResult(project, seconds, null, true, commits, links, fixedIssues);
+    }
+
+    public static ProjectResult failed(String project, long seconds, Throwable error) {
+        return new ProjectResult(project, seconds, error, false, 0, 0, 0);
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public boolean isSucceeded() {
+        return error == null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return Fields of the metrics report (see Main)
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("project", project);
+        fields.put("succeeded", isSucceeded());
+        fields.put("seconds", seconds);
+        if (linked) {
+            fields.put("commits", commits);
+            fields.put("links", links);
+            fields.put("fixed_issues", fixedIssues);
+        }
+        if (error != null) {
+            fields.put("error", error.toString());
+        }
+        return fields;
+    }
+
+    /**
+     * @return E.g. "derby     OK      1234 secs   52000 commits   8000 links   3000 fixed issues"
+     */
+    @Override
+    public String toString() {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-20s %-6s %8d secs", project, isSucceeded() ? "OK" : "FAILED", seconds));
+        if (linked) {
+            summary.append(String.format(" %10d commits %10d links %8d fixed issues", commits, links, fixedIssues));
+        }
+        if (error != null) {
+            summary.append("  ").append(error);
+        }
+        return summary.toString();
+    }
+}
@@ -1,20 +1,22 @@
 package br.edu.utfpr.minerador.preprocessor;
 
+import br.edu.utfpr.minerador.preprocessor.database.CommitDao;
 import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
-import br.edu.utfpr.minerador.preprocessor.model.Commit;
-import com.mysql.jdbc.exceptions.jdbc4.MySQLIntegrityConstraintViolationException;
+import br.edu.utfpr.minerador.preprocessor.database.IssueDao;
+import br.edu.utfpr.minerador.preprocessor.database.IssueLinkWriter;
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import br.edu.utfpr.minerador.preprocessor.model.Version;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,20 +34,21 @@ public class Versions {
 
     public static void main(String[] args) throws SQLException {
         long start = System.currentTimeMillis();
-        args = new String[]{"D:\\DB", "solr"};
         if (args.length < 2) {
-            LOG.warn("Enter the backupsPath and projectName.\n"
-                    + "E.g. preprocessor.jar /backups project");
+            LOG.warn("Enter the backupsPath and projectName (or a comma-separated list of projects).\n"
+                    + "E.g. preprocessor.jar /backups project\n"
+                    + "     preprocessor.jar /backups derby,jdo");
+            System.exit(1);
         }
 
         ConnectionFactory factory = new ConnectionFactory();
 
         try (Connection mysqlConnection = factory.getConnection()) {
 
-            String projectName = args[1];
-
-            LOG.info("Linking issue to commit...");
-            linkIssueToScmlog(mysqlConnection, projectName);
+            for (String projectName : args[1].split(",")) {
+                LOG.info("Linking issue to commit of " + projectName + "...");
+                linkIssueToScmlog(mysqlConnection, projectName);
+            }
 
             LOG.info("Successfuly create version table!");
 
@@ -67,19 +70,7 @@ public class Versions {
     private static void linkIssueToScmlog(Connection conn, String project)
             throws SQLException {
 
-        final long startTime = System.nanoTime();
-        final Statement statement = conn.createStatement();
-        final ResultSet commitMessages = statement.executeQuery("SELECT id, message FROM " + project + "_vcs.scmlog WHERE num_files <= 20");
-        final Set<Commit> commits = new HashSet<>();
-
-//        log.info("Querying commits...");
-        while (commitMessages.next()) {
-            commits.add(new Commit(commitMessages.getInt("id"), commitMessages.getString("message")));
-        }
-
-        int totalPatternOccurrences = 0;
-        int totalPatternRelatedWithAnIssue = 0;
-        int totalCommitsWithOccurrences = 0;
+        final Timer.Context timer = MetricRegistry.getDefault().timer(project + ".versions.linking").time();
 
 //        conn.prepareStatement("DROP TABLE " + project + "_issues.issues_scmlog_2").execute();
         conn.prepareStatement(
@@ -95,95 +86,33 @@ public class Versions {
 
         conn.setAutoCommit(false);
 
-        ResultSet queryIfIssuesIsFromJira = conn.prepareStatement("SELECT 1 "
-                + "FROM information_schema.tables "
-                + "WHERE table_schema = '" + project + "_issues' "
-                + "    AND table_name = 'issues_ext_bugzilla' "
-                + "LIMIT 1").executeQuery();
-        boolean isIssuesFromBugzilla = queryIfIssuesIsFromJira.next();
+        final IssueDao issueDao = new IssueDao(conn, project);
+        boolean isIssuesFromBugzilla = issueDao.isFromBugzilla();
 
-        final String selectIssueId;
         final String issueReferencePattern;
+        final Map<String, Issue> issuesByKey;
         if (isIssuesFromBugzilla) {
             issueReferencePattern = "(?i)(bug|issue|fixed|fix|bugzilla)+(\\s)*(id|for)?(:|-)?\\s*#?\\s*(\\d+)(,\\s*\\d+)*";
-            selectIssueId = "SELECT id FROM " + project + "_issues.issues WHERE issue = ?";
+            issuesByKey = issueDao.findBugzillaIssuesByKey();
         } else {
             issueReferencePattern = buildPatternByName(project);
-            selectIssueId
-                    = "SELECT DISTINCT i.id, iej.fix_version FROM " + project + "_issues.issues i"
-                    + "  JOIN " + project + "_issues.changes c ON c.issue_id = i.id"
-                    + "  JOIN " + project + "_issues.issues_ext_jira iej ON iej.issue_id = i.id"
-                    + " WHERE UPPER(iej.issue_key) = ?";
+            issuesByKey = issueDao.findJiraIssuesByKey(false);
         }
 
         final Pattern regex = Pattern.compile(issueReferencePattern, Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
-        final Pattern regexNumber = Pattern.compile("\\d+");
-
-        final Set<Integer> fixedIssuesSet = new HashSet<>();
-
-        for (Commit commit : commits) {
-            // remove "git-svn-id: https://svn.apache.org/*" from message
-            // to avoid false positive matches of pattern
-            // (e.g. git-svn-id: https://svn.apache.org/camel-1.1.0)
-            final String commitMessage = replaceUrl(commit.getMessage());
-            final Matcher matcher = regex.matcher(commitMessage);
-
-            int matcherCount = 0;
-
-            // para cada ocorrência do padrão
-            while (matcher.find()) {
-
-                String issueKey = matcher.group().replace(" ", ""); // e.g.: ARIES-1234
-
-                if (isIssuesFromBugzilla) {
-                    Matcher matcherNumber = regexNumber.matcher(issueKey);
-                    if (matcherNumber.find()) {
-                        issueKey = matcherNumber.group(); // e.g.: 1234
-                    } else {
-//                        log.info("Not found issue for match pattern " + issueKey);
-                    }
-                }
-
-                totalPatternOccurrences++;
-                matcherCount++;
-                PreparedStatement selectRelatedIssue = conn.prepareStatement(selectIssueId);
-                selectRelatedIssue.setString(1, issueKey.toUpperCase());
-
-                ResultSet executeQuery = selectRelatedIssue.executeQuery();
-
-                if (executeQuery.next()) {
-                    try (PreparedStatement queryToRelate = conn.prepareStatement(
-                            "INSERT INTO " + project
-                            + "_issues.issues_scmlog_2 (issue_id, scmlog_id) VALUES (?, ?)")) {
-                        final int issueId = executeQuery.getInt(1);
-                        queryToRelate.setInt(1, issueId);
-                        queryToRelate.setInt(2, commit.getId());
-
-                        // adiciona as versões da issue corrigida
-//                        fixedIssuesIdFixVersion.put(issueId, Arrays.asList(executeQuery.getString(2).split(",")));
-                        // adiciona a issue corrigida
-                        fixedIssuesSet.add(issueId);
-                        try {
-                            queryToRelate.execute();
-                            totalPatternRelatedWithAnIssue++;
-                        } catch (MySQLIntegrityConstraintViolationException e) {
-//                            log.info("Issue " + issueId + " and commit " + commit.getId() + " already exists.");
-                        }
-                    }
-                }
-            }
-            if (matcherCount > 0) {
-                totalCommitsWithOccurrences++;
-            } else {
-                LOG.info(commitMessage);
-            }
-        }
 
+        final IssueLinkWriter writer = new IssueLinkWriter(conn, project, "_2", IssueLinkWriter.DEFAULT_BATCH_SIZE);
+        final CommitLinker linker = new CommitLinker(new IssueKeyExtractor(regex, isIssuesFromBugzilla), issuesByKey, writer);
+        linker.setMetrics(MetricRegistry.getDefault(), project + ".versions");
+
+//        log.info("Querying commits...");
+        new CommitDao(conn, project).forEachCommit(20, linker);
+
+        writer.close();
         conn.commit();
         conn.setAutoCommit(true);
 
-        final long endTime = System.nanoTime();
-        LOG.info("Total time: " + (endTime - startTime));
+        LOG.info("Total time: " + TimeUnit.NANOSECONDS.toMillis(timer.stop()) + " ms.");
 
     }
 
@@ -210,26 +139,12 @@ public class Versions {
 
     // 1.1.1 > 1
     public static String getMajorVersion(String version) {
-        String majorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 1) {
-            majorVersion = versionsSplited[0];
-        } else {
-            majorVersion = version;
-        }
-        return majorVersion;
+        return Version.of(version).getMajorVersion();
     }
 
     // 1.1.1 > 1.1
     public static String getMinorVersion(String version) {
-        String minorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 2) {
-            minorVersion = versionsSplited[0] + "." + versionsSplited[1];
-        } else {
-            minorVersion = version;
-        }
-        return minorVersion;
+        return Version.of(version).getMinorVersion();
     }
 
     static String buildPatternByName(String projectName) {
@@ -1,20 +1,20 @@
 package br.edu.utfpr.minerador.preprocessor;
 
-import br.edu.utfpr.minerador.preprocessor.comparator.VersionComparator;
 import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
-import com.mysql.jdbc.exceptions.jdbc4.MySQLIntegrityConstraintViolationException;
+import br.edu.utfpr.minerador.preprocessor.database.FixVersionDictionary;
+import br.edu.utfpr.minerador.preprocessor.database.IssueLinkWriter;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import br.edu.utfpr.minerador.preprocessor.model.Version;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,20 +28,21 @@ public class Versions2 {
 
     public static void main(String[] args) throws SQLException {
         long start = System.currentTimeMillis();
-        args = new String[]{"D:\\DB", "solr"};
         if (args.length < 2) {
-            LOG.warn("Enter the backupsPath and projectName.\n"
-                    + "E.g. preprocessor.jar /backups project");
+            LOG.warn("Enter the backupsPath and projectName (or a comma-separated list of projects).\n"
+                    + "E.g. preprocessor.jar /backups project\n"
+                    + "     preprocessor.jar /backups derby,jdo");
+            System.exit(1);
         }
 
         ConnectionFactory factory = new ConnectionFactory();
 
         try (Connection mysqlConnection = factory.getConnection()) {
 
-            String projectName = args[1];
-
-            LOG.info("Linking issue to commit...");
-            linkIssueToScmlog(mysqlConnection, projectName);
+            for (String projectName : args[1].split(",")) {
+                LOG.info("Linking issue to commit of " + projectName + "...");
+                linkIssueToScmlog(mysqlConnection, projectName);
+            }
 
             LOG.info("Successfuly create version table!");
 
@@ -63,32 +64,27 @@ public class Versions2 {
     private static void linkIssueToScmlog(Connection conn, String project)
             throws SQLException {
 
-        final long startTime = System.nanoTime();
+        final Timer.Context timer = MetricRegistry.getDefault().timer(project + ".versions2.linking").time();
 
         conn.prepareStatement("DROP TABLE " + project + "_issues.issues_fix_version_2");
         conn.prepareStatement(
                 "CREATE TABLE IF NOT EXISTS " + project + "_issues.issues_fix_version_2 ("
                 + "  issue_id int(11) NOT NULL,"
-                + "  fix_version varchar(255) NOT NULL,"
-                + "  minor_fix_version varchar(255) NOT NULL,"
-                + "  major_fix_version varchar(255) NOT NULL,"
-                + "  UNIQUE KEY unq_issue_fix_version (issue_id,fix_version),"
-                + "  KEY issue_id (issue_id),"
-                + "  KEY fix_version (fix_version),"
-                + "  KEY minor_fix_version (minor_fix_version),"
-                + "  KEY major_fix_version (major_fix_version)"
+                + "  fix_version_id int(11) NOT NULL,"
+                + "  UNIQUE KEY unq_issue_fix_version (issue_id,fix_version_id),"
+                + "  KEY fix_version_id (fix_version_id)"
                 + ")").execute();
 
+        final FixVersionDictionary dictionary = new FixVersionDictionary(conn, project, "_2");
+        dictionary.createIfNotExists();
+        dictionary.load();
+
         conn.setAutoCommit(false);
 
         Map<Integer, List<String>> fixedIssuesIdFixVersion = retrieveIssues(project, conn);
 
-        Set<String> distincMinorVersion;
-        try (PreparedStatement issueFixVersionInsert = conn.prepareStatement(
-                "INSERT INTO " + project
-                + "_issues.issues_fix_version_2 (issue_id, fix_version, minor_fix_version, major_fix_version) VALUES (?, ?, ?, ?)")) {
+        try (IssueLinkWriter writer = new IssueLinkWriter(conn, project, "_2", IssueLinkWriter.DEFAULT_BATCH_SIZE)) {
 
-            distincMinorVersion = new HashSet<>();
             for (Map.Entry<Integer, List<String>> entrySet : fixedIssuesIdFixVersion.entrySet()) {
                 Integer issueId = entrySet.getKey();
                 List<String> versions = entrySet.getValue();
@@ -99,37 +95,18 @@ public class Versions2 {
 //                log.info("Issue " + issueId + " is fixed in " + versions.size() + " versions.");
 
                     for (String version : versions) {
-                        try {
-                            issueFixVersionInsert.setInt(1, issueId);
-                            issueFixVersionInsert.setString(2, version);
-
-                            String minorVersion = getMinorVersion(version);
-                            issueFixVersionInsert.setString(3, minorVersion);
-
-//                        String majorVersion = getMajorVersion(version);
-                            issueFixVersionInsert.setString(4, minorVersion);
-
-                            distincMinorVersion.add(minorVersion);
-
-                            issueFixVersionInsert.execute();
-                        } catch (MySQLIntegrityConstraintViolationException e) {
-//                        log.info("Issue " + issueId + " and version " + version + " already exists.");
-                        }
+                        writer.addFixVersion(issueId, dictionary.idOf(version));
                     }
                 }
             }
         }
 
-        List<String> minorVersionsOrdered = new ArrayList<>(distincMinorVersion);
-//        log.info(Arrays.toString(minorVersionsOrdered.toArray()));
-
-        Collections.sort(minorVersionsOrdered, new VersionComparator());
+        dictionary.save();
 
         conn.commit();
         conn.setAutoCommit(true);
 
-        final long endTime = System.nanoTime();
-        LOG.info("Total time: " + (endTime - startTime));
+        LOG.info("Total time: " + TimeUnit.NANOSECONDS.toMillis(timer.stop()) + " ms.");
     }
 
     private static Map<Integer, List<String>> retrieveIssues(String project, Connection conn)
@@ -155,26 +132,12 @@ public class Versions2 {
 
     // 1.1.1 > 1
     public static String getMajorVersion(String version) {
-        String majorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 1) {
-            majorVersion = versionsSplited[0];
-        } else {
-            majorVersion = version;
-        }
-        return majorVersion;
+        return Version.of(version).getMajorVersion();
     }
 
     // 1.1.1 > 1.1
     public static String getMinorVersion(String version) {
-        String minorVersion;
-        String[] versionsSplited = version.split("[.]");
-        if (versionsSplited.length > 2) {
-            minorVersion = versionsSplited[0] + "." + versionsSplited[1];
-        } else {
-            minorVersion = version;
-        }
-        return minorVersion;
+        return Version.of(version).getMinorVersion();
     }
 
 }
@@ -0,0 +1,54 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Connection of a {@link ConnectionFactory#withBudget(int)} factory: closing
+ * it returns the connection to the pool and its permit to the budget, once.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+class BudgetedConnection implements InvocationHandler {
+
+    private final Connection connection;
+    private final Semaphore budget;
+    private boolean closed;
+
+    private BudgetedConnection(Connection connection, Semaphore budget) {
+        this.connection = connection;
+        this.budget = budget;
+    }
+
+    static Connection wrap(Connection connection, Semaphore budget) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new BudgetedConnection(connection, budget));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+                closed = true;
+            }
+            try {
+                connection.close();
+            } finally {
+                budget.release();
+            }
+            return null;
+        }
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
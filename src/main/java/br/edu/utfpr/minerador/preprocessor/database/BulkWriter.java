@@ -0,0 +1,131 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import br.edu.utfpr.minerador.preprocessor.metrics.Counter;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes rows into a table in bulk: through LOAD DATA LOCAL INFILE when the
+ * driver and the server allow it (see {@link LoadDataWriter}), otherwise
+ * through batched INSERTs (see {@link InsertWriter}).
+ *
+ * Rows are sent as they accumulate and the pending ones by {@link #flush()}
+ * or {@link #close()}, which do not commit the transaction.
+ *
+ * The rows and the time of each statement sent are recorded in the default
+ * {@link MetricRegistry} as "bulk.&lt;table&gt;.rows" and
+ * "bulk.&lt;table&gt;.batch".
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public abstract class BulkWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkWriter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    protected final Connection conn;
+    protected final String table;
+    protected final String[] columns;
+    protected final boolean ignoreDuplicates;
+    /**
+     * Time of each statement sent, see {@link #flush()}
+     */
+    protected final Timer batchTimer;
+
+    private final Counter rows;
+    private int rowCount;
+
+    protected BulkWriter(Connection conn, String table, String[] columns, boolean ignoreDuplicates) {
+        this.conn = conn;
+        this.table = table;
+        this.columns = columns;
+        this.ignoreDuplicates = ignoreDuplicates;
+        final MetricRegistry metrics = MetricRegistry.getDefault();
+        this.batchTimer = metrics.timer("bulk." + table + ".batch");
+        this.rows = metrics.counter("bulk." + table + ".rows");
+    }
+
+    /**
+     * @param table Qualified name of the table (e.g. project_issues.issues_scmlog)
+     * @param ignoreDuplicates Skips the rows with a duplicated key, as INSERT
+     * IGNORE does
+     */
+    public static BulkWriter open(Connection conn, String table, boolean ignoreDuplicates, String... columns)
+            throws SQLException {
+        return open(conn, table, columns, ignoreDuplicates, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize Rows of each INSERT batch, if LOAD DATA is not allowed
+     */
+    public static BulkWriter open(Connection conn, String table, String[] columns, boolean ignoreDuplicates,
+            int batchSize) throws SQLException {
+        if (isLoadDataAllowed(conn)) {
+            return new LoadDataWriter(conn, table, columns, ignoreDuplicates, LoadDataWriter.DEFAULT_CHUNK_SIZE);
+        }
+        return new InsertWriter(conn, table, columns, ignoreDuplicates, batchSize);
+    }
+
+    /**
+     * @return True if the driver streams local files and the server accepts
+     * them (local_infile)
+     */
+    static boolean isLoadDataAllowed(Connection conn) throws SQLException {
+        if (!conn.isWrapperFor(com.mysql.jdbc.Connection.class)
+                || !conn.unwrap(com.mysql.jdbc.Connection.class).getAllowLoadLocalInfile()) {
+            return false;
+        }
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery("SELECT @@local_infile")) {
+            if (result.next() && result.getInt(1) == 1) {
+                return true;
+            }
+        }
+        log.debug("The server does not allow LOAD DATA LOCAL INFILE, using INSERT.");
+        return false;
+    }
+
+    /**
+     * @param values Values of the columns, in their order
+     */
+    public void addRow(Object... values) throws SQLException {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values for " + table
+                    + ", but got " + values.length + ".");
+        }
+        write(values);
+        rowCount++;
+        rows.inc();
+    }
+
+    protected abstract void write(Object[] values) throws SQLException;
+
+    /**
+     * Sends the pending rows.
+     */
+    public abstract void flush() throws SQLException;
+
+    /**
+     * @return Number of rows added, including the ignored duplicates
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    protected String getColumnList() {
+        return "(" + StringUtils.join(columns, ", ") + ")";
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+    }
+}
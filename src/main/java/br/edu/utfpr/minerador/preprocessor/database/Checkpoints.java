@@ -0,0 +1,70 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Steps of the pipeline of a project finished by this or a previous run (e.g.
+ * "restore", "preprocessing.sql#12"), so a failed run resumes from the first
+ * unfinished step. The progress is saved in {@link MetadataDao} as soon as
+ * each step finishes and is safe to use from many threads.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Checkpoints {
+
+    private final ConnectionFactory factory;
+    private final String project;
+    private final Set<String> finishedSteps = Collections.synchronizedSet(new HashSet<String>());
+
+    private Checkpoints(ConnectionFactory factory, String project) {
+        this.factory = factory;
+        this.project = project;
+    }
+
+    /**
+     * @param restart Forgets the progress of previous runs
+     */
+    public static Checkpoints load(ConnectionFactory factory, String project, boolean restart) throws SQLException {
+        final Checkpoints checkpoints = new Checkpoints(factory, project);
+        try (Connection conn = factory.getConnection()) {
+            final MetadataDao metadata = new MetadataDao(conn);
+            metadata.createIfNotExists();
+            if (restart) {
+                metadata.deleteProgress(project);
+            } else {
+                checkpoints.finishedSteps.addAll(metadata.findFinishedSteps(project));
+            }
+        }
+        return checkpoints;
+    }
+
+    public boolean isFinished(String step) {
+        return finishedSteps.contains(step);
+    }
+
+    public boolean isEmpty() {
+        return finishedSteps.isEmpty();
+    }
+
+    public void finished(String step) throws SQLException {
+        try (Connection conn = factory.getConnection()) {
+            new MetadataDao(conn).saveFinishedStep(project, step);
+        }
+        finishedSteps.add(step);
+    }
+
+    /**
+     * Forgets the progress when the whole pipeline has finished, so the next
+     * run starts from the beginning.
+     */
+    public void clear() throws SQLException {
+        try (Connection conn = factory.getConnection()) {
+            new MetadataDao(conn).deleteProgress(project);
+        }
+        finishedSteps.clear();
+    }
+}
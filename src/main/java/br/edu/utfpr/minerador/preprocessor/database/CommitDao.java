@@ -1,9 +1,84 @@
 package br.edu.utfpr.minerador.preprocessor.database;
 
+import br.edu.utfpr.minerador.preprocessor.model.Commit;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 /**
+ * Reads the commits of a project with a forward-only cursor, handing each one
+ * to a {@link CommitHandler} instead of keeping the whole scmlog in memory.
+ *
+ * The connection should have "useCursorFetch" enabled, so MySQL sends
+ * {@link #DEFAULT_FETCH_SIZE} rows at a time from a server-side cursor and the
+ * same connection can still run the handler's statements.
  *
  * @author Rodrigo T. Kuroda
  */
 public class CommitDao {
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final Connection conn;
+    private final String project;
+    private final int fetchSize;
+
+    public CommitDao(Connection conn, String project) {
+        this(conn, project, DEFAULT_FETCH_SIZE);
+    }
+
+    public CommitDao(Connection conn, String project, int fetchSize) {
+        this.conn = conn;
+        this.project = project;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return Number of commits {@link #forEachCommit(int, int, CommitHandler)}
+     * handles
+     */
+    public int countCommits(int maxFiles, int afterId) throws SQLException {
+        try (PreparedStatement countCommits = conn.prepareStatement(
+                "SELECT COUNT(1) FROM " + project + "_vcs.scmlog WHERE num_files <= ? AND id > ?")) {
+            countCommits.setInt(1, maxFiles);
+            countCommits.setInt(2, afterId);
+
+            try (ResultSet count = countCommits.executeQuery()) {
+                count.next();
+                return count.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * @param maxFiles Maximum number of files changed by the commit
+     * @return Number of commits handled
+     */
+    public int forEachCommit(int maxFiles, CommitHandler handler) throws SQLException {
+        return forEachCommit(maxFiles, 0, handler);
+    }
+
+    /**
+     * @param afterId Only commits with a greater id (e.g. mined after the
+     * previous run)
+     */
+    public int forEachCommit(int maxFiles, int afterId, CommitHandler handler) throws SQLException {
+        int count = 0;
+        try (PreparedStatement selectCommits = conn.prepareStatement(
+                "SELECT id, message FROM " + project + "_vcs.scmlog WHERE num_files <= ? AND id > ?",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            selectCommits.setFetchSize(fetchSize);
+            selectCommits.setInt(1, maxFiles);
+            selectCommits.setInt(2, afterId);
+
+            try (ResultSet commitMessages = selectCommits.executeQuery()) {
+                while (commitMessages.next()) {
+                    handler.handle(new Commit(commitMessages.getInt(1), commitMessages.getString(2)));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
 }
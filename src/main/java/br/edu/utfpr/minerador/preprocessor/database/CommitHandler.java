@@ -0,0 +1,14 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import br.edu.utfpr.minerador.preprocessor.model.Commit;
+import java.sql.SQLException;
+
+/**
+ * Receives each commit read by {@link CommitDao}, as soon as it arrives.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public interface CommitHandler {
+
+    void handle(Commit commit) throws SQLException;
+}
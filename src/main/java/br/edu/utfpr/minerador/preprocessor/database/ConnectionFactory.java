@@ -2,49 +2,164 @@ package br.edu.utfpr.minerador.preprocessor.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
+ * Pool of connections configured by a {@link ConnectionProfile}. The pool
+ * opens connections only when they are asked for, up to the connections the
+ * stages of the run need.
  *
  * @author Rodrigo T. Kuroda
  */
 public class ConnectionFactory {
 
+    /**
+     * Maximum connections when the caller does not tell how many it needs
+     */
+    public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+
+    /**
+     * Null for a pool of a JDBC URL (see {@link #ConnectionFactory(HikariConfig)})
+     */
+    private final ConnectionProfile profile;
     private final HikariConfig config;
     private final HikariDataSource datasource;
+    /**
+     * Factory whose connections this one budgets, null for the owner of the
+     * pool
+     */
+    private final ConnectionFactory parent;
+    /**
+     * Connections this factory may hold at the same time, null if unbounded
+     * (see {@link #withBudget(int)})
+     */
+    private final Semaphore budget;
+    private final int maxConnections;
 
     public ConnectionFactory() {
-        config = new HikariConfig();
-        config.setMaximumPoolSize(100);
-        config.setDataSourceClassName("com.mysql.jdbc.jdbc2.optional.MysqlDataSource");
-        config.addDataSourceProperty("serverName", "localhost");
-        config.addDataSourceProperty("port", "3306");
-        config.addDataSourceProperty("user", "root");
-        config.addDataSourceProperty("password", "root");
-        config.setConnectionTestQuery("SELECT 1");
-
-        datasource = new HikariDataSource(config);
+        this(ConnectionProfile.load(), null, DEFAULT_MAXIMUM_POOL_SIZE);
     }
 
     public ConnectionFactory(final String databaseName) {
-        config = new HikariConfig();
-        config.setMaximumPoolSize(100);
-        config.setDataSourceClassName("com.mysql.jdbc.jdbc2.optional.MysqlDataSource");
-        config.addDataSourceProperty("serverName", "localhost");
-        config.addDataSourceProperty("port", "3306");
-        if (databaseName != null) {
-            config.addDataSourceProperty("databaseName", databaseName);
-        }
-        config.addDataSourceProperty("user", "root");
-        config.addDataSourceProperty("password", "root");
-        config.setConnectionTestQuery("SELECT 1");
+        this(ConnectionProfile.load(), databaseName, DEFAULT_MAXIMUM_POOL_SIZE);
+    }
+
+    /**
+     * @param databaseName Default schema of the connections, may be null
+     * @param neededConnections Connections used at the same time, the size of
+     * the pool unless the profile sets it
+     */
+    public ConnectionFactory(ConnectionProfile profile, String databaseName, int neededConnections) {
+        this.profile = profile;
+        config = profile.toHikariConfig(databaseName, profile.getMaximumPoolSize(neededConnections));
+        datasource = new HikariDataSource(config);
+        parent = null;
+        budget = null;
+        maxConnections = config.getMaximumPoolSize();
+    }
 
+    /**
+     * Pool of a database no profile describes (e.g. the H2 database of the
+     * end-to-end benchmark), configured by its JDBC URL.
+     */
+    public ConnectionFactory(HikariConfig config) {
+        profile = null;
+        this.config = config;
         datasource = new HikariDataSource(config);
+        parent = null;
+        budget = null;
+        maxConnections = config.getMaximumPoolSize();
+    }
+
+    private ConnectionFactory(ConnectionFactory parent, int maxConnections) {
+        profile = parent.profile;
+        config = parent.config;
+        datasource = parent.datasource;
+        this.parent = parent;
+        budget = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Shares the pool of this factory, but holds at most {@code maxConnections}
+     * connections at the same time, so concurrent projects and stages get a
+     * fair share of the pool. {@link #getConnection()} waits for a connection
+     * of the budget to be closed. Budgets nest: a stage of a project holds
+     * permits of both. Closing the returned factory keeps the pool open.
+     */
+    public ConnectionFactory withBudget(int maxConnections) {
+        return new ConnectionFactory(this, maxConnections);
     }
 
     public Connection getConnection() throws SQLException {
-        return datasource.getConnection();
+        if (budget == null) {
+            return datasource.getConnection();
+        }
+        acquire();
+        try {
+            return BudgetedConnection.wrap(parent.getConnection(), budget);
+        } catch (SQLException | RuntimeException ex) {
+            budget.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a connection outside the pool, for sessions whose state must not
+     * reach the other stages (e.g. the SET statements of a dump): closing it
+     * closes the physical connection. It still holds a permit of the budget.
+     */
+    public Connection getDedicatedConnection() throws SQLException {
+        if (budget == null && profile == null) {
+            return DriverManager.getConnection(config.getJdbcUrl(), config.getUsername(), config.getPassword());
+        } else if (budget == null) {
+            return profile.openConnection(config.getDataSourceProperties().getProperty("databaseName"));
+        }
+        acquire();
+        try {
+            return BudgetedConnection.wrap(parent.getDedicatedConnection(), budget);
+        } catch (SQLException | RuntimeException ex) {
+            budget.release();
+            throw ex;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            budget.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", ex);
+        }
+    }
+
+    /**
+     * @return Connections of this factory not closed yet: of its budget, or of
+     * the whole pool for the owner of the pool (as published by the pool over
+     * JMX, -1 if it is not)
+     */
+    public int getConnectionsInUse() {
+        if (budget != null) {
+            return maxConnections - budget.availablePermits();
+        }
+        try {
+            final Object active = ManagementFactory.getPlatformMBeanServer().getAttribute(
+                    new ObjectName("com.zaxxer.hikari:type=Pool (" + config.getPoolName() + ")"),
+                    "ActiveConnections");
+            return ((Number) active).intValue();
+        } catch (JMException ex) {
+            return -1;
+        }
+    }
+
+    public ConnectionProfile getProfile() {
+        return profile;
     }
 
     public HikariConfig getConfig() {
@@ -56,7 +171,7 @@ public class ConnectionFactory {
     }
 
     public void close() {
-        if (datasource != null) {
+        if (datasource != null && parent == null) {
             datasource.close();
         }
     }
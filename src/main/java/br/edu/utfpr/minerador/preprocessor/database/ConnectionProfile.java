@@ -0,0 +1,259 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Settings of the connections to MySQL: server, credentials, pool and driver
+ * properties. They are read from, in order of precedence:
+ *
+ * <ol>
+ * <li>environment variables, e.g. PREPROCESSOR_DB_HOST for db.host;</li>
+ * <li>the file given by the system property or environment variable
+ * preprocessor.config / PREPROCESSOR_CONFIG, or ./preprocessor.properties if
+ * it exists;</li>
+ * <li>preprocessor.properties of the classpath, with the defaults.</li>
+ * </ol>
+ *
+ * A named profile (e.g. "server") overrides any key prefixed by its name
+ * (e.g. server.db.host), so one file keeps the settings of several servers.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ConnectionProfile {
+
+    public static final String DEFAULT_RESOURCE = "preprocessor.properties";
+
+    private static final String DRIVER_PREFIX = "driver.";
+    private static final String STAGE_PREFIX = "stage.";
+
+    private final String name;
+    private final Properties properties;
+    private final Map<String, String> environment;
+
+    ConnectionProfile(String name, Properties properties, Map<String, String> environment) {
+        this.name = name;
+        this.properties = properties;
+        this.environment = environment;
+    }
+
+    /**
+     * @return The default profile
+     */
+    public static ConnectionProfile load() {
+        return load(null);
+    }
+
+    /**
+     * @param name Profile whose prefixed keys override the others, may be null
+     */
+    public static ConnectionProfile load(String name) {
+        final Properties properties = new Properties();
+        try {
+            try (InputStream defaults = ConnectionProfile.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (defaults != null) {
+                    properties.load(defaults);
+                }
+            }
+
+            String path = System.getProperty("preprocessor.config", System.getenv("PREPROCESSOR_CONFIG"));
+            final File file = new File(path == null ? DEFAULT_RESOURCE : path);
+            if (path != null && !file.exists()) {
+                throw new IllegalArgumentException("Configuration file " + path + " not found.");
+            }
+            if (file.exists()) {
+                try (InputStream custom = new FileInputStream(file)) {
+                    properties.load(custom);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Error to read the connection settings.", ex);
+        }
+        return new ConnectionProfile(name, properties, System.getenv());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return get("db.host", "localhost");
+    }
+
+    public int getPort() {
+        return getInt("db.port", 3306);
+    }
+
+    public String getUser() {
+        return get("db.user", "root");
+    }
+
+    public String getPassword() {
+        return get("db.password", "root");
+    }
+
+    /**
+     * @return Maximum connections of the pool, 0 to size it by the workload
+     * (see {@link #getMaximumPoolSize(int)})
+     */
+    public int getMaximumPoolSize() {
+        return getInt("pool.maximumPoolSize", 0);
+    }
+
+    /**
+     * @param needed Connections the stages running at the same time need
+     */
+    public int getMaximumPoolSize(int needed) {
+        final int configured = getMaximumPoolSize();
+        return configured > 0 ? configured : Math.max(1, needed);
+    }
+
+    /**
+     * @return Idle connections kept by the pool; 0, the default, opens
+     * connections only when a stage asks for them
+     */
+    public int getMinimumIdle() {
+        return getInt("pool.minimumIdle", 0);
+    }
+
+    public long getIdleTimeout() {
+        return getInt("pool.idleTimeout", 60000);
+    }
+
+    public long getConnectionTimeout() {
+        return getInt("pool.connectionTimeout", 30000);
+    }
+
+    /**
+     * @param stage E.g. restore
+     * @param defaultConnections Connections the stage uses, usually its threads
+     * @return Connections of the stage, overridden by stage.restore.connections
+     */
+    public int getStageConnections(String stage, int defaultConnections) {
+        return Math.max(1, getInt(STAGE_PREFIX + stage + ".connections", defaultConnections));
+    }
+
+    /**
+     * @return Properties of the MySQL driver (keys "driver.*", e.g.
+     * driver.cachePrepStmts), sorted by name
+     */
+    public Map<String, String> getDriverProperties() {
+        final Map<String, String> driverProperties = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(DRIVER_PREFIX)) {
+                driverProperties.put(key.substring(DRIVER_PREFIX.length()), get(key, null));
+            } else if (name != null && key.startsWith(name + "." + DRIVER_PREFIX)) {
+                final String driverKey = key.substring(name.length() + 1);
+                driverProperties.put(driverKey.substring(DRIVER_PREFIX.length()), get(driverKey, null));
+            }
+        }
+        return driverProperties;
+    }
+
+    /**
+     * @param databaseName Default schema of the connection, may be null
+     * @return URL of a connection outside the pool (see
+     * {@link #openConnection(String)})
+     */
+    public String getJdbcUrl(String databaseName) {
+        return "jdbc:mysql://" + getHost() + ":" + getPort() + "/" + (databaseName == null ? "" : databaseName);
+    }
+
+    /**
+     * @return Properties of a connection outside the pool: the credentials and
+     * the driver properties, except the caches of the session state, which
+     * statements such as SET autocommit would make stale
+     */
+    Properties getConnectionProperties() {
+        final Properties connectionProperties = new Properties();
+        connectionProperties.putAll(getDriverProperties());
+        connectionProperties.remove("useLocalSessionState");
+        connectionProperties.remove("elideSetAutoCommits");
+        connectionProperties.setProperty("user", getUser());
+        connectionProperties.setProperty("password", getPassword());
+        return connectionProperties;
+    }
+
+    /**
+     * Opens a connection outside the pool, closed for good by its caller.
+     *
+     * @param databaseName Default schema of the connection, may be null
+     */
+    public Connection openConnection(String databaseName) throws SQLException {
+        return DriverManager.getConnection(getJdbcUrl(databaseName), getConnectionProperties());
+    }
+
+    /**
+     * @param databaseName Default schema of the connections, may be null
+     * @param maximumPoolSize Maximum connections of the pool
+     */
+    public HikariConfig toHikariConfig(String databaseName, int maximumPoolSize) {
+        final HikariConfig config = new HikariConfig();
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(Math.min(getMinimumIdle(), maximumPoolSize));
+        config.setIdleTimeout(getIdleTimeout());
+        config.setConnectionTimeout(getConnectionTimeout());
+        config.setDataSourceClassName("com.mysql.jdbc.jdbc2.optional.MysqlDataSource");
+        config.addDataSourceProperty("serverName", getHost());
+        config.addDataSourceProperty("port", String.valueOf(getPort()));
+        if (databaseName != null) {
+            config.addDataSourceProperty("databaseName", databaseName);
+        }
+        config.addDataSourceProperty("user", getUser());
+        config.addDataSourceProperty("password", getPassword());
+        for (Map.Entry<String, String> property : getDriverProperties().entrySet()) {
+            config.addDataSourceProperty(property.getKey(), property.getValue());
+        }
+        config.setConnectionTestQuery("SELECT 1");
+        // publishes the active connections (see ConnectionFactory#getConnectionsInUse)
+        config.setRegisterMbeans(true);
+        return config;
+    }
+
+    /**
+     * @return Value of the key in the environment, the profile or the
+     * properties, in this order
+     */
+    String get(String key, String defaultValue) {
+        final String variable = toVariable(key);
+        if (name != null && environment.containsKey(toVariable(name + "." + key))) {
+            return environment.get(toVariable(name + "." + key));
+        }
+        if (environment.containsKey(variable)) {
+            return environment.get(variable);
+        }
+        if (name != null && properties.containsKey(name + "." + key)) {
+            return properties.getProperty(name + "." + key).trim();
+        }
+        final String value = properties.getProperty(key);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    private int getInt(String key, int defaultValue) {
+        final String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting " + key + " must be a number: " + value, e);
+        }
+    }
+
+    /**
+     * @return E.g. PREPROCESSOR_DB_HOST for db.host
+     */
+    static String toVariable(String key) {
+        return "PREPROCESSOR_" + key.toUpperCase().replaceAll("[^A-Z0-9]", "_");
+    }
+}
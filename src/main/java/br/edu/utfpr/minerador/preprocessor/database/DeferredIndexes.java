@@ -0,0 +1,180 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Secondary indexes of the tables the preprocessor fills, added after the
+ * rows are loaded. The tables are created only with the primary and unique
+ * keys the loading needs, so each row does not update the other indexes, and
+ * the indexes of a table are built by a single ALTER TABLE, which reads the
+ * table once.
+ *
+ * Indexes that already exist (e.g. of a previous run) are skipped. The
+ * existing indexes are read and the missing ones added by a {@link Dialect},
+ * {@link #MYSQL} unless another is set (e.g. by the end-to-end benchmark).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DeferredIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredIndexes.class);
+
+    /**
+     * Reads information_schema.statistics and adds the indexes of a table by
+     * one ALTER TABLE.
+     */
+    public static final Dialect MYSQL = new Dialect() {
+
+        @Override
+        public Set<String> findIndexNames(Connection conn, String table) throws SQLException {
+            final String[] name = table.split("[.]", 2);
+            final Set<String> names = new HashSet<>();
+            try (PreparedStatement statement = conn.prepareStatement(
+                    "SELECT DISTINCT index_name FROM information_schema.statistics"
+                    + " WHERE table_schema = ? AND table_name = ?")) {
+                statement.setString(1, name[0]);
+                statement.setString(2, name[1]);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        names.add(result.getString(1));
+                    }
+                }
+            }
+            return names;
+        }
+
+        @Override
+        public List<String> alterStatements(String table, Map<String, String> indexes) {
+            return Collections.singletonList(alterStatement(table, indexes));
+        }
+    };
+
+    // table > index name > columns
+    private final Map<String, Map<String, String>> indexes = new LinkedHashMap<>();
+    private Dialect dialect = MYSQL;
+
+    /**
+     * @param table Qualified name of the table (e.g. project_issues.issues_scmlog)
+     * @param columns Columns of the index (e.g. "issue_key(32)")
+     */
+    public DeferredIndexes add(String table, String name, String columns) {
+        Map<String, String> tableIndexes = indexes.get(table);
+        if (tableIndexes == null) {
+            tableIndexes = new LinkedHashMap<>();
+            indexes.put(table, tableIndexes);
+        }
+        tableIndexes.put(name, columns);
+        return this;
+    }
+
+    /**
+     * @param dialect Database of the tables, {@link #MYSQL} by default
+     */
+    public DeferredIndexes setDialect(Dialect dialect) {
+        this.dialect = dialect;
+        return this;
+    }
+
+    /**
+     * Adds the missing indexes, one ALTER TABLE per table with MySQL.
+     *
+     * @return Time of each ALTER TABLE executed
+     */
+    public List<IndexBuild> create(Connection conn) throws SQLException {
+        final List<IndexBuild> builds = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> table : indexes.entrySet()) {
+            final Map<String, String> missing = new LinkedHashMap<>(table.getValue());
+            missing.keySet().removeAll(dialect.findIndexNames(conn, table.getKey()));
+            if (missing.isEmpty()) {
+                continue;
+            }
+
+            final long start = System.currentTimeMillis();
+            try (Statement statement = conn.createStatement()) {
+                for (String alter : dialect.alterStatements(table.getKey(), missing)) {
+                    statement.execute(alter);
+                }
+            }
+            final IndexBuild build = new IndexBuild(table.getKey(), new ArrayList<>(missing.keySet()),
+                    System.currentTimeMillis() - start);
+            log.info(build.toString());
+            builds.add(build);
+        }
+        return builds;
+    }
+
+    static String alterStatement(String table, Map<String, String> indexes) {
+        final List<String> clauses = new ArrayList<>();
+        for (Map.Entry<String, String> index : indexes.entrySet()) {
+            clauses.add("ADD INDEX " + index.getKey() + " (" + index.getValue() + ")");
+        }
+        return "ALTER TABLE " + table + " " + StringUtils.join(clauses, ", ");
+    }
+
+    /**
+     * How the indexes of a table are found and added in a database.
+     */
+    public interface Dialect {
+
+        /**
+         * @param table Qualified name of the table
+         * @return Names of the indexes of the table
+         */
+        Set<String> findIndexNames(Connection conn, String table) throws SQLException;
+
+        /**
+         * @param indexes Index name &gt; columns
+         * @return Statements that add the indexes, executed in order
+         */
+        List<String> alterStatements(String table, Map<String, String> indexes);
+    }
+
+    /**
+     * Indexes added to a table by one ALTER TABLE. They are built in the same
+     * pass over the table, so only their total time is known.
+     */
+    public static class IndexBuild {
+
+        private final String table;
+        private final List<String> indexNames;
+        private final long millis;
+
+        IndexBuild(String table, List<String> indexNames, long millis) {
+            this.table = table;
+            this.indexNames = Collections.unmodifiableList(indexNames);
+            this.millis = millis;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public List<String> getIndexNames() {
+            return indexNames;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return "Added " + indexNames.size() + " indexes (" + StringUtils.join(indexNames, ", ") + ") to "
+                    + table + " in " + millis + " ms.";
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import br.edu.utfpr.minerador.preprocessor.comparator.VersionComparator;
+import br.edu.utfpr.minerador.preprocessor.model.Version;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Distinct fix versions of a project (table fix_versions), so
+ * issues_fix_version stores only their ids. Each version keeps its minor
+ * version and the order of the minor version among all minor versions (see
+ * {@link VersionComparator}), which issues_fix_version_order stored before.
+ *
+ * The ids of a previous run are kept, new versions get the next ids and the
+ * orders of all versions are rewritten by {@link #save()}.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class FixVersionDictionary {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Connection conn;
+    private final String issueDatabaseName;
+    private final String tableSuffix;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<String, Integer> newIds = new LinkedHashMap<>();
+    private int lastId;
+
+    public FixVersionDictionary(Connection conn, String project) {
+        this(conn, project, "");
+    }
+
+    /**
+     * @param tableSuffix Suffix of the tables (e.g. "_2" for fix_versions_2)
+     */
+    public FixVersionDictionary(Connection conn, String project, String tableSuffix) {
+        this.conn = conn;
+        this.issueDatabaseName = project + "_issues";
+        this.tableSuffix = tableSuffix;
+    }
+
+    /**
+     * @return True if the project was preprocessed with the dictionary
+     */
+    public static boolean exists(Connection conn, String project) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT 1 FROM information_schema.tables WHERE table_schema = ? AND table_name = ?")) {
+            statement.setString(1, project + "_issues");
+            statement.setString(2, "fix_versions");
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    /**
+     * Creates the dictionary, if it does not exist, and the view
+     * issues_fix_version_order over it.
+     */
+    public void createIfNotExists() throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE IF NOT EXISTS " + issueDatabaseName + ".fix_versions" + tableSuffix + " ("
+                    + "  id int(11) NOT NULL,"
+                    + "  fix_version varchar(255) NOT NULL,"
+                    + "  minor_fix_version varchar(255) NOT NULL,"
+                    + "  major_fix_version varchar(255) NOT NULL,"
+                    + "  version_order int(11) NOT NULL,"
+                    + "  PRIMARY KEY (id),"
+                    // not unique, versions that differ only in case are distinct
+                    + "  KEY fix_version (fix_version),"
+                    + "  KEY version_order (version_order)"
+                    + ")");
+            statement.execute(
+                    "CREATE OR REPLACE VIEW " + issueDatabaseName + ".issues_fix_version_order" + tableSuffix
+                    + " AS SELECT DISTINCT minor_fix_version, major_fix_version, version_order"
+                    + " FROM " + issueDatabaseName + ".fix_versions" + tableSuffix);
+        }
+    }
+
+    /**
+     * Loads the versions of a previous run.
+     */
+    public void load() throws SQLException {
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT id, fix_version FROM " + issueDatabaseName + ".fix_versions" + tableSuffix)) {
+            while (result.next()) {
+                ids.put(result.getString(2), result.getInt(1));
+                lastId = Math.max(lastId, result.getInt(1));
+            }
+        }
+    }
+
+    /**
+     * @return Id of the version, a new one if it is not in the dictionary yet
+     */
+    public int idOf(String fixVersion) {
+        Integer id = ids.get(fixVersion);
+        if (id == null) {
+            id = ++lastId;
+            ids.put(fixVersion, id);
+            newIds.put(fixVersion, id);
+        }
+        return id;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return Distinct minor versions, sorted by {@link VersionComparator}
+     */
+    public List<String> getMinorVersionsOrdered() {
+        final TreeSet<String> minorVersions = new TreeSet<>();
+        for (String fixVersion : ids.keySet()) {
+            minorVersions.add(Version.of(fixVersion).getMinorVersion());
+        }
+        final List<String> ordered = new ArrayList<>(minorVersions);
+        Collections.sort(ordered, new VersionComparator());
+        return ordered;
+    }
+
+    /**
+     * Inserts the new versions and rewrites the order of all versions. It does
+     * not commit the transaction.
+     */
+    public void save() throws SQLException {
+        final Map<String, Integer> orders = new HashMap<>();
+        for (String minorVersion : getMinorVersionsOrdered()) {
+            orders.put(minorVersion, orders.size() + 1);
+        }
+
+        try (BulkWriter insert = BulkWriter.open(conn, issueDatabaseName + ".fix_versions" + tableSuffix, false,
+                "id", "fix_version", "minor_fix_version", "major_fix_version", "version_order");
+                PreparedStatement updateOrder = conn.prepareStatement(
+                        "UPDATE " + issueDatabaseName + ".fix_versions" + tableSuffix
+                        + " SET version_order = ? WHERE id = ?")) {
+            int pendingUpdates = 0;
+            for (Map.Entry<String, Integer> version : ids.entrySet()) {
+                final String minorVersion = Version.of(version.getKey()).getMinorVersion();
+                final int order = orders.get(minorVersion);
+                if (newIds.containsKey(version.getKey())) {
+                    // as issues_fix_version did, the major version is the minor one
+                    insert.addRow(version.getValue(), version.getKey(), minorVersion, minorVersion, order);
+                } else {
+                    updateOrder.setInt(1, order);
+                    updateOrder.setInt(2, version.getValue());
+                    updateOrder.addBatch();
+                    if (++pendingUpdates % DEFAULT_BATCH_SIZE == 0) {
+                        updateOrder.executeBatch();
+                    }
+                }
+            }
+            updateOrder.executeBatch();
+        }
+        newIds.clear();
+    }
+}
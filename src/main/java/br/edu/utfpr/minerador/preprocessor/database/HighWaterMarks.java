@@ -0,0 +1,123 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Greatest scmlog.id, issues.id, changes.changed_on, comments.id and
+ * issues_watchers.id preprocessed by a run. The miners only append rows, so
+ * the rows above the marks of the previous run are the delta of an
+ * incremental run.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class HighWaterMarks {
+
+    private static final String SCMLOG_ID = "scmlog.id";
+    private static final String ISSUES_ID = "issues.id";
+    private static final String CHANGES_CHANGED_ON = "changes.changed_on";
+    private static final String COMMENTS_ID = "comments.id";
+    private static final String WATCHERS_ID = "issues_watchers.id";
+
+    private final int scmlogId;
+    private final int issueId;
+    private final String changedOn;
+    private final int commentId;
+    private final int watcherId;
+
+    public HighWaterMarks(int scmlogId, int issueId, String changedOn, int commentId, int watcherId) {
+        this.scmlogId = scmlogId;
+        this.issueId = issueId;
+        this.changedOn = changedOn;
+        this.commentId = commentId;
+        this.watcherId = watcherId;
+    }
+
+    /**
+     * @return Marks of the rows currently in the project schemas
+     */
+    public static HighWaterMarks current(Connection conn, String project) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            return new HighWaterMarks(
+                    queryInt(statement, "SELECT COALESCE(MAX(id), 0) FROM " + project + "_vcs.scmlog"),
+                    queryInt(statement, "SELECT COALESCE(MAX(id), 0) FROM " + project + "_issues.issues"),
+                    queryString(statement, "SELECT MAX(changed_on) FROM " + project + "_issues.changes"),
+                    queryInt(statement, "SELECT COALESCE(MAX(id), 0) FROM " + project + "_issues.comments"),
+                    queryInt(statement, "SELECT COALESCE(MAX(id), 0) FROM " + project + "_issues.issues_watchers"));
+        }
+    }
+
+    /**
+     * @return Marks saved by the last run, or null if the project was never
+     * preprocessed
+     */
+    public static HighWaterMarks load(MetadataDao metadata, String project) throws SQLException {
+        final Map<String, String> marks = metadata.findHighWaterMarks(project);
+        if (!marks.containsKey(SCMLOG_ID) || !marks.containsKey(ISSUES_ID)) {
+            return null;
+        }
+        // runs before these marks existed: every comment and watcher is new
+        return new HighWaterMarks(Integer.parseInt(marks.get(SCMLOG_ID)),
+                Integer.parseInt(marks.get(ISSUES_ID)), marks.get(CHANGES_CHANGED_ON),
+                parseInt(marks.get(COMMENTS_ID)), parseInt(marks.get(WATCHERS_ID)));
+    }
+
+    public void save(MetadataDao metadata, String project) throws SQLException {
+        metadata.saveHighWaterMark(project, SCMLOG_ID, String.valueOf(scmlogId));
+        metadata.saveHighWaterMark(project, ISSUES_ID, String.valueOf(issueId));
+        metadata.saveHighWaterMark(project, CHANGES_CHANGED_ON, changedOn);
+        metadata.saveHighWaterMark(project, COMMENTS_ID, String.valueOf(commentId));
+        metadata.saveHighWaterMark(project, WATCHERS_ID, String.valueOf(watcherId));
+    }
+
+    public int getScmlogId() {
+        return scmlogId;
+    }
+
+    public int getIssueId() {
+        return issueId;
+    }
+
+    /**
+     * @return As text (e.g. "2015-01-31 23:59:59"), null if there is no change
+     */
+    public String getChangedOn() {
+        return changedOn;
+    }
+
+    public int getCommentId() {
+        return commentId;
+    }
+
+    public int getWatcherId() {
+        return watcherId;
+    }
+
+    @Override
+    public String toString() {
+        return SCMLOG_ID + " = " + scmlogId + ", " + ISSUES_ID + " = " + issueId
+                + ", " + CHANGES_CHANGED_ON + " = " + changedOn
+                + ", " + COMMENTS_ID + " = " + commentId + ", " + WATCHERS_ID + " = " + watcherId;
+    }
+
+    private static int parseInt(String mark) {
+        return mark == null ? 0 : Integer.parseInt(mark);
+    }
+
+    private static int queryInt(Statement statement, String sql) throws SQLException {
+        try (ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    private static String queryString(Statement statement, String sql) throws SQLException {
+        try (ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getString(1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * {@link BulkWriter} of batched INSERTs, used when LOAD DATA LOCAL INFILE is
+ * not allowed.
+ *
+ * The connection should have "rewriteBatchedStatements" enabled, so each batch
+ * is sent as a single multi-row INSERT.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class InsertWriter extends BulkWriter {
+
+    private final int batchSize;
+
+    private PreparedStatement insert;
+    private int pending;
+
+    public InsertWriter(Connection conn, String table, String[] columns, boolean ignoreDuplicates, int batchSize) {
+        super(conn, table, columns, ignoreDuplicates);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected void write(Object[] values) throws SQLException {
+        if (insert == null) {
+            final StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < columns.length; i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            insert = conn.prepareStatement((ignoreDuplicates ? "INSERT IGNORE INTO " : "INSERT INTO ") + table
+                    + " " + getColumnList() + " VALUES (" + placeholders + ")");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                insert.setNull(i + 1, Types.NULL);
+            } else {
+                insert.setObject(i + 1, values[i]);
+            }
+        }
+        insert.addBatch();
+
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        if (pending > 0) {
+            try (Timer.Context timer = batchTimer.time()) {
+                insert.executeBatch();
+            }
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            if (insert != null) {
+                insert.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills the derived columns of issues (num_comments, num_commenters,
+ * num_dev_commenters, num_watchers, reopened_times and fixed_on).
+ *
+ * Each source table is scanned once by a query grouped by issue, instead of
+ * one correlated subquery per issue and column. The filters stay in SQL, so
+ * string comparisons keep the collation of the columns. The aggregates are
+ * kept in arrays parallel to the sorted issue ids and written back in batches
+ * of "UPDATE ... WHERE id = ?". Issues without rows get 0 (and fixed_on
+ * NULL), as COUNT and MAX of the subqueries did.
+ *
+ * An incremental run aggregates only the given issues, filtering each query
+ * by chunks of issue ids.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(IssueAggregator.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final Connection conn;
+    private final String project;
+    private final int batchSize;
+
+    private int[] ids;
+    private int[] numComments;
+    private int[] numCommenters;
+    private int[] numDevCommenters;
+    private int[] numWatchers;
+    private int[] reopenedTimes;
+    private String[] fixedOn;
+
+    public IssueAggregator(Connection conn, String project) {
+        this(conn, project, DEFAULT_BATCH_SIZE);
+    }
+
+    public IssueAggregator(Connection conn, String project, int batchSize) {
+        this.conn = conn;
+        this.project = project;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return Number of issues updated
+     */
+    public int aggregate() throws SQLException {
+        final long start = System.currentTimeMillis();
+        final String schema = project + "_issues.";
+
+        loadIssueIds(schema);
+        aggregate(schema, null);
+        update(schema);
+
+        log.info("Aggregated " + ids.length + " issues in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+        return ids.length;
+    }
+
+    /**
+     * @param issueIds Only these issues (e.g. changed since the previous run)
+     * @return Number of issues updated
+     */
+    public int aggregate(Collection<Integer> issueIds) throws SQLException {
+        final long start = System.currentTimeMillis();
+        final String schema = project + "_issues.";
+
+        ids = new int[issueIds.size()];
+        int size = 0;
+        for (Integer issueId : issueIds) {
+            ids[size++] = issueId;
+        }
+        Arrays.sort(ids);
+        allocate(size);
+
+        for (int from = 0; from < size; from += IN_CHUNK_SIZE) {
+            final StringBuilder in = new StringBuilder();
+            for (int i = from; i < Math.min(size, from + IN_CHUNK_SIZE); i++) {
+                in.append(i == from ? "" : ", ").append(ids[i]);
+            }
+            aggregate(schema, " IN (" + in + ")");
+        }
+        update(schema);
+
+        log.info("Aggregated " + ids.length + " issues in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+        return ids.length;
+    }
+
+    /**
+     * @param issueIdsIn E.g. " IN (1, 2)", or null for all issues
+     */
+    private void aggregate(String schema, String issueIdsIn) throws SQLException {
+        final boolean filtered = issueIdsIn != null;
+
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT c.issue_id, COUNT(DISTINCT(c.id)), COUNT(DISTINCT(c.submitted_by))"
+                        + "  FROM " + schema + "comments c"
+                        + (filtered ? " WHERE c.issue_id" + issueIdsIn : "")
+                        + " GROUP BY c.issue_id")) {
+            while (result.next()) {
+                final int index = indexOf(result.getInt(1), result.wasNull());
+                if (index >= 0) {
+                    numComments[index] = result.getInt(2);
+                    numCommenters[index] = result.getInt(3);
+                }
+            }
+        }
+
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT c.issue_id, COUNT(DISTINCT(c.submitted_by))"
+                        + "  FROM " + schema + "comments c"
+                        + "  JOIN " + schema + "people p ON c.submitted_by = p.id"
+                        + " WHERE p.is_dev = 1"
+                        + (filtered ? " AND c.issue_id" + issueIdsIn : "")
+                        + " GROUP BY c.issue_id")) {
+            while (result.next()) {
+                final int index = indexOf(result.getInt(1), result.wasNull());
+                if (index >= 0) {
+                    numDevCommenters[index] = result.getInt(2);
+                }
+            }
+        }
+
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT iw.issue_id, COUNT(DISTINCT(iw.person_id))"
+                        + "  FROM " + schema + "issues_watchers iw"
+                        + (filtered ? " WHERE iw.issue_id" + issueIdsIn : "")
+                        + " GROUP BY iw.issue_id")) {
+            while (result.next()) {
+                final int index = indexOf(result.getInt(1), result.wasNull());
+                if (index >= 0) {
+                    numWatchers[index] = result.getInt(2);
+                }
+            }
+        }
+
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT c.issue_id, COUNT(1)"
+                        + "  FROM " + schema + "changes c"
+                        + " WHERE c.new_value = 'Reopened'"
+                        + "   AND c.field = 'Status'"
+                        + (filtered ? " AND c.issue_id" + issueIdsIn : "")
+                        + " GROUP BY c.issue_id")) {
+            while (result.next()) {
+                final int index = indexOf(result.getInt(1), result.wasNull());
+                if (index >= 0) {
+                    reopenedTimes[index] = result.getInt(2);
+                }
+            }
+        }
+
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT i.id, MAX(c.changed_on)"
+                        + "  FROM " + schema + "issues i"
+                        + "  JOIN " + schema + "changes c ON c.issue_id = i.id"
+                        + " WHERE i.resolution = 'Fixed'"
+                        + "   AND c.field = 'Resolution'"
+                        + "   AND c.new_value = 'Fixed'"
+                        + (filtered ? " AND i.id" + issueIdsIn : "")
+                        + " GROUP BY i.id")) {
+            while (result.next()) {
+                final int index = indexOf(result.getInt(1), result.wasNull());
+                if (index >= 0) {
+                    // as text, so the value is not shifted by time zones
+                    fixedOn[index] = result.getString(2);
+                }
+            }
+        }
+    }
+
+    private void loadIssueIds(String schema) throws SQLException {
+        int[] loaded = new int[1024];
+        int size = 0;
+        try (Statement statement = createStreamingStatement();
+                ResultSet result = statement.executeQuery("SELECT i.id FROM " + schema + "issues i")) {
+            while (result.next()) {
+                if (size == loaded.length) {
+                    loaded = Arrays.copyOf(loaded, size * 2);
+                }
+                loaded[size++] = result.getInt(1);
+            }
+        }
+
+        ids = Arrays.copyOf(loaded, size);
+        Arrays.sort(ids);
+        allocate(size);
+    }
+
+    private void allocate(int size) {
+        numComments = new int[size];
+        numCommenters = new int[size];
+        numDevCommenters = new int[size];
+        numWatchers = new int[size];
+        reopenedTimes = new int[size];
+        fixedOn = new String[size];
+    }
+
+    private void update(String schema) throws SQLException {
+        final boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement statement = conn.prepareStatement(
+                "UPDATE " + schema + "issues SET"
+                + " num_comments = ?,"
+                + " num_commenters = ?,"
+                + " num_dev_commenters = ?,"
+                + " num_watchers = ?,"
+                + " reopened_times = ?,"
+                + " fixed_on = ?"
+                + " WHERE id = ?")) {
+
+            for (int i = 0; i < ids.length; i++) {
+                statement.setInt(1, numComments[i]);
+                statement.setInt(2, numCommenters[i]);
+                statement.setInt(3, numDevCommenters[i]);
+                statement.setInt(4, numWatchers[i]);
+                statement.setInt(5, reopenedTimes[i]);
+                if (fixedOn[i] == null) {
+                    statement.setNull(6, Types.TIMESTAMP);
+                } else {
+                    statement.setString(6, fixedOn[i]);
+                }
+                statement.setInt(7, ids[i]);
+                statement.addBatch();
+
+                if ((i + 1) % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return Index of the issue in the arrays, or -1 for a row without
+     * issue (e.g. a comment of a deleted issue)
+     */
+    private int indexOf(int issueId, boolean isNull) {
+        if (isNull) {
+            return -1;
+        }
+        final int index = Arrays.binarySearch(ids, issueId);
+        return index >= 0 ? index : -1;
+    }
+
+    private Statement createStreamingStatement() throws SQLException {
+        // streams the result set row by row (MySQL driver convention)
+        final Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+}
@@ -1,9 +1,263 @@
 package br.edu.utfpr.minerador.preprocessor.database;
 
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
+ * Loads the issues that a commit message may reference, indexed by their key,
+ * so each pattern occurrence is resolved in memory instead of one query per
+ * occurrence.
  *
  * @author Rodrigo T. Kuroda
  */
 public class IssueDao {
 
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final Connection conn;
+    private final String project;
+
+    public IssueDao(Connection conn, String project) {
+        this.conn = conn;
+        this.project = project;
+    }
+
+    public boolean isFromBugzilla() throws SQLException {
+        try (Statement statement = conn.createStatement();
+                ResultSet queryIfIssuesIsFromBugzilla = statement.executeQuery("SELECT 1 "
+                        + "FROM information_schema.tables "
+                        + "WHERE table_schema = '" + project + "_issues' "
+                        + "    AND table_name = 'issues_ext_bugzilla' "
+                        + "LIMIT 1")) {
+            return queryIfIssuesIsFromBugzilla.next();
+        }
+    }
+
+    /**
+     * Indexes Bugzilla issues by issue number (e.g. 1234).
+     *
+     * @return Upper case issue number to issue
+     */
+    public Map<String, Issue> findBugzillaIssuesByKey() throws SQLException {
+        return findIssuesByKey("SELECT i.issue, i.id, NULL FROM " + project + "_issues.issues i");
+    }
+
+    /**
+     * Indexes Jira issues by issue key (e.g. ARIES-1234).
+     *
+     * @param onlyFixed Only issues resolved as 'Fixed'
+     * @return Upper case issue key to issue
+     */
+    public Map<String, Issue> findJiraIssuesByKey(boolean onlyFixed) throws SQLException {
+        String selectIssues
+                = "SELECT DISTINCT UPPER(iej.issue_key), i.id, iej.fix_version FROM " + project + "_issues.issues i"
+                + "  JOIN " + project + "_issues.changes c ON c.issue_id = i.id"
+                + "  JOIN " + project + "_issues.issues_ext_jira iej ON iej.issue_id = i.id";
+        if (onlyFixed) {
+            selectIssues
+                    += " WHERE i.resolution = 'Fixed'"
+                    + "   AND c.field = 'Resolution'"
+                    + "   AND c.new_value = i.resolution";
+        }
+        return findIssuesByKey(selectIssues);
+    }
+
+    private Map<String, Issue> findIssuesByKey(String selectIssues) throws SQLException {
+        final Map<String, Issue> issuesByKey = new HashMap<>();
+
+        // streams the result set row by row (MySQL driver convention)
+        try (Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet issues = statement.executeQuery(selectIssues)) {
+                while (issues.next()) {
+                    final String key = issues.getString(1);
+                    if (key != null && !issuesByKey.containsKey(key.toUpperCase())) {
+                        // keeps the first row, as the per-occurrence query did
+                        issuesByKey.put(key.toUpperCase(), new Issue(issues.getInt(2), issues.getString(3)));
+                    }
+                }
+            }
+        }
+        return issuesByKey;
+    }
+
+    /**
+     * @return Issues created or changed after the marks of a previous run
+     */
+    public Set<Integer> findTouchedIssueIds(HighWaterMarks previous) throws SQLException {
+        final Set<Integer> issueIds = new HashSet<>();
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT i.id FROM " + project + "_issues.issues i WHERE i.id > ?")) {
+            statement.setInt(1, previous.getIssueId());
+            try (ResultSet issues = statement.executeQuery()) {
+                while (issues.next()) {
+                    issueIds.add(issues.getInt(1));
+                }
+            }
+        }
+
+        final String selectChanged = "SELECT DISTINCT c.issue_id FROM " + project + "_issues.changes c"
+                + (previous.getChangedOn() == null ? "" : " WHERE c.changed_on > ?");
+        try (PreparedStatement statement = conn.prepareStatement(selectChanged)) {
+            if (previous.getChangedOn() != null) {
+                statement.setString(1, previous.getChangedOn());
+            }
+            try (ResultSet issues = statement.executeQuery()) {
+                while (issues.next()) {
+                    issueIds.add(issues.getInt(1));
+                }
+            }
+        }
+        return issueIds;
+    }
+
+    /**
+     * @return Issues commented or watched after the marks of a previous run,
+     * whose counts of comments, commenters and watchers changed
+     */
+    public Set<Integer> findDiscussedIssueIds(HighWaterMarks previous) throws SQLException {
+        final Set<Integer> issueIds = new HashSet<>();
+        addIssueIds(issueIds, "SELECT DISTINCT c.issue_id FROM " + project + "_issues.comments c WHERE c.id > ?",
+                previous.getCommentId());
+        addIssueIds(issueIds, "SELECT DISTINCT iw.issue_id FROM " + project + "_issues.issues_watchers iw"
+                + " WHERE iw.id > ?", previous.getWatcherId());
+        return issueIds;
+    }
+
+    /**
+     * Flags as developers the people of the issue tracker who committed, by
+     * name or user id. New people default to is_dev = 0.
+     *
+     * @return Issues commented by the people flagged, whose number of
+     * developer commenters changed
+     */
+    public Set<Integer> markDevelopers() throws SQLException {
+        final List<Integer> peopleIds = new ArrayList<>();
+        // people is small
+        try (Statement statement = conn.createStatement();
+                ResultSet people = statement.executeQuery("SELECT ip.id FROM " + project + "_issues.people ip"
+                        + " WHERE ip.is_dev = 0 AND EXISTS"
+                        + " (SELECT 1"
+                        + "    FROM " + project + "_vcs.people sp"
+                        + "   WHERE upper(sp.name) = upper(ip.name) OR upper(sp.name) = upper(ip.user_id))")) {
+            while (people.next()) {
+                peopleIds.add(people.getInt(1));
+            }
+        }
+
+        final Set<Integer> issueIds = new HashSet<>();
+        if (peopleIds.isEmpty()) {
+            return issueIds;
+        }
+        final String peopleIdsIn = " IN (" + join(peopleIds) + ")";
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("UPDATE " + project + "_issues.people SET is_dev = 1 WHERE id" + peopleIdsIn);
+            try (ResultSet issues = statement.executeQuery("SELECT DISTINCT c.issue_id FROM "
+                    + project + "_issues.comments c WHERE c.submitted_by" + peopleIdsIn)) {
+                while (issues.next()) {
+                    issueIds.add(issues.getInt(1));
+                }
+            }
+        }
+        return issueIds;
+    }
+
+    private void addIssueIds(Set<Integer> issueIds, String sql, int afterId) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            statement.setInt(1, afterId);
+            try (ResultSet issues = statement.executeQuery()) {
+                while (issues.next()) {
+                    issueIds.add(issues.getInt(1));
+                }
+            }
+        }
+    }
+
+    private static String join(Collection<Integer> ids) {
+        final StringBuilder joined = new StringBuilder();
+        for (Integer id : ids) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(id);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @return Pairs of issue and commit linked (see
+     * {@link IssueLinkWriter#linkCommit(int, int)})
+     */
+    public int countLinks() throws SQLException {
+        return count("SELECT COUNT(1) FROM " + project + "_issues.issues_scmlog");
+    }
+
+    /**
+     * @return Issues linked to at least one commit
+     */
+    public int countLinkedIssues() throws SQLException {
+        return count("SELECT COUNT(DISTINCT issue_id) FROM " + project + "_issues.issues_scmlog");
+    }
+
+    private int count(String sql) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql);
+                ResultSet count = statement.executeQuery()) {
+            count.next();
+            return count.getInt(1);
+        }
+    }
+
+    /**
+     * Finds commits whose message referenced the keys (see
+     * {@link IssueLinkWriter#addIssueKey(int, String)}).
+     *
+     * @param maxScmlogId Only commits read up to this id
+     * @return Issue key to commit ids
+     */
+    public Map<String, List<Integer>> findCommitsByIssueKeys(Collection<String> issueKeys, int maxScmlogId)
+            throws SQLException {
+        final Map<String, List<Integer>> commitsByKey = new HashMap<>();
+        final List<String> keys = new ArrayList<>(issueKeys);
+
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            final List<String> chunk = keys.subList(from, Math.min(keys.size(), from + IN_CHUNK_SIZE));
+            final StringBuilder placeholders = new StringBuilder("?");
+            for (int i = 1; i < chunk.size(); i++) {
+                placeholders.append(", ?");
+            }
+
+            try (PreparedStatement statement = conn.prepareStatement(
+                    "SELECT k.issue_key, k.scmlog_id FROM " + project + "_issues.scmlog_issue_keys k"
+                    + " WHERE k.scmlog_id <= ? AND k.issue_key IN (" + placeholders + ")")) {
+                statement.setInt(1, maxScmlogId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 2, chunk.get(i));
+                }
+                try (ResultSet commits = statement.executeQuery()) {
+                    while (commits.next()) {
+                        final String key = commits.getString(1).toUpperCase();
+                        List<Integer> scmlogIds = commitsByKey.get(key);
+                        if (scmlogIds == null) {
+                            scmlogIds = new ArrayList<>();
+                            commitsByKey.put(key, scmlogIds);
+                        }
+                        scmlogIds.add(commits.getInt(2));
+                    }
+                }
+            }
+        }
+        return commitsByKey;
+    }
 }
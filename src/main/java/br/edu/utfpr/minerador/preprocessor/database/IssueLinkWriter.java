@@ -0,0 +1,111 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes the links between issues, commits and fix versions in bulk (see
+ * {@link BulkWriter}). Duplicated pairs are discarded in memory before
+ * reaching the database, and rows left by a previous run are skipped, as
+ * INSERT IGNORE does.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueLinkWriter implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Connection conn;
+    private final String issueDatabaseName;
+    private final String tableSuffix;
+    private final int batchSize;
+
+    private final Set<Long> issuesScmlog = new HashSet<>();
+    private final Set<Long> issuesFixVersion = new HashSet<>();
+
+    private BulkWriter issueScmlogWriter;
+    private BulkWriter issueFixVersionWriter;
+    private BulkWriter issueKeyWriter;
+
+    public IssueLinkWriter(Connection conn, String project) {
+        this(conn, project, "", DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param tableSuffix Suffix of target tables (e.g. "_2" for
+     * issues_scmlog_2)
+     */
+    public IssueLinkWriter(Connection conn, String project, String tableSuffix, int batchSize) {
+        this.conn = conn;
+        this.issueDatabaseName = project + "_issues";
+        this.tableSuffix = tableSuffix;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return True if the pair was not written yet
+     */
+    public boolean linkCommit(int issueId, int scmlogId) throws SQLException {
+        if (!issuesScmlog.add(((long) issueId << 32) | (scmlogId & 0xFFFFFFFFL))) {
+            return false;
+        }
+        if (issueScmlogWriter == null) {
+            issueScmlogWriter = open("issues_scmlog", "issue_id", "scmlog_id");
+        }
+        issueScmlogWriter.addRow(issueId, scmlogId);
+        return true;
+    }
+
+    /**
+     * @param fixVersionId Id of the version in {@link FixVersionDictionary}
+     * @return True if the pair was not written yet
+     */
+    public boolean addFixVersion(int issueId, int fixVersionId) throws SQLException {
+        if (!issuesFixVersion.add(((long) issueId << 32) | (fixVersionId & 0xFFFFFFFFL))) {
+            return false;
+        }
+        if (issueFixVersionWriter == null) {
+            issueFixVersionWriter = open("issues_fix_version", "issue_id", "fix_version_id");
+        }
+        issueFixVersionWriter.addRow(issueId, fixVersionId);
+        return true;
+    }
+
+    /**
+     * Records an issue key found in a commit message, even if it does not
+     * reference a fixed issue yet, so an incremental run can link old commits
+     * to issues fixed later.
+     */
+    public void addIssueKey(int scmlogId, String issueKey) throws SQLException {
+        if (issueKeyWriter == null) {
+            issueKeyWriter = open("scmlog_issue_keys", "scmlog_id", "issue_key");
+        }
+        issueKeyWriter.addRow(scmlogId, issueKey);
+    }
+
+    private BulkWriter open(String table, String... columns) throws SQLException {
+        return BulkWriter.open(conn, issueDatabaseName + "." + table + tableSuffix, columns, true, batchSize);
+    }
+
+    /**
+     * Sends the pending rows. It does not commit the transaction.
+     */
+    public void flush() throws SQLException {
+        for (BulkWriter writer : new BulkWriter[]{issueScmlogWriter, issueFixVersionWriter, issueKeyWriter}) {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (BulkWriter issueScmlog = issueScmlogWriter;
+                BulkWriter issueFixVersion = issueFixVersionWriter;
+                BulkWriter issueKey = issueKeyWriter) {
+            flush();
+        }
+    }
+}
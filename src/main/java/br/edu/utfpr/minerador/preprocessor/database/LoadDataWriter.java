@@ -0,0 +1,177 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * {@link BulkWriter} of LOAD DATA LOCAL INFILE. Rows are encoded in memory as
+ * tab-separated UTF-8 lines, in the default format of LOAD DATA (NULL as
+ * "\N", and "\", tab, new line, carriage return and the NUL character
+ * escaped with "\"), and each chunk is handed to the driver as the input
+ * stream of the "local file", so nothing is written to disk.
+ *
+ * LOAD DATA LOCAL turns duplicate keys and data conversion errors (e.g. a
+ * truncated message) into warnings, even without IGNORE. Unless duplicates
+ * are ignored, a chunk with warnings or with fewer rows loaded than written
+ * fails, as an INSERT of {@link InsertWriter} would.
+ *
+ * The connection should have "allowLoadLocalInfile" enabled, and the server
+ * "local_infile" (see {@link BulkWriter#isLoadDataAllowed(Connection)}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class LoadDataWriter extends BulkWriter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private final int chunkSize;
+    private final Chunk chunk;
+    private final StringBuilder line = new StringBuilder();
+
+    private Statement statement;
+
+    public LoadDataWriter(Connection conn, String table, String[] columns, boolean ignoreDuplicates, int chunkSize) {
+        super(conn, table, columns, ignoreDuplicates);
+        this.chunkSize = chunkSize;
+        this.chunk = new Chunk(Math.min(chunkSize, 64 * 1024));
+    }
+
+    @Override
+    protected void write(Object[] values) throws SQLException {
+        line.setLength(0);
+        appendLine(line, values);
+        final byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        chunk.write(bytes, 0, bytes.length);
+        chunk.rows++;
+
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends the values as a line in the default format of LOAD DATA.
+     */
+    static void appendLine(StringBuilder line, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            final Object value = values[i];
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof Boolean) {
+                line.append((Boolean) value ? '1' : '0');
+            } else if (value instanceof Number) {
+                line.append(value);
+            } else {
+                final String text = value.toString();
+                for (int c = 0; c < text.length(); c++) {
+                    final char character = text.charAt(c);
+                    switch (character) {
+                        case '\\':
+                            line.append("\\\\");
+                            break;
+                        case '\t':
+                            line.append("\\t");
+                            break;
+                        case '\n':
+                            line.append("\\n");
+                            break;
+                        case '\r':
+                            line.append("\\r");
+                            break;
+                        case '\0':
+                            line.append("\\0");
+                            break;
+                        default:
+                            line.append(character);
+                    }
+                }
+            }
+        }
+        line.append('\n');
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        if (chunk.size() == 0) {
+            return;
+        }
+        if (statement == null) {
+            statement = conn.createStatement();
+        }
+        // the driver reads the stream instead of the file named in the statement
+        statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(chunk.toInputStream());
+        try (Timer.Context timer = batchTimer.time()) {
+            // the chunk is UTF-8, which utf8mb4 decodes entirely: utf8 of MySQL stops at
+            // 3 bytes per character, so emojis and other 4-byte characters would be cut
+            statement.execute("LOAD DATA LOCAL INFILE 'stream'" + (ignoreDuplicates ? " IGNORE" : "")
+                    + " INTO TABLE " + table + " CHARACTER SET utf8mb4 " + getColumnList());
+            if (!ignoreDuplicates) {
+                checkLoaded(table, chunk.rows, statement.getUpdateCount(), statement.getWarnings());
+            }
+        } finally {
+            chunk.reset();
+        }
+    }
+
+    /**
+     * @param warnings Of the LOAD DATA, may be null
+     * @throws SQLException If a row was not loaded or was changed to fit the
+     * table
+     */
+    static void checkLoaded(String table, int rows, int loaded, SQLWarning warnings) throws SQLException {
+        if (warnings == null && loaded >= rows) {
+            return;
+        }
+        final StringBuilder message = new StringBuilder("Loaded ").append(loaded).append(" of ").append(rows)
+                .append(" rows into ").append(table);
+        int shown = 0;
+        for (SQLWarning warning = warnings; warning != null && shown < 3; warning = warning.getNextWarning()) {
+            message.append(shown == 0 ? ": " : "; ").append(warning.getMessage());
+            shown++;
+        }
+        throw new SQLException(message.append('.').toString(), warnings == null ? null : warnings.getSQLState(),
+                warnings);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * Buffer read in place, without the copy of toByteArray().
+     */
+    private static class Chunk extends ByteArrayOutputStream {
+
+        int rows;
+
+        Chunk(int size) {
+            super(size);
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            rows = 0;
+        }
+
+        ByteArrayInputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bookkeeping of the preprocessor itself, kept in its own schema so it
+ * survives the "DROP SCHEMA" of the projects.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class MetadataDao {
+
+    public static final String SCHEMA = "preprocessor_meta";
+
+    private final Connection conn;
+
+    public MetadataDao(Connection conn) {
+        this.conn = conn;
+    }
+
+    public void createIfNotExists() throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+            statement.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + ".restored_dumps ("
+                    + "  database_name varchar(64) NOT NULL,"
+                    + "  fingerprint varchar(255) NOT NULL,"
+                    + "  restored_on timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+                    + "  PRIMARY KEY (database_name)"
+                    + ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + ".progress ("
+                    + "  project varchar(64) NOT NULL,"
+                    + "  step varchar(255) NOT NULL,"
+                    + "  finished_on timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+                    + "  PRIMARY KEY (project, step)"
+                    + ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + ".high_water_marks ("
+                    + "  project varchar(64) NOT NULL,"
+                    + "  name varchar(64) NOT NULL,"
+                    + "  value varchar(64) NULL,"
+                    + "  PRIMARY KEY (project, name)"
+                    + ")");
+        }
+    }
+
+    /**
+     * @return Fingerprint of the dump restored to the database, or null if
+     * the database was not (completely) restored
+     */
+    public String findFingerprint(String databaseName) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT fingerprint FROM " + SCHEMA + ".restored_dumps WHERE database_name = ?")) {
+            statement.setString(1, databaseName);
+            try (ResultSet fingerprint = statement.executeQuery()) {
+                return fingerprint.next() ? fingerprint.getString(1) : null;
+            }
+        }
+    }
+
+    public void saveFingerprint(String databaseName, String fingerprint) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "REPLACE INTO " + SCHEMA + ".restored_dumps (database_name, fingerprint) VALUES (?, ?)")) {
+            statement.setString(1, databaseName);
+            statement.setString(2, fingerprint);
+            statement.executeUpdate();
+        }
+    }
+
+    public void deleteFingerprint(String databaseName) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "DELETE FROM " + SCHEMA + ".restored_dumps WHERE database_name = ?")) {
+            statement.setString(1, databaseName);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return Steps of the pipeline finished by previous runs of the project
+     */
+    public Set<String> findFinishedSteps(String project) throws SQLException {
+        final Set<String> steps = new HashSet<>();
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT step FROM " + SCHEMA + ".progress WHERE project = ?")) {
+            statement.setString(1, project);
+            try (ResultSet step = statement.executeQuery()) {
+                while (step.next()) {
+                    steps.add(step.getString(1));
+                }
+            }
+        }
+        return steps;
+    }
+
+    public void saveFinishedStep(String project, String step) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "REPLACE INTO " + SCHEMA + ".progress (project, step) VALUES (?, ?)")) {
+            statement.setString(1, project);
+            statement.setString(2, step);
+            statement.executeUpdate();
+        }
+    }
+
+    public void deleteProgress(String project) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "DELETE FROM " + SCHEMA + ".progress WHERE project = ?")) {
+            statement.setString(1, project);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return Name (e.g. "scmlog.id") to the value saved by the last run of
+     * the project, empty if there was no run
+     */
+    public Map<String, String> findHighWaterMarks(String project) throws SQLException {
+        final Map<String, String> marks = new HashMap<>();
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT name, value FROM " + SCHEMA + ".high_water_marks WHERE project = ?")) {
+            statement.setString(1, project);
+            try (ResultSet mark = statement.executeQuery()) {
+                while (mark.next()) {
+                    marks.put(mark.getString(1), mark.getString(2));
+                }
+            }
+        }
+        return marks;
+    }
+
+    public void saveHighWaterMark(String project, String name, String value) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "REPLACE INTO " + SCHEMA + ".high_water_marks (project, name, value) VALUES (?, ?, ?)")) {
+            statement.setString(1, project);
+            statement.setString(2, name);
+            statement.setString(3, value);
+            statement.executeUpdate();
+        }
+    }
+}
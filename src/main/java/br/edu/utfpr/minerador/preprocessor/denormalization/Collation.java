@@ -0,0 +1,130 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * String comparison of a MySQL column, so the joins done in memory match the
+ * rows MySQL would join: "=" ignores trailing spaces (PAD SPACE) except for
+ * binary columns, and case-insensitive collations (e.g. utf8_general_ci)
+ * also ignore case and accents.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Collation {
+
+    public static final Collation BINARY = new Collation(false, false);
+    public static final Collation CASE_SENSITIVE = new Collation(false, true);
+    public static final Collation CASE_INSENSITIVE = new Collation(true, true);
+
+    private static final char ESCAPE = '\\';
+
+    private final boolean caseInsensitive;
+    private final boolean padSpace;
+
+    private Collation(boolean caseInsensitive, boolean padSpace) {
+        this.caseInsensitive = caseInsensitive;
+        this.padSpace = padSpace;
+    }
+
+    /**
+     * @param collationName Of information_schema.columns (e.g.
+     * utf8_general_ci), null for binary columns
+     */
+    public static Collation of(String collationName) {
+        if (collationName == null || collationName.equals("binary")) {
+            return BINARY;
+        }
+        return collationName.endsWith("_bin") || collationName.endsWith("_cs")
+                ? CASE_SENSITIVE : CASE_INSENSITIVE;
+    }
+
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    /**
+     * @return Key equal for the values MySQL considers equal by "="
+     */
+    public String key(String value) {
+        if (value == null) {
+            return null;
+        }
+        String key = value;
+        if (padSpace) {
+            int end = key.length();
+            while (end > 0 && key.charAt(end - 1) == ' ') {
+                end--;
+            }
+            key = key.substring(0, end);
+        }
+        return caseInsensitive ? fold(key) : key;
+    }
+
+    /**
+     * "value LIKE pattern" with the default escape character "\": "%"
+     * matches any sequence, "_" any character. Unlike "=", trailing spaces
+     * are significant.
+     *
+     * @return False if any of them is null, as LIKE is NULL then
+     */
+    public boolean like(String value, String pattern) {
+        if (value == null || pattern == null) {
+            return false;
+        }
+        final String text = caseInsensitive ? fold(value) : value;
+        final String compiled = caseInsensitive ? fold(pattern) : pattern;
+
+        // iterative wildcard matching, backtracking to the last "%"
+        int t = 0;
+        int p = 0;
+        int starP = -1;
+        int starT = -1;
+        while (t < text.length()) {
+            if (p < compiled.length()) {
+                final char c = compiled.charAt(p);
+                if (c == '%') {
+                    starP = ++p;
+                    starT = t;
+                    continue;
+                }
+                if (c == ESCAPE && p + 1 < compiled.length()) {
+                    if (compiled.charAt(p + 1) == text.charAt(t)) {
+                        p += 2;
+                        t++;
+                        continue;
+                    }
+                } else if (c == '_' || c == text.charAt(t)) {
+                    p++;
+                    t++;
+                    continue;
+                }
+            }
+            if (starP < 0) {
+                return false;
+            }
+            p = starP;
+            t = ++starT;
+        }
+        while (p < compiled.length() && compiled.charAt(p) == '%') {
+            p++;
+        }
+        return p == compiled.length();
+    }
+
+    /**
+     * Upper case without accents (e.g. "é" and "E" are equal), as
+     * utf8_general_ci compares letters
+     */
+    static String fold(String value) {
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && ascii; i++) {
+            ascii = value.charAt(i) < 128;
+        }
+        if (ascii) {
+            return value.toUpperCase(Locale.ROOT);
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,468 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import br.edu.utfpr.minerador.preprocessor.database.BulkWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills {0}.commits with the files changed by the commits linked to issues,
+ * the same rows of:
+ *
+ * <pre>
+ * SELECT DISTINCT s.id, s.rev, ..., fill.file_path, filcl.added, filcl.removed
+ *   FROM scmlog s
+ *   JOIN actions a ON a.commit_id = s.id
+ *   JOIN files fil ON fil.id = a.file_id
+ *   JOIN file_links fill ON fill.file_id = fil.id AND fill.commit_id IN
+ *        (SELECT afill.commit_id FROM file_links afill
+ *          WHERE afill.commit_id &lt;= s.id AND afill.file_id = fil.id
+ *            AND afill.file_path LIKE CONCAT("%", fil.file_name))
+ *   JOIN commits_files_lines filcl ON filcl.commit = s.id AND filcl.path = fill.file_path
+ *  WHERE s.id IN (SELECT scmlog_id FROM issues_scmlog)
+ *  ORDER BY date
+ * </pre>
+ *
+ * Instead of a correlated subquery per row, file_links is read once into a
+ * {@link FilePathHistory}, and scmlog, actions and commits_files_lines are
+ * each read once, sorted by commit id, and merged. The paths of a file as of
+ * a commit are the links of the file up to the commit whose (file_id,
+ * commit_id) has a path ending with the file name. Paths are compared with
+ * the {@link Collation} of file_links.file_path, as MySQL would.
+ *
+ * The rows are spilled to a temporary file, commit by commit, and written in
+ * date order by a {@link BulkWriter}.
+ *
+ * The connection should have "useCursorFetch" enabled, so the three result
+ * sets are read at the same time from server-side cursors.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class CommitsBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitsBuilder.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final Connection conn;
+    private final String project;
+    private final int batchSize;
+
+    public CommitsBuilder(Connection conn, String project) {
+        this(conn, project, DEFAULT_BATCH_SIZE);
+    }
+
+    public CommitsBuilder(Connection conn, String project, int batchSize) {
+        this.conn = conn;
+        this.project = project;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Rebuilds {0}.commits with all commits linked to issues.
+     *
+     * @return Number of rows inserted
+     */
+    public int build() throws SQLException, IOException {
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("TRUNCATE TABLE " + project + ".commits");
+        }
+        return build(0, false);
+    }
+
+    /**
+     * Appends the commits of the links created after {@code afterLinkId}
+     * that are not in {0}.commits yet.
+     *
+     * @return Number of rows inserted
+     */
+    public int append(int afterLinkId) throws SQLException, IOException {
+        return build(afterLinkId, true);
+    }
+
+    private int build(int afterLinkId, boolean onlyNewCommits) throws SQLException, IOException {
+        final long start = System.currentTimeMillis();
+        final Collation collation = findCollation();
+        final Map<Integer, String> fileNamePatterns = loadFileNamePatterns();
+        final FilePathHistory history = FilePathHistory.load(conn, project);
+        log.info("Loaded " + history.getLinkCount() + " links (" + history.getPathCount() + " distinct paths) of "
+                + history.getFileCount() + " files.");
+
+        final File spill = File.createTempFile(project + "_commits", ".bin");
+        try {
+            final List<SpilledCommit> commits = join(afterLinkId, onlyNewCommits, collation, fileNamePatterns,
+                    history, spill);
+
+            Collections.sort(commits, SpilledCommit.BY_DATE);
+            final int rows = insert(commits, spill);
+
+            log.info("Inserted " + rows + " rows of " + commits.size() + " commits into " + project + ".commits in "
+                    + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+            return rows;
+        } finally {
+            if (!spill.delete()) {
+                spill.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Merges the sources by commit id and spills the rows of each commit.
+     */
+    private List<SpilledCommit> join(int afterLinkId, boolean onlyNewCommits, Collation collation,
+            Map<Integer, String> fileNamePatterns, FilePathHistory history, File spill)
+            throws SQLException, IOException {
+
+        final String vcs = project + "_vcs.";
+        final List<SpilledCommit> commits = new ArrayList<>();
+        // file id > key of each qualifying link, see qualifyingKeys
+        final Map<Integer, String[]> fileKeys = new HashMap<>();
+
+        try (PreparedStatement selectCommits = prepareCursor(
+                "SELECT s.id, s.rev, s.committer_id, s.date, s.message, s.repository_id"
+                + "  FROM " + vcs + "scmlog s"
+                + " WHERE " + linkedCommits("s.id", onlyNewCommits)
+                + " ORDER BY s.id", afterLinkId);
+                PreparedStatement selectActions = prepareCursor(
+                        "SELECT a.commit_id, a.type, a.branch_id, a.file_id"
+                        + "  FROM " + vcs + "actions a"
+                        + " WHERE " + linkedCommits("a.commit_id", onlyNewCommits)
+                        + " ORDER BY a.commit_id", afterLinkId);
+                PreparedStatement selectLines = prepareCursor(
+                        "SELECT filcl.commit, filcl.path, filcl.added, filcl.removed"
+                        + "  FROM " + vcs + "commits_files_lines filcl"
+                        + " WHERE " + linkedCommits("filcl.commit", onlyNewCommits)
+                        + " ORDER BY filcl.commit", afterLinkId);
+                ResultSet scmlog = selectCommits.executeQuery();
+                ResultSet actions = selectActions.executeQuery();
+                ResultSet lines = selectLines.executeQuery();
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(spill))) {
+
+            boolean hasAction = actions.next();
+            boolean hasLine = lines.next();
+            long offset = 0;
+
+            final Map<String, List<Object[]>> linesByPath = new HashMap<>();
+            final Map<String, CommitRow> rows = new LinkedHashMap<>();
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+            while (scmlog.next()) {
+                final int commitId = scmlog.getInt(1);
+
+                linesByPath.clear();
+                while (hasLine && lines.getInt(1) < commitId) {
+                    hasLine = lines.next();
+                }
+                while (hasLine && lines.getInt(1) == commitId) {
+                    final String key = collation.key(lines.getString(2));
+                    if (key != null) {
+                        List<Object[]> sameKey = linesByPath.get(key);
+                        if (sameKey == null) {
+                            sameKey = new ArrayList<>(1);
+                            linesByPath.put(key, sameKey);
+                        }
+                        sameKey.add(new Object[]{getInteger(lines, 3), getInteger(lines, 4)});
+                    }
+                    hasLine = lines.next();
+                }
+
+                rows.clear();
+                while (hasAction && actions.getInt(1) < commitId) {
+                    hasAction = actions.next();
+                }
+                while (hasAction && actions.getInt(1) == commitId) {
+                    final Integer fileId = getInteger(actions, 4);
+                    final FilePathHistory.FileLinks links = fileId == null || !fileNamePatterns.containsKey(fileId)
+                            ? null : history.get(fileId);
+                    if (links != null) {
+                        String[] keys = fileKeys.get(fileId);
+                        if (keys == null) {
+                            keys = qualifyingKeys(links, fileNamePatterns.get(fileId), collation);
+                            fileKeys.put(fileId, keys);
+                        }
+                        final String type = actions.getString(2);
+                        final Integer branchId = getInteger(actions, 3);
+                        // afill.commit_id <= s.id
+                        final int count = links.countAsOf(commitId);
+                        for (int i = 0; i < count; i++) {
+                            final List<Object[]> sameKey = keys[i] == null ? null : linesByPath.get(keys[i]);
+                            if (sameKey == null) {
+                                continue;
+                            }
+                            for (Object[] line : sameKey) {
+                                final CommitRow row = new CommitRow(type, branchId, fileId, links.getPath(i),
+                                        (Integer) line[0], (Integer) line[1]);
+                                // DISTINCT compares the columns with their collations
+                                final String distinct = (type == null ? null : collation.key(type)) + "|" + branchId
+                                        + "|" + fileId + "|" + keys[i] + "|" + line[0] + "|" + line[1];
+                                if (!rows.containsKey(distinct)) {
+                                    rows.put(distinct, row);
+                                }
+                            }
+                        }
+                    }
+                    hasAction = actions.next();
+                }
+
+                if (!rows.isEmpty()) {
+                    final String date = scmlog.getString(4);
+                    commits.add(new SpilledCommit(commitId, date, offset));
+                    block.reset();
+                    write(new DataOutputStream(block), commitId, scmlog.getString(2), getInteger(scmlog, 3), date,
+                            scmlog.getString(5), getInteger(scmlog, 6), rows.values());
+                    block.writeTo(out);
+                    offset += block.size();
+                }
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Keys of the links of a file that the join uses: the links of the
+     * commits in which a path of the file ends with the file name, except
+     * those whose key an earlier link already has.
+     *
+     * @return Key of each link, null for the links not used
+     */
+    static String[] qualifyingKeys(FilePathHistory.FileLinks links, String pattern, Collation collation) {
+        final String[] keys = new String[links.size()];
+        final Set<String> seen = new HashSet<>();
+        int groupStart = 0;
+        while (groupStart < links.size()) {
+            final int commitId = links.getCommitId(groupStart);
+            int groupEnd = groupStart;
+            boolean matches = false;
+            while (groupEnd < links.size() && links.getCommitId(groupEnd) == commitId) {
+                matches = matches || collation.like(links.getPath(groupEnd), pattern);
+                groupEnd++;
+            }
+            if (matches) {
+                for (int i = groupStart; i < groupEnd; i++) {
+                    final String key = collation.key(links.getPath(i));
+                    if (key != null && seen.add(key)) {
+                        keys[i] = key;
+                    }
+                }
+            }
+            groupStart = groupEnd;
+        }
+        return keys;
+    }
+
+    private int insert(List<SpilledCommit> commits, File spill) throws SQLException, IOException {
+        try (RandomAccessFile file = new RandomAccessFile(spill, "r");
+                BulkWriter insert = BulkWriter.open(conn, project + ".commits",
+                        new String[]{"commit_id", "rev", "committer_id", "date", "message", "repository_id",
+                            "action_type", "branch_id", "file_id", "file_path", "added_lines", "removed_lines"},
+                        false, batchSize)) {
+
+            for (SpilledCommit commit : commits) {
+                file.seek(commit.offset);
+                // the channel reads from the position of the file
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(file.getChannel())));
+                final int commitId = in.readInt();
+                final String rev = readString(in);
+                final Integer committerId = readInteger(in);
+                final String date = readString(in);
+                final String message = readString(in);
+                final Integer repositoryId = readInteger(in);
+                final int rows = in.readInt();
+                for (int i = 0; i < rows; i++) {
+                    insert.addRow(commitId, rev, committerId, date, message, repositoryId,
+                            readString(in), readInteger(in), in.readInt(), readString(in),
+                            readInteger(in), readInteger(in));
+                }
+            }
+            return insert.getRowCount();
+        }
+    }
+
+    /**
+     * @return Filter of the commits linked to issues
+     */
+    private String linkedCommits(String column, boolean onlyNewCommits) {
+        return column + " IN (SELECT DISTINCT(scmlog_id) FROM " + project + "_issues.issues_scmlog WHERE id > ?)"
+                + (onlyNewCommits
+                        ? " AND NOT EXISTS (SELECT 1 FROM " + project + ".commits com WHERE com.commit_id = " + column + ")"
+                        : "");
+    }
+
+    private PreparedStatement prepareCursor(String sql, int afterLinkId) throws SQLException {
+        final PreparedStatement statement = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(DEFAULT_FETCH_SIZE);
+        statement.setInt(1, afterLinkId);
+        return statement;
+    }
+
+    /**
+     * @return Collation of file_links.file_path, which the joins and DISTINCT
+     * on the path use
+     */
+    private Collation findCollation() throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT collation_name FROM information_schema.columns"
+                + " WHERE table_schema = ? AND table_name = 'file_links' AND column_name = 'file_path'")) {
+            statement.setString(1, project + "_vcs");
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? Collation.of(result.getString(1)) : Collation.CASE_INSENSITIVE;
+            }
+        }
+    }
+
+    /**
+     * @return Pattern "%file_name" of each file
+     */
+    private Map<Integer, String> loadFileNamePatterns() throws SQLException {
+        final Map<Integer, String> patterns = new HashMap<>();
+        try (Statement statement = conn.createStatement();
+                ResultSet files = statement.executeQuery("SELECT id, file_name FROM " + project + "_vcs.files")) {
+            while (files.next()) {
+                final String fileName = files.getString(2);
+                // CONCAT with NULL is NULL, and so is LIKE
+                patterns.put(files.getInt(1), fileName == null ? null : "%" + fileName);
+            }
+        }
+        return patterns;
+    }
+
+    private static void write(DataOutputStream out, int commitId, String rev, Integer committerId, String date,
+            String message, Integer repositoryId, Collection<CommitRow> rows) throws IOException {
+        out.writeInt(commitId);
+        writeString(out, rev);
+        writeInteger(out, committerId);
+        writeString(out, date);
+        writeString(out, message);
+        writeInteger(out, repositoryId);
+        out.writeInt(rows.size());
+        for (CommitRow row : rows) {
+            writeString(out, row.type);
+            writeInteger(out, row.branchId);
+            out.writeInt(row.fileId);
+            writeString(out, row.path);
+            writeInteger(out, row.added);
+            writeInteger(out, row.removed);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static Integer getInteger(ResultSet result, int column) throws SQLException {
+        final int value = result.getInt(column);
+        return result.wasNull() ? null : value;
+    }
+
+    private static class CommitRow {
+
+        final String type;
+        final Integer branchId;
+        final int fileId;
+        final String path;
+        final Integer added;
+        final Integer removed;
+
+        CommitRow(String type, Integer branchId, int fileId, String path, Integer added, Integer removed) {
+            this.type = type;
+            this.branchId = branchId;
+            this.fileId = fileId;
+            this.path = path;
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Position of the rows of a commit in the spill file.
+     */
+    private static class SpilledCommit {
+
+        /**
+         * ORDER BY date, NULL first, then by id
+         */
+        static final Comparator<SpilledCommit> BY_DATE = new Comparator<SpilledCommit>() {
+
+            @Override
+            public int compare(SpilledCommit o1, SpilledCommit o2) {
+                if (o1.date == null || o2.date == null) {
+                    if (o1.date != o2.date) {
+                        return o1.date == null ? -1 : 1;
+                    }
+                } else {
+                    final int compared = o1.date.compareTo(o2.date);
+                    if (compared != 0) {
+                        return compared;
+                    }
+                }
+                return Integer.compare(o1.id, o2.id);
+            }
+        };
+
+        final int id;
+        final String date;
+        final long offset;
+
+        SpilledCommit(int id, String date, long offset) {
+            this.id = id;
+            this.date = date;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paths of each file over the commits, read once from
+ * {0}_vcs.file_links: for each file id, its links sorted by commit id, so the
+ * paths of a file as of a commit are a prefix of them, found by binary search.
+ *
+ * Equal paths share the same String, as most files keep their path across
+ * many commits.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class FilePathHistory {
+
+    public static final int DEFAULT_FETCH_SIZE = 10000;
+
+    private final Map<Integer, FileLinks> files;
+    private final int linkCount;
+    private final int pathCount;
+
+    private FilePathHistory(Map<Integer, FileLinks> files, int linkCount, int pathCount) {
+        this.files = files;
+        this.linkCount = linkCount;
+        this.pathCount = pathCount;
+    }
+
+    /**
+     * Reads the links with a file and a commit, in the order of the table, and
+     * sorts them by commit in memory.
+     */
+    public static FilePathHistory load(Connection conn, String project) throws SQLException {
+        final Builder builder = new Builder();
+        try (Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(DEFAULT_FETCH_SIZE);
+            try (ResultSet links = statement.executeQuery(
+                    "SELECT file_id, commit_id, file_path FROM " + project + "_vcs.file_links"
+                    + " WHERE file_id IS NOT NULL AND commit_id IS NOT NULL")) {
+                while (links.next()) {
+                    builder.add(links.getInt(1), links.getInt(2), links.getString(3));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Links of the file, null if it has none
+     */
+    public FileLinks get(int fileId) {
+        return files.get(fileId);
+    }
+
+    /**
+     * @return Latest path of the file as of the commit (link with commit id
+     * less than or equal to it), null if the file had no link yet
+     */
+    public String getPathAsOf(int fileId, int commitId) {
+        final FileLinks links = files.get(fileId);
+        return links == null ? null : links.getPathAsOf(commitId);
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    /**
+     * @return Number of distinct paths stored
+     */
+    public int getPathCount() {
+        return pathCount;
+    }
+
+    /**
+     * Links of a file, sorted by commit id. The links of the same commit keep
+     * the order they were read.
+     */
+    public static class FileLinks {
+
+        private final int[] commitIds;
+        private final String[] paths;
+
+        FileLinks(int[] commitIds, String[] paths) {
+            this.commitIds = commitIds;
+            this.paths = paths;
+        }
+
+        public int size() {
+            return commitIds.length;
+        }
+
+        public int getCommitId(int index) {
+            return commitIds[index];
+        }
+
+        public String getPath(int index) {
+            return paths[index];
+        }
+
+        /**
+         * @return Number of links with commit id less than or equal to the
+         * commit, the links {@code 0..count - 1}
+         */
+        public int countAsOf(int commitId) {
+            int low = 0;
+            int high = commitIds.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (commitIds[middle] <= commitId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        public String getPathAsOf(int commitId) {
+            final int count = countAsOf(commitId);
+            return count == 0 ? null : paths[count - 1];
+        }
+    }
+
+    static class Builder {
+
+        private final Map<Integer, Appender> files = new HashMap<>();
+        private final Map<String, String> paths = new HashMap<>();
+        private int linkCount;
+
+        void add(int fileId, int commitId, String path) {
+            Appender appender = files.get(fileId);
+            if (appender == null) {
+                appender = new Appender();
+                files.put(fileId, appender);
+            }
+            appender.add(commitId, intern(path));
+            linkCount++;
+        }
+
+        private String intern(String path) {
+            if (path == null) {
+                return null;
+            }
+            final String interned = paths.get(path);
+            if (interned != null) {
+                return interned;
+            }
+            paths.put(path, path);
+            return path;
+        }
+
+        FilePathHistory build() {
+            final Map<Integer, FileLinks> built = new HashMap<>(files.size() * 4 / 3 + 1);
+            for (Map.Entry<Integer, Appender> file : files.entrySet()) {
+                built.put(file.getKey(), file.getValue().build());
+            }
+            return new FilePathHistory(built, linkCount, paths.size());
+        }
+    }
+
+    private static class Appender {
+
+        private int[] commitIds = new int[2];
+        private String[] paths = new String[2];
+        private int size;
+        private boolean sorted = true;
+
+        void add(int commitId, String path) {
+            if (size == commitIds.length) {
+                commitIds = Arrays.copyOf(commitIds, size * 2);
+                paths = Arrays.copyOf(paths, size * 2);
+            }
+            if (size > 0 && commitIds[size - 1] > commitId) {
+                sorted = false;
+            }
+            commitIds[size] = commitId;
+            paths[size] = path;
+            size++;
+        }
+
+        FileLinks build() {
+            if (sorted) {
+                return new FileLinks(Arrays.copyOf(commitIds, size), Arrays.copyOf(paths, size));
+            }
+            // stable, so the links of a commit keep the order they were read
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Integer.compare(commitIds[o1], commitIds[o2]);
+                }
+            });
+            final int[] sortedCommitIds = new int[size];
+            final String[] sortedPaths = new String[size];
+            for (int i = 0; i < size; i++) {
+                sortedCommitIds[i] = commitIds[order[i]];
+                sortedPaths[i] = paths[order[i]];
+            }
+            return new FileLinks(sortedCommitIds, sortedPaths);
+        }
+    }
+}
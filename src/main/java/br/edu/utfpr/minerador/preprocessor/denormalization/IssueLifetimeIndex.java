@@ -0,0 +1,242 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Lifetimes of issues, from submitted_on to fixed_on, to find the issues open
+ * at a time: those with submitted_on &lt; time &lt; fixed_on, as the
+ * "s.date &gt; i.submitted_on AND s.date &lt; i.fixed_on" filter of
+ * issues_to_analyze.
+ *
+ * {@link #openAt(long)} answers a single time with a tree over the lifetimes
+ * sorted by start, augmented with the latest end of each subtree. A
+ * {@link Sweep} answers times in increasing order (e.g. commits by date)
+ * from the starts and the ends sorted, in constant amortized time per
+ * lifetime.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueLifetimeIndex {
+
+    // sorted by start
+    private final int[] issueIds;
+    private final long[] starts;
+    private final long[] ends;
+    // latest end of the subtree whose root is the index, see build
+    private final long[] maxEnds;
+    // positions sorted by end
+    private final int[] byEnd;
+    // issue ids sorted, and their positions
+    private final int[] sortedIssueIds;
+    private final int[] positionsOfSorted;
+
+    private IssueLifetimeIndex(int[] issueIds, long[] starts, long[] ends) {
+        this.issueIds = issueIds;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[issueIds.length];
+        buildMaxEnds(0, issueIds.length);
+
+        this.byEnd = sortedPositions(new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(IssueLifetimeIndex.this.ends[o1], IssueLifetimeIndex.this.ends[o2]);
+            }
+        });
+        this.positionsOfSorted = sortedPositions(new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Integer.compare(IssueLifetimeIndex.this.issueIds[o1], IssueLifetimeIndex.this.issueIds[o2]);
+            }
+        });
+        this.sortedIssueIds = new int[issueIds.length];
+        for (int i = 0; i < issueIds.length; i++) {
+            sortedIssueIds[i] = issueIds[positionsOfSorted[i]];
+        }
+    }
+
+    public int size() {
+        return issueIds.length;
+    }
+
+    /**
+     * @return Ids of the issues open at the time, in order of submission
+     */
+    public int[] openAt(long time) {
+        final IntList open = new IntList();
+        collectOpen(0, issueIds.length, time, open);
+        return open.toArray();
+    }
+
+    private void collectOpen(int low, int high, long time, IntList open) {
+        if (low >= high) {
+            return;
+        }
+        final int middle = (low + high) >>> 1;
+        if (maxEnds[middle] <= time) {
+            return;
+        }
+        collectOpen(low, middle, time, open);
+        // the right subtree starts at or after the middle
+        if (starts[middle] < time) {
+            if (ends[middle] > time) {
+                open.add(issueIds[middle]);
+            }
+            collectOpen(middle + 1, high, time, open);
+        }
+    }
+
+    private long buildMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Long.MIN_VALUE;
+        }
+        final int middle = (low + high) >>> 1;
+        maxEnds[middle] = Math.max(ends[middle], Math.max(buildMaxEnds(low, middle), buildMaxEnds(middle + 1, high)));
+        return maxEnds[middle];
+    }
+
+    private int[] sortedPositions(Comparator<Integer> comparator) {
+        final Integer[] positions = new Integer[issueIds.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, comparator);
+        final int[] sorted = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sorted[i] = positions[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return New sweep, before all lifetimes
+     */
+    public Sweep sweep() {
+        return new Sweep();
+    }
+
+    /**
+     * Issues open at times in increasing order. Each lifetime opens and
+     * closes once over the whole sweep.
+     */
+    public class Sweep {
+
+        private final boolean[] open = new boolean[issueIds.length];
+        private int nextStart;
+        private int nextEnd;
+        private int openCount;
+        private long time = Long.MIN_VALUE;
+
+        /**
+         * @param time Not before the time of the previous call
+         */
+        public void advanceTo(long time) {
+            if (time < this.time) {
+                throw new IllegalArgumentException("Sweep cannot go back from " + this.time + " to " + time + ".");
+            }
+            this.time = time;
+            // a lifetime started and ended between two times is never open
+            for (; nextStart < starts.length && starts[nextStart] < time; nextStart++) {
+                if (ends[nextStart] > time) {
+                    open[nextStart] = true;
+                    openCount++;
+                }
+            }
+            while (nextEnd < byEnd.length && ends[byEnd[nextEnd]] <= time) {
+                if (open[byEnd[nextEnd]]) {
+                    open[byEnd[nextEnd]] = false;
+                    openCount--;
+                }
+                nextEnd++;
+            }
+        }
+
+        /**
+         * @return True if the issue is open at the current time, false if it
+         * is closed or not in the index
+         */
+        public boolean isOpen(int issueId) {
+            final int sorted = Arrays.binarySearch(sortedIssueIds, issueId);
+            return sorted >= 0 && open[positionsOfSorted[sorted]];
+        }
+
+        public int getOpenCount() {
+            return openCount;
+        }
+    }
+
+    public static class Builder {
+
+        private final IntList issueIds = new IntList();
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+
+        /**
+         * @param submittedOn Start of the lifetime, exclusive
+         * @param fixedOn End of the lifetime, exclusive
+         */
+        public Builder add(int issueId, long submittedOn, long fixedOn) {
+            final int size = issueIds.size();
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            issueIds.add(issueId);
+            starts[size] = submittedOn;
+            ends[size] = fixedOn;
+            return this;
+        }
+
+        public IssueLifetimeIndex build() {
+            final int size = issueIds.size();
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Long.compare(starts[o1], starts[o2]);
+                }
+            });
+            final int[] sortedIssueIds = new int[size];
+            final long[] sortedStarts = new long[size];
+            final long[] sortedEnds = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedIssueIds[i] = issueIds.get(order[i]);
+                sortedStarts[i] = starts[order[i]];
+                sortedEnds[i] = ends[order[i]];
+            }
+            return new IssueLifetimeIndex(sortedIssueIds, sortedStarts, sortedEnds);
+        }
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import br.edu.utfpr.minerador.preprocessor.database.BulkWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills {0}.issues_to_analyze with the issues fixed by linked commits that
+ * changed source or configuration files, the same rows of:
+ *
+ * <pre>
+ * SELECT DISTINCT i.fixed_on, i.id
+ *   FROM issues i
+ *   JOIN changes c ON c.issue_id = i.id
+ *   JOIN issues_scmlog i2s ON i2s.issue_id = i.id
+ *   JOIN issues_fix_version ifv ON ifv.issue_id = i2s.issue_id
+ *   JOIN issues_ext_jira iej ON iej.issue_id = i.id
+ *   JOIN scmlog s ON s.id = i2s.scmlog_id
+ *   JOIN commits com ON com.commit_id = i2s.scmlog_id
+ *  WHERE i.fixed_on IS NOT NULL
+ *    AND s.date &gt; i.submitted_on AND s.date &lt; i.fixed_on
+ *    AND ...
+ *  ORDER BY i.fixed_on ASC
+ * </pre>
+ *
+ * Instead of joining every link to its commit and comparing dates row by row,
+ * the lifetimes of the candidate issues are put in an
+ * {@link IssueLifetimeIndex}, and the candidate commits are swept in date
+ * order: an issue is analyzed if one of the commits linked to it is made while
+ * it is open.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssuesToAnalyzeBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(IssuesToAnalyzeBuilder.class);
+
+    public static final int DEFAULT_FETCH_SIZE = 10000;
+
+    private final Connection conn;
+    private final String project;
+
+    public IssuesToAnalyzeBuilder(Connection conn, String project) {
+        this.conn = conn;
+        this.project = project;
+    }
+
+    /**
+     * Rebuilds {0}.issues_to_analyze.
+     *
+     * @return Number of rows inserted
+     */
+    public int build() throws SQLException {
+        final long start = System.currentTimeMillis();
+        final Map<Integer, Issue> issues = loadIssues();
+        final IssueLifetimeIndex.Builder builder = new IssueLifetimeIndex.Builder();
+        for (Issue issue : issues.values()) {
+            builder.add(issue.id, issue.submittedOn, issue.fixedOn);
+        }
+        final IssueLifetimeIndex index = builder.build();
+        log.info("Indexed the lifetimes of " + index.size() + " fixed issues.");
+
+        final Map<Integer, List<Integer>> links = loadLinks(issues.keySet());
+        final Set<Integer> analyzed = sweepCommits(index, links);
+
+        final List<Issue> rows = new ArrayList<>(analyzed.size());
+        for (Integer issueId : analyzed) {
+            rows.add(issues.get(issueId));
+        }
+        Collections.sort(rows, Issue.BY_FIXED_ON);
+
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("TRUNCATE TABLE " + project + ".issues_to_analyze");
+        }
+        try (BulkWriter writer = BulkWriter.open(conn, project + ".issues_to_analyze", false,
+                "fixed_date", "issue_id")) {
+            for (Issue issue : rows) {
+                writer.addRow(issue.fixedDate, issue.id);
+            }
+        }
+
+        log.info("Inserted " + rows.size() + " rows into " + project + ".issues_to_analyze in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+        return rows.size();
+    }
+
+    /**
+     * Issues fixed, with a resolution change, fix versions and Jira fields.
+     * Issues without submission date are never open. The tables are read by
+     * semi-joins, not a subquery per issue.
+     */
+    private Map<Integer, Issue> loadIssues() throws SQLException {
+        final String issues = project + "_issues.";
+        final Map<Integer, Issue> candidates = new HashMap<>();
+        try (Statement statement = createStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT i.id, i.submitted_on, i.fixed_on, i.fixed_on FROM " + issues + "issues i"
+                        + " WHERE i.fixed_on IS NOT NULL"
+                        + " AND i.submitted_on IS NOT NULL"
+                        + " AND i.resolution = 'Fixed'"
+                        + " AND i.id IN (SELECT c.issue_id FROM " + issues + "changes c"
+                        + " WHERE c.field = 'Resolution' AND c.new_value = 'Fixed')"
+                        + " AND i.id IN (SELECT ifv.issue_id FROM " + issues + "issues_fix_version ifv)"
+                        + " AND i.id IN (SELECT iej.issue_id FROM " + issues + "issues_ext_jira iej)")) {
+            while (result.next()) {
+                final int id = result.getInt(1);
+                final Timestamp submittedOn = result.getTimestamp(2);
+                final Timestamp fixedOn = result.getTimestamp(3);
+                candidates.put(id, new Issue(id, submittedOn.getTime(), fixedOn.getTime(), result.getString(4)));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return Candidate issues linked to each commit
+     */
+    private Map<Integer, List<Integer>> loadLinks(Set<Integer> issueIds) throws SQLException {
+        final Map<Integer, List<Integer>> links = new HashMap<>();
+        try (Statement statement = createStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT scmlog_id, issue_id FROM " + project + "_issues.issues_scmlog")) {
+            while (result.next()) {
+                final int commitId = result.getInt(1);
+                final int issueId = result.getInt(2);
+                if (!issueIds.contains(issueId)) {
+                    continue;
+                }
+                List<Integer> commitIssues = links.get(commitId);
+                if (commitIssues == null) {
+                    commitIssues = new ArrayList<>(1);
+                    links.put(commitId, commitIssues);
+                }
+                commitIssues.add(issueId);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Sweeps the commits that changed from 1 to 20 files, with a source or
+     * configuration file in {0}.commits (only linked commits), in date order.
+     *
+     * @return Issues open at one of their commits
+     */
+    private Set<Integer> sweepCommits(IssueLifetimeIndex index, Map<Integer, List<Integer>> links)
+            throws SQLException {
+        final Set<Integer> analyzed = new HashSet<>();
+        final IssueLifetimeIndex.Sweep sweep = index.sweep();
+        try (Statement statement = createStatement();
+                ResultSet result = statement.executeQuery(
+                        "SELECT DISTINCT s.id, s.date FROM " + project + ".commits com"
+                        + " JOIN " + project + "_vcs.scmlog s ON s.id = com.commit_id"
+                        + " WHERE s.num_files <= 20 AND s.num_files > 0 AND s.date IS NOT NULL"
+                        + " AND (com.file_path LIKE '%.xml' OR com.file_path LIKE '%.java')"
+                        + " AND com.file_path NOT LIKE '%Test.java'"
+                        + " AND com.file_path NOT LIKE '%_test.java'"
+                        + " ORDER BY s.date")) {
+            while (result.next()) {
+                final List<Integer> commitIssues = links.get(result.getInt(1));
+                if (commitIssues == null) {
+                    continue;
+                }
+                sweep.advanceTo(result.getTimestamp(2).getTime());
+                for (Integer issueId : commitIssues) {
+                    if (sweep.isOpen(issueId)) {
+                        analyzed.add(issueId);
+                    }
+                }
+            }
+        }
+        return analyzed;
+    }
+
+    private Statement createStatement() throws SQLException {
+        final Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(DEFAULT_FETCH_SIZE);
+        return statement;
+    }
+
+    private static class Issue {
+
+        static final Comparator<Issue> BY_FIXED_ON = new Comparator<Issue>() {
+
+            @Override
+            public int compare(Issue o1, Issue o2) {
+                final int compare = Long.compare(o1.fixedOn, o2.fixedOn);
+                return compare != 0 ? compare : Integer.compare(o1.id, o2.id);
+            }
+        };
+
+        final int id;
+        final long submittedOn;
+        final long fixedOn;
+        // as read, so it is written unchanged
+        final String fixedDate;
+
+        Issue(int id, long submittedOn, long fixedOn, String fixedDate) {
+            this.id = id;
+            this.submittedOn = submittedOn;
+            this.fixedOn = fixedOn;
+            this.fixedDate = fixedDate;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count of events (e.g. commits scanned), incremented from any thread, and its
+ * mean rate since the counter was created.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+    private final long startNanos = System.nanoTime();
+
+    public void inc() {
+        count.increment();
+    }
+
+    public void inc(long n) {
+        count.add(n);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Events per second since the counter was created
+     */
+    public double getMeanRate() {
+        final long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : getCount() * 1e9 / elapsed;
+    }
+
+    /**
+     * @return count and rate_per_sec
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", getCount());
+        values.put("rate_per_sec", getMeanRate());
+        return values;
+    }
+}
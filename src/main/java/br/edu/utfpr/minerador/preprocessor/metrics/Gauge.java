@@ -0,0 +1,11 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+/**
+ * Value read when the metrics are (e.g. connections in use).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public interface Gauge<T> {
+
+    T getValue();
+}
@@ -0,0 +1,134 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes a {@link MetricRegistry} as one MBean (e.g. to jconsole or
+ * VisualVM), with a read-only attribute per value: the gauges by their name,
+ * counters and timers by their name and field (e.g.
+ * "derby.stage.linking.p95_ms"). The attributes follow the metrics registered
+ * while the run goes on.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class JmxExporter implements DynamicMBean {
+
+    public static final String DEFAULT_NAME = "br.edu.utfpr.minerador.preprocessor:type=Metrics";
+
+    private final MetricRegistry metrics;
+    private final ObjectName name;
+    private final MBeanServer server;
+
+    private JmxExporter(MetricRegistry metrics, ObjectName name, MBeanServer server) {
+        this.metrics = metrics;
+        this.name = name;
+        this.server = server;
+    }
+
+    /**
+     * Registers the registry in the platform MBean server, replacing the MBean
+     * of the same name.
+     */
+    public static JmxExporter register(MetricRegistry metrics, String name) throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(name);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        final JmxExporter exporter = new JmxExporter(metrics, objectName, server);
+        server.registerMBean(exporter, objectName);
+        return exporter;
+    }
+
+    public void unregister() throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    public ObjectName getName() {
+        return name;
+    }
+
+    /**
+     * @return Current values, the maps of counters and timers flattened
+     */
+    SortedMap<String, Object> getAttributes() {
+        final SortedMap<String, Object> attributes = new TreeMap<>();
+        for (Map.Entry<String, Object> value : metrics.getValues().entrySet()) {
+            if (value.getValue() instanceof Map) {
+                for (Map.Entry<?, ?> field : ((Map<?, ?>) value.getValue()).entrySet()) {
+                    attributes.put(value.getKey() + "." + field.getKey(), field.getValue());
+                }
+            } else {
+                attributes.put(value.getKey(), value.getValue());
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        final SortedMap<String, Object> attributes = getAttributes();
+        if (!attributes.containsKey(attribute)) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return attributes.get(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        final SortedMap<String, Object> attributes = getAttributes();
+        final AttributeList list = new AttributeList();
+        for (String attribute : names) {
+            if (attributes.containsKey(attribute)) {
+                list.add(new Attribute(attribute, attributes.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only.");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final List<MBeanAttributeInfo> infos = new ArrayList<>();
+        for (Map.Entry<String, Object> attribute : getAttributes().entrySet()) {
+            final Object value = attribute.getValue();
+            infos.add(new MBeanAttributeInfo(attribute.getKey(),
+                    value == null ? Object.class.getName() : value.getClass().getName(),
+                    attribute.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Metrics of the preprocessor",
+                infos.toArray(new MBeanAttributeInfo[infos.size()]), null, new MBeanOperationInfo[0], null);
+    }
+}
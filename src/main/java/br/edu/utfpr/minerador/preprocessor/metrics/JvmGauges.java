@@ -0,0 +1,79 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Gauges of the JVM: heap in use, its high-water mark and the time spent in
+ * garbage collection.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class JvmGauges {
+
+    private JvmGauges() {
+    }
+
+    public static void register(MetricRegistry metrics) {
+        metrics.register("jvm.heap.used_bytes", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            }
+        });
+        metrics.register("jvm.heap.max_bytes", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+            }
+        });
+        metrics.register("jvm.heap.peak_used_bytes", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return getHeapPeakUsed();
+            }
+        });
+        metrics.register("jvm.gc.count", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                long count = 0;
+                for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                    count += Math.max(0, collector.getCollectionCount());
+                }
+                return count;
+            }
+        });
+        metrics.register("jvm.gc.time_ms", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                long time = 0;
+                for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                    time += Math.max(0, collector.getCollectionTime());
+                }
+                return time;
+            }
+        });
+    }
+
+    /**
+     * @return Sum of the peak usage of the heap pools since the JVM started.
+     * The pools peak at different times, so it is an upper bound of the
+     * high-water mark of the heap.
+     */
+    public static long getHeapPeakUsed() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
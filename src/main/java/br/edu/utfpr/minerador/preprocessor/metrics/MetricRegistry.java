@@ -0,0 +1,112 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metrics of a run by name, e.g. "derby.stage.linking" or
+ * "bulk.derby_issues.issues_scmlog.batch". The names are dot-separated,
+ * starting by the project when the metric is of a project.
+ *
+ * The stages record into the {@link #getDefault() default registry}, which
+ * Main exports over JMX while the run goes on (see {@link JmxExporter}) and
+ * writes as a JSON report at the end (see {@link MetricsReport}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class MetricRegistry {
+
+    private static final MetricRegistry DEFAULT = new MetricRegistry();
+
+    private final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<>();
+
+    public static MetricRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return Counter of the name, created on the first call
+     */
+    public Counter counter(String name) {
+        return getOrAdd(name, Counter.class);
+    }
+
+    /**
+     * @return Timer of the name, created on the first call
+     */
+    public Timer timer(String name) {
+        return getOrAdd(name, Timer.class);
+    }
+
+    /**
+     * Registers the gauge, replacing the previous gauge of the name (e.g. of a
+     * previous project).
+     */
+    public <T> Gauge<T> register(String name, Gauge<T> gauge) {
+        final Object previous = metrics.put(name, gauge);
+        if (previous != null && !(previous instanceof Gauge)) {
+            metrics.put(name, previous);
+            throw new IllegalArgumentException(name + " is already a " + previous.getClass().getSimpleName() + ".");
+        }
+        return gauge;
+    }
+
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    /**
+     * @return Metrics sorted by name
+     */
+    public SortedMap<String, Object> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
+    /**
+     * @return Current value of each metric, sorted by name: the value of the
+     * gauges and the {@code toMap()} of counters and timers. A gauge that
+     * fails is null.
+     */
+    public SortedMap<String, Object> getValues() {
+        final SortedMap<String, Object> values = new TreeMap<>();
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            values.put(metric.getKey(), valueOf(metric.getValue()));
+        }
+        return values;
+    }
+
+    static Object valueOf(Object metric) {
+        if (metric instanceof Counter) {
+            return ((Counter) metric).toMap();
+        }
+        if (metric instanceof Timer) {
+            return ((Timer) metric).toMap();
+        }
+        try {
+            return ((Gauge<?>) metric).getValue();
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param type Counter or Timer
+     */
+    private <T> T getOrAdd(String name, Class<T> type) {
+        Object metric = metrics.get(name);
+        if (metric == null) {
+            final Object created = type == Counter.class ? new Counter() : new Timer();
+            metric = metrics.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(name + " is already a " + metric.getClass().getSimpleName() + ".");
+        }
+        return type.cast(metric);
+    }
+}
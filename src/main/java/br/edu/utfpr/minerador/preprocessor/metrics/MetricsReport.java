@@ -0,0 +1,126 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON report of a run, to compare runs across projects and releases:
+ *
+ * <pre>
+ * {
+ *   "run": {"started": "...", "seconds": 1234, "projects": [...]},
+ *   "metrics": {
+ *     "derby.stage.linking": {"count": 1, "total_ms": ..., "p95_ms": ...},
+ *     "jvm.heap.peak_used_bytes": 123456789,
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class MetricsReport {
+
+    private MetricsReport() {
+    }
+
+    /**
+     * @param run Fields of the run: strings, numbers, booleans, maps and
+     * collections of them
+     */
+    public static void write(File file, Map<String, Object> run, MetricRegistry metrics) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson(run, metrics));
+            writer.write('\n');
+        }
+    }
+
+    public static String toJson(Map<String, Object> run, MetricRegistry metrics) {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("run", run);
+        report.put("metrics", metrics.getValues());
+        final StringBuilder json = new StringBuilder();
+        append(json, report, "");
+        return json.toString();
+    }
+
+    static void append(StringBuilder json, Object value, String indent) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            if (map.isEmpty()) {
+                json.append("{}");
+                return;
+            }
+            json.append("{\n");
+            final Iterator<? extends Map.Entry<?, ?>> entries = map.entrySet().iterator();
+            while (entries.hasNext()) {
+                final Map.Entry<?, ?> entry = entries.next();
+                json.append(indent).append("  ");
+                appendString(json, String.valueOf(entry.getKey()));
+                json.append(": ");
+                append(json, entry.getValue(), indent + "  ");
+                json.append(entries.hasNext() ? ",\n" : "\n");
+            }
+            json.append(indent).append('}');
+        } else if (value instanceof Collection) {
+            json.append('[');
+            final Iterator<?> items = ((Collection<?>) value).iterator();
+            while (items.hasNext()) {
+                append(json, items.next(), indent);
+                if (items.hasNext()) {
+                    json.append(", ");
+                }
+            }
+            json.append(']');
+        } else if (value instanceof Double || value instanceof Float) {
+            final double number = ((Number) value).doubleValue();
+            // NaN and infinities are not JSON
+            json.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : String.valueOf(number));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char character = value.charAt(i);
+            switch (character) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        json.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        json.append(character);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
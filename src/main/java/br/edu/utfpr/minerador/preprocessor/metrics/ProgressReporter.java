@@ -0,0 +1,212 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the progress of a long-running stage every few seconds, e.g.
+ *
+ * <pre>
+ * derby.linking: 12000 of 50000 commits (24.0%), 1500 commits/s, ETA 25 secs
+ * </pre>
+ *
+ * The throughput is of the last interval and the ETA is from the mean
+ * throughput of the stage. The progress is also published as the gauge
+ * "&lt;name&gt;.progress" of the default {@link MetricRegistry}, which keeps
+ * the last values after the stage.
+ *
+ * All reporters share one daemon thread, which reads the processed count from
+ * a {@link Gauge}, so the stage only keeps its count up to date.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ProgressReporter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressReporter.class);
+
+    public static final long DEFAULT_INTERVAL_SECONDS = 5;
+    /**
+     * Unit formatted as KB, MB, etc.
+     */
+    public static final String BYTES = "bytes";
+
+    private static ScheduledExecutorService scheduler;
+
+    private final String name;
+    private final String unit;
+    private final long total;
+    private final Gauge<? extends Number> processed;
+    private final Gauge<String> detail;
+    private final long startNanos = System.nanoTime();
+    private ScheduledFuture<?> future;
+
+    private long lastNanos = startNanos;
+    private long lastProcessed;
+    private Map<String, Object> values = new LinkedHashMap<>();
+
+    private ProgressReporter(String name, String unit, long total, Gauge<? extends Number> processed,
+            Gauge<String> detail) {
+        this.name = name;
+        this.unit = unit;
+        this.total = total;
+        this.processed = processed;
+        this.detail = detail;
+    }
+
+    /**
+     * @param name E.g. "derby.linking"
+     * @param unit E.g. "commits" or {@link #BYTES}
+     * @param total Units of the stage, 0 or less if unknown
+     * @param processed Units processed so far, read from the reporter thread
+     */
+    public static ProgressReporter start(String name, String unit, long total, Gauge<? extends Number> processed) {
+        return start(name, unit, total, processed, null, DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param detail Appended to each report (e.g. the running statements), may
+     * be null
+     */
+    public static ProgressReporter start(String name, String unit, long total, Gauge<? extends Number> processed,
+            Gauge<String> detail, long interval, TimeUnit intervalUnit) {
+        final ProgressReporter reporter = new ProgressReporter(name, unit, total, processed, detail);
+        MetricRegistry.getDefault().register(name + ".progress", new Gauge<Map<String, Object>>() {
+
+            @Override
+            public Map<String, Object> getValue() {
+                return reporter.getValues();
+            }
+        });
+        reporter.future = getScheduler().scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    log.info(reporter.report());
+                } catch (RuntimeException ex) {
+                    log.debug("Error to report the progress of " + reporter.name + ".", ex);
+                }
+            }
+        }, interval, interval, intervalUnit);
+        return reporter;
+    }
+
+    private static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "progress-reporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+    /**
+     * @return Line of the current progress
+     */
+    synchronized String report() {
+        final long now = System.nanoTime();
+        final long current = processed.getValue().longValue();
+        final double rate = now > lastNanos ? (current - lastProcessed) * 1e9 / (now - lastNanos) : 0;
+        final double meanRate = now > startNanos ? current * 1e9 / (now - startNanos) : 0;
+        final long eta = total > 0 && meanRate > 0 ? (long) Math.ceil(Math.max(0, total - current) / meanRate) : -1;
+        lastNanos = now;
+        lastProcessed = current;
+
+        final Map<String, Object> updated = new LinkedHashMap<>();
+        updated.put("processed", current);
+        updated.put("total", total);
+        updated.put("rate_per_sec", rate);
+        updated.put("eta_secs", eta);
+        values = updated;
+
+        final String line = format(name, unit, current, total, rate, eta);
+        final String running = detail == null ? null : detail.getValue();
+        return running == null || running.isEmpty() ? line : line + ", " + running;
+    }
+
+    synchronized Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Stops the reports and logs the last one.
+     */
+    @Override
+    public void close() {
+        future.cancel(false);
+        final String line = report();
+        log.info(line + " (finished in " + formatDuration((System.nanoTime() - startNanos) / 1000000000L) + ")");
+    }
+
+    /**
+     * @param eta Seconds, negative if unknown
+     */
+    static String format(String name, String unit, long processed, long total, double rate, long eta) {
+        final StringBuilder line = new StringBuilder(name).append(": ");
+        if (total <= 0) {
+            line.append(formatAmount(processed, unit));
+        } else {
+            // "12000 of 50000 commits", but "1.5 MB of 3.0 GB"
+            line.append(BYTES.equals(unit) ? formatBytes(processed) : String.valueOf(processed))
+                    .append(" of ").append(formatAmount(total, unit))
+                    .append(String.format(Locale.ROOT, " (%.1f%%)", Math.min(100.0, processed * 100.0 / total)));
+        }
+        line.append(", ").append(formatRate(rate, unit));
+        if (eta >= 0 && processed < total) {
+            line.append(", ETA ").append(formatDuration(eta));
+        }
+        return line.toString();
+    }
+
+    static String formatAmount(long amount, String unit) {
+        return BYTES.equals(unit) ? formatBytes(amount) : amount + " " + unit;
+    }
+
+    static String formatRate(double rate, String unit) {
+        if (BYTES.equals(unit)) {
+            return formatBytes((long) rate) + "/s";
+        }
+        return String.format(Locale.ROOT, rate < 10 ? "%.1f %s/s" : "%.0f %s/s", rate, unit);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        final String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int index = -1;
+        while (value >= 1024 && index < units.length - 1) {
+            value /= 1024;
+            index++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[index]);
+    }
+
+    /**
+     * @return E.g. "45 secs", "3 min 05 secs" or "2 h 10 min"
+     */
+    static String formatDuration(long seconds) {
+        if (seconds < 60) {
+            return seconds + " secs";
+        }
+        if (seconds < 3600) {
+            return String.format(Locale.ROOT, "%d min %02d secs", seconds / 60, seconds % 60);
+        }
+        return String.format(Locale.ROOT, "%d h %02d min", seconds / 3600, seconds % 3600 / 60);
+    }
+}
@@ -0,0 +1,164 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durations of an operation (e.g. an INSERT batch), recorded from any thread:
+ * their count, total, maximum and a histogram for the percentiles.
+ *
+ * The histogram splits each power of two into 4 buckets, so a percentile is
+ * off by at most a quarter of its value, in constant memory.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Timer {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @return Context whose {@link Context#stop()} or close records the time
+     * since now
+     */
+    public Context time() {
+        return new Context(this);
+    }
+
+    public void update(long duration, TimeUnit unit) {
+        update(unit.toNanos(duration));
+    }
+
+    public void update(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        count.increment();
+        totalNanos.add(nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return Greatest value of the bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        final long n = getCount();
+        return n == 0 ? 0 : (double) getTotalNanos() / n;
+    }
+
+    /**
+     * @param quantile From 0 to 1 (e.g. 0.95)
+     * @return Upper bound of the bucket of the quantile, at most the maximum
+     */
+    public long getPercentileNanos(double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * @return count, total_ms, mean_ms, p50_ms, p95_ms, p99_ms and max_ms
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", getCount());
+        values.put("total_ms", toMillis(getTotalNanos()));
+        values.put("mean_ms", toMillis(getMeanNanos()));
+        values.put("p50_ms", toMillis(getPercentileNanos(0.5)));
+        values.put("p95_ms", toMillis(getPercentileNanos(0.95)));
+        values.put("p99_ms", toMillis(getPercentileNanos(0.99)));
+        values.put("max_ms", toMillis(getMaxNanos()));
+        return values;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    public static class Context implements AutoCloseable {
+
+        private final Timer timer;
+        private final long startNanos = System.nanoTime();
+        private boolean stopped;
+
+        Context(Timer timer) {
+            this.timer = timer;
+        }
+
+        /**
+         * Records the time once.
+         *
+         * @return Nanoseconds since the context was created
+         */
+        public long stop() {
+            final long elapsed = System.nanoTime() - startNanos;
+            if (!stopped) {
+                stopped = true;
+                timer.update(elapsed);
+            }
+            return elapsed;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
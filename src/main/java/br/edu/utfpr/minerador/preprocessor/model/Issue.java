@@ -0,0 +1,60 @@
+package br.edu.utfpr.minerador.preprocessor.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class Issue {
+
+    private final Integer id;
+    private final String fixVersion;
+
+    public Issue(Integer id, String fixVersion) {
+        this.id = id;
+        this.fixVersion = fixVersion;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * @return Comma separated fix versions (e.g. "1.1,1.2"), or null when the
+     * issue tracker has no fix version (Bugzilla).
+     */
+    public String getFixVersion() {
+        return fixVersion;
+    }
+
+    public List<String> getFixVersions() {
+        if (fixVersion == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(fixVersion.split(","));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 97 * hash + Objects.hashCode(this.id);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Issue other = (Issue) obj;
+        return Objects.equals(this.id, other.id);
+    }
+
+}
@@ -0,0 +1,143 @@
+package br.edu.utfpr.minerador.preprocessor.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Version (e.g. "1.21-M2") parsed once into its dot-separated components.
+ * Each component has a number (the text before the first "-", 9999 if it is
+ * not a number) and, if it contains "-", a qualifier (the whole component).
+ *
+ * Versions are compared component by component, up to the shorter one:
+ * qualified components by their text, the others by their numbers. So
+ * "1.1" = "1.1.1", and "1.21-M1" &lt; "1.21-M2" &lt; "1-win" &lt; "2.0". The
+ * order is not consistent with equals, which compares the text.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public final class Version implements Comparable<Version> {
+
+    /**
+     * Number of a component that is not a number (e.g. "win" or "")
+     */
+    public static final int NOT_A_NUMBER = 9999;
+
+    private static final ConcurrentMap<String, Version> CACHE = new ConcurrentHashMap<>();
+
+    private final String text;
+    private final String minorVersion;
+    private final String majorVersion;
+    private final int[] numbers;
+    /**
+     * Component of the qualified components, null for the others
+     */
+    private final String[] qualifiers;
+
+    private Version(String text) {
+        this.text = text;
+
+        final String[] components = text.split("[.]");
+        minorVersion = components.length > 2 ? components[0] + "." + components[1] : text;
+        majorVersion = components.length > 1 ? components[0] : text;
+        numbers = new int[components.length];
+        qualifiers = new String[components.length];
+        for (int i = 0; i < components.length; i++) {
+            numbers[i] = parseNumber(components[i]);
+            if (components[i].contains("-")) {
+                qualifiers[i] = components[i];
+            }
+        }
+    }
+
+    /**
+     * @return The parsed version, the same instance for the same text
+     */
+    public static Version of(String text) {
+        final Version cached = CACHE.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        final Version version = new Version(text);
+        final Version previous = CACHE.putIfAbsent(text, version);
+        return previous == null ? version : previous;
+    }
+
+    @Override
+    public int compareTo(Version other) {
+        final int length = Math.min(numbers.length, other.numbers.length);
+        for (int i = 0; i < length; i++) {
+            if (qualifiers[i] != null && other.qualifiers[i] != null) {
+                final int compared = qualifiers[i].compareTo(other.qualifiers[i]);
+                if (compared != 0) {
+                    return compared < 0 ? -1 : 1;
+                }
+            } else if (numbers[i] != other.numbers[i]) {
+                return numbers[i] < other.numbers[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return E.g. "1.1" for "1.1.1", the version itself if it has up to two
+     * components
+     */
+    public String getMinorVersion() {
+        return minorVersion;
+    }
+
+    /**
+     * @return E.g. "1" for "1.1.1", the version itself if it has one
+     * component
+     */
+    public String getMajorVersion() {
+        return majorVersion;
+    }
+
+    public int size() {
+        return numbers.length;
+    }
+
+    /**
+     * @return Number of the component, {@link #NOT_A_NUMBER} if it is not a
+     * number
+     */
+    public int getNumber(int component) {
+        return numbers[component];
+    }
+
+    /**
+     * @return The component, if it contains "-" (e.g. "21-M2"), otherwise
+     * null
+     */
+    public String getQualifier(int component) {
+        return qualifiers[component];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Version && text.equals(((Version) obj).text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * @return Number before the first "-" (e.g. 21 for "21-M2")
+     */
+    private static int parseNumber(String component) {
+        final int dash = component.indexOf('-');
+        try {
+            return Integer.parseInt(dash < 0 ? component : component.substring(0, dash));
+        } catch (NumberFormatException ex) {
+            return NOT_A_NUMBER;
+        }
+    }
+}
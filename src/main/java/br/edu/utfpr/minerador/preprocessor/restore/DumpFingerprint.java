@@ -0,0 +1,67 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Cheap identity of a dump file: its size, last modification time and a MD5
+ * of its first and last megabyte. Hashing the whole file would cost as much
+ * as reading it for a restore; a changed dump almost always differs in size
+ * or in its trailing "Dump completed on" line.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DumpFingerprint {
+
+    private static final int SAMPLE_SIZE = 1 << 20;
+
+    private DumpFingerprint() {
+    }
+
+    /**
+     * @return E.g. "1048576:1420070400000:9e107d9d372bb6826bd81d3542a419d6"
+     */
+    public static String of(File dump) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        final long size;
+        try (FileChannel channel = new RandomAccessFile(dump, "r").getChannel()) {
+            size = channel.size();
+            update(md5, channel, 0, Math.min(size, SAMPLE_SIZE));
+            if (size > SAMPLE_SIZE) {
+                final long tailStart = Math.max(SAMPLE_SIZE, size - SAMPLE_SIZE);
+                update(md5, channel, tailStart, size - tailStart);
+            }
+        }
+
+        final StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(size).append(':').append(dump.lastModified()).append(':');
+        for (byte b : md5.digest()) {
+            fingerprint.append(Character.forDigit((b >> 4) & 0xF, 16));
+            fingerprint.append(Character.forDigit(b & 0xF, 16));
+        }
+        return fingerprint.toString();
+    }
+
+    private static void update(MessageDigest md5, FileChannel channel, long position, long length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        md5.update(buffer);
+    }
+}
@@ -0,0 +1,216 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Byte ranges of a mysqldump file: the header (session settings before the
+ * first table) and one section per table, from its "DROP TABLE" or "Table
+ * structure" comment up to the next table.
+ *
+ * Sections can only be loaded independently when the dump has no views,
+ * whose definitions depend on other tables (see {@link #isSplittable()}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DumpIndex {
+
+    private static final byte[][] TABLE_MARKERS = {
+        "-- Table structure for table `".getBytes(StandardCharsets.US_ASCII),
+        "DROP TABLE IF EXISTS `".getBytes(StandardCharsets.US_ASCII),
+        "CREATE TABLE `".getBytes(StandardCharsets.US_ASCII)
+    };
+    private static final byte[][] VIEW_MARKERS = {
+        "-- Temporary view structure for view".getBytes(StandardCharsets.US_ASCII),
+        "-- Temporary table structure for view".getBytes(StandardCharsets.US_ASCII),
+        "-- Final view structure for view".getBytes(StandardCharsets.US_ASCII),
+        "CREATE VIEW".getBytes(StandardCharsets.US_ASCII),
+        "/*!50001 CREATE".getBytes(StandardCharsets.US_ASCII)
+    };
+    private static final int PREFIX_SIZE = 128;
+
+    private final File file;
+    private final long headerEnd;
+    private final List<Section> sections;
+    private final boolean splittable;
+
+    private DumpIndex(File file, long headerEnd, List<Section> sections, boolean splittable) {
+        this.file = file;
+        this.headerEnd = headerEnd;
+        this.sections = Collections.unmodifiableList(sections);
+        this.splittable = splittable;
+    }
+
+    /**
+     * Scans the beginning of each line of the dump.
+     */
+    public static DumpIndex build(File file) throws IOException {
+        final Builder builder = new Builder();
+        final byte[] buffer = new byte[1 << 20];
+
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    builder.accept(buffer[i]);
+                }
+            }
+        }
+        return builder.build(file);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return Offset of the first table section
+     */
+    public long getHeaderEnd() {
+        return headerEnd;
+    }
+
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    /**
+     * @return True if the sections can be restored concurrently
+     */
+    public boolean isSplittable() {
+        return splittable;
+    }
+
+    private static class Builder {
+
+        private final List<Section> sections = new ArrayList<>();
+        private final byte[] prefix = new byte[PREFIX_SIZE];
+
+        private boolean hasViews;
+        private long headerEnd = -1;
+        private String table;
+        private long tableStart;
+
+        private long offset;
+        private long lineStart;
+        private int prefixLength;
+        private boolean lineChecked;
+
+        void accept(byte b) {
+            if (b == '\n') {
+                if (!lineChecked) {
+                    checkLine();
+                }
+                lineStart = offset + 1;
+                prefixLength = 0;
+                lineChecked = false;
+            } else if (!lineChecked) {
+                prefix[prefixLength++] = b;
+                if (prefixLength == PREFIX_SIZE) {
+                    checkLine();
+                    lineChecked = true;
+                }
+            }
+            offset++;
+        }
+
+        private void checkLine() {
+            hasViews |= startsWithAny(prefix, prefixLength, VIEW_MARKERS);
+
+            final String name = tableName(prefix, prefixLength);
+            if (name != null && !name.equals(table)) {
+                if (table == null) {
+                    headerEnd = lineStart;
+                } else {
+                    sections.add(new Section(table, tableStart, lineStart));
+                }
+                table = name;
+                tableStart = lineStart;
+            }
+        }
+
+        DumpIndex build(File file) {
+            if (!lineChecked) {
+                checkLine();
+            }
+            if (table != null) {
+                sections.add(new Section(table, tableStart, offset));
+            } else {
+                headerEnd = offset;
+            }
+            return new DumpIndex(file, headerEnd, sections, !hasViews && !sections.isEmpty());
+        }
+    }
+
+    private static String tableName(byte[] prefix, int length) {
+        for (byte[] marker : TABLE_MARKERS) {
+            if (startsWith(prefix, length, marker)) {
+                for (int i = marker.length; i < length; i++) {
+                    if (prefix[i] == '`') {
+                        return new String(prefix, marker.length, i - marker.length, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWithAny(byte[] prefix, int length, byte[][] markers) {
+        for (byte[] marker : markers) {
+            if (startsWith(prefix, length, marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] prefix, int length, byte[] marker) {
+        if (length < marker.length) {
+            return false;
+        }
+        for (int i = 0; i < marker.length; i++) {
+            if (prefix[i] != marker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Byte range [start, end) of the statements of one table.
+     */
+    public static class Section {
+
+        private final String table;
+        private final long start;
+        private final long end;
+
+        public Section(String table, long start, long end) {
+            this.table = table;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long getSize() {
+            return end - start;
+        }
+    }
+}
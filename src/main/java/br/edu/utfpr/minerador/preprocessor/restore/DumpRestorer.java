@@ -0,0 +1,303 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
+import br.edu.utfpr.minerador.preprocessor.metrics.Gauge;
+import br.edu.utfpr.minerador.preprocessor.metrics.ProgressReporter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restores mysqldump files inside the JVM, replacing "mysql database &lt;
+ * dump.sql". The statements are sent in batches on dedicated connections,
+ * outside the pool (see {@link ConnectionFactory#getDedicatedConnection()}),
+ * with unique checks and foreign key checks turned off for the session. Each
+ * batch is committed on its own, as the mysql client commits each statement,
+ * so a large table neither builds a huge undo log nor rolls back all of its
+ * rows when a late statement fails.
+ *
+ * Each dump is indexed first (see {@link DumpIndex}) and its table sections
+ * are loaded concurrently, one connection per section, the largest first. The
+ * header of the dump (character set, SQL mode, etc.) is replayed on every
+ * connection before its section. As the header changes the session, the
+ * connections are closed afterwards instead of returning to the pool of the
+ * other stages. Dumps that cannot be split are restored serially on a single
+ * connection, still concurrently with the other dumps.
+ *
+ * The progress is reported by the bytes of the dumps consumed (see
+ * {@link ProgressReporter}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DumpRestorer {
+
+    private static final Logger log = LoggerFactory.getLogger(DumpRestorer.class);
+
+    /**
+     * Maximum size of the statements of a batch, in characters.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4 * 1024 * 1024;
+
+    private final ConnectionFactory factory;
+    private final int threads;
+    private final int batchSize;
+    private String progressName = "restore";
+
+    public DumpRestorer(ConnectionFactory factory) {
+        this(factory, 1);
+    }
+
+    /**
+     * @param threads Number of sections loaded at the same time, each one on
+     * its own connection
+     */
+    public DumpRestorer(ConnectionFactory factory, int threads) {
+        this(factory, threads, DEFAULT_BATCH_SIZE);
+    }
+
+    public DumpRestorer(ConnectionFactory factory, int threads, int batchSize) {
+        this.factory = factory;
+        this.threads = Math.max(1, threads);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param progressName Name of the progress reports (e.g. derby.restore)
+     */
+    public void setProgressName(String progressName) {
+        this.progressName = progressName;
+    }
+
+    /**
+     * @param databaseName Existing schema where the dump is restored
+     * @return Number of statements executed
+     */
+    public long restore(File dump, String databaseName) throws IOException, SQLException {
+        return restore(Collections.singletonMap(dump, databaseName));
+    }
+
+    /**
+     * Restores all dumps concurrently.
+     *
+     * @param dumps Dump file and the existing schema where it is restored
+     * @return Number of statements executed
+     */
+    public long restore(Map<File, String> dumps) throws IOException, SQLException {
+        final long start = System.currentTimeMillis();
+
+        final Map<File, FileChannel> channels = new LinkedHashMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicLong consumed = new AtomicLong();
+        ProgressReporter progress = null;
+        try {
+            final List<SectionTask> tasks = new ArrayList<>();
+            long totalBytes = 0;
+            for (Map.Entry<File, String> dump : dumps.entrySet()) {
+                final FileChannel channel = new RandomAccessFile(dump.getKey(), "r").getChannel();
+                channels.put(dump.getKey(), channel);
+                tasks.addAll(split(dump.getKey(), channel, dump.getValue(), consumed));
+                totalBytes += channel.size();
+            }
+            progress = ProgressReporter.start(progressName, ProgressReporter.BYTES, totalBytes, new Gauge<Long>() {
+
+                @Override
+                public Long getValue() {
+                    return consumed.get();
+                }
+            });
+
+            Collections.sort(tasks, new Comparator<SectionTask>() {
+
+                @Override
+                public int compare(SectionTask o1, SectionTask o2) {
+                    return Long.compare(o2.getSize(), o1.getSize());
+                }
+            });
+
+            final CompletionService<Long> completion = new ExecutorCompletionService<>(executor);
+            final List<Future<Long>> futures = new ArrayList<>(tasks.size());
+            for (SectionTask task : tasks) {
+                futures.add(completion.submit(task));
+            }
+
+            long statements = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    statements += completion.take().get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while restoring.", ex);
+                } catch (ExecutionException ex) {
+                    for (Future<Long> future : futures) {
+                        future.cancel(true);
+                    }
+                    throw rethrow(ex.getCause());
+                }
+            }
+
+            log.info("Restored " + statements + " statements of " + dumps.keySet() + " in "
+                    + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+            return statements;
+        } finally {
+            if (progress != null) {
+                progress.close();
+            }
+            executor.shutdownNow();
+            for (FileChannel channel : channels.values()) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * @param consumed Bytes of the dumps read, the header and the sections
+     */
+    private List<SectionTask> split(File dump, FileChannel channel, String databaseName, AtomicLong consumed)
+            throws IOException {
+        final DumpIndex index = DumpIndex.build(dump);
+        final List<SectionTask> tasks = new ArrayList<>();
+
+        if (threads == 1 || !index.isSplittable()) {
+            log.info(dump.getName() + " will be restored serially.");
+            tasks.add(new SectionTask(dump.getName(), channel, databaseName,
+                    Collections.<String>emptyList(), 0, channel.size(), consumed));
+            return tasks;
+        }
+
+        final List<String> header = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(
+                new FileRangeInputStream(channel, 0, index.getHeaderEnd()))) {
+            String sql;
+            while ((sql = reader.next()) != null) {
+                header.add(sql);
+            }
+        }
+        consumed.addAndGet(index.getHeaderEnd());
+
+        for (DumpIndex.Section section : index.getSections()) {
+            tasks.add(new SectionTask(dump.getName() + ":" + section.getTable(), channel, databaseName,
+                    header, section.getStart(), section.getEnd(), consumed));
+        }
+        log.info(dump.getName() + " has " + tasks.size() + " tables.");
+        return tasks;
+    }
+
+    private static SQLException rethrow(Throwable cause) throws IOException {
+        if (cause instanceof SQLException) {
+            return (SQLException) cause;
+        }
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        return new SQLException("Error to restore.", cause);
+    }
+
+    /**
+     * @param consumed Incremented by the bytes of the statements read
+     */
+    private long load(Connection conn, String databaseName, List<String> header,
+            SqlStatementReader reader, AtomicLong consumed) throws IOException, SQLException {
+        long statements = 0;
+        long position = 0;
+
+        conn.setCatalog(databaseName);
+        conn.setAutoCommit(false);
+
+        try (Statement statement = conn.createStatement()) {
+            for (String sql : header) {
+                statement.execute(sql);
+            }
+            statement.execute("SET unique_checks = 0");
+            statement.execute("SET foreign_key_checks = 0");
+
+            try {
+                int pendingSize = 0;
+                String sql;
+                while ((sql = reader.next()) != null) {
+                    statement.addBatch(sql);
+                    pendingSize += sql.length();
+                    statements++;
+                    consumed.addAndGet(reader.getPosition() - position);
+                    position = reader.getPosition();
+
+                    if (pendingSize >= batchSize) {
+                        statement.executeBatch();
+                        conn.commit();
+                        pendingSize = 0;
+                    }
+                }
+                if (pendingSize > 0) {
+                    statement.executeBatch();
+                    conn.commit();
+                }
+            } catch (SQLException | IOException e) {
+                // only the batch not committed yet
+                conn.rollback();
+                throw e;
+            }
+        }
+        return statements;
+    }
+
+    private class SectionTask implements Callable<Long> {
+
+        private final String name;
+        private final FileChannel channel;
+        private final String databaseName;
+        private final List<String> header;
+        private final long start;
+        private final long end;
+        private final AtomicLong consumed;
+
+        SectionTask(String name, FileChannel channel, String databaseName,
+                List<String> header, long start, long end, AtomicLong consumed) {
+            this.name = name;
+            this.channel = channel;
+            this.databaseName = databaseName;
+            this.header = header;
+            this.start = start;
+            this.end = end;
+            this.consumed = consumed;
+        }
+
+        long getSize() {
+            return end - start;
+        }
+
+        @Override
+        public Long call() throws IOException, SQLException {
+            final long sectionStart = System.currentTimeMillis();
+            final long statements;
+
+            try (Connection conn = factory.getDedicatedConnection();
+                    SqlStatementReader reader = new SqlStatementReader(
+                            new FileRangeInputStream(channel, start, end))) {
+                statements = load(conn, databaseName, header, reader, consumed);
+            }
+
+            log.info("Restored " + statements + " statements of " + name + " to database " + databaseName
+                    + " in " + ((System.currentTimeMillis() - sectionStart) / 1000) + " secs.");
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the byte range [start, end) of a file with positional reads, so many
+ * ranges of the same file can be read concurrently from one channel.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class FileRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    /**
+     * @param channel Not closed by this stream
+     */
+    public FileRangeInputStream(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        final int length = (int) Math.min(len, end - position);
+        final int read = channel.read(ByteBuffer.wrap(b, off, length), position);
+        if (read < 0) {
+            return -1;
+        }
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+}
@@ -0,0 +1,273 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves or copies the tables of a schema into another one, to keep a pristine
+ * copy of a restored dump (see Main).
+ *
+ * {@link #move(Map)} renames the tables into the target schema, which changes
+ * only metadata. {@link #copyDefinitions(Map)} creates empty tables with
+ * "CREATE TABLE ... LIKE", and {@link #copyRows(Map)} fills them later with
+ * "INSERT ... SELECT", one table per pooled connection. Copying rows inside
+ * the server is much faster than parsing and executing a dump again.
+ *
+ * Views are created after the tables, with their definition pointing to the
+ * target schema.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class SchemaCloner {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaCloner.class);
+
+    private final ConnectionFactory factory;
+    private final int threads;
+
+    public SchemaCloner(ConnectionFactory factory, int threads) {
+        this.factory = factory;
+        this.threads = Math.max(1, threads);
+    }
+
+    public boolean exists(String schema) throws SQLException {
+        try (Connection conn = factory.getConnection();
+                PreparedStatement statement = conn.prepareStatement(
+                        "SELECT 1 FROM information_schema.schemata WHERE schema_name = ?")) {
+            statement.setString(1, schema);
+            try (ResultSet exists = statement.executeQuery()) {
+                return exists.next();
+            }
+        }
+    }
+
+    /**
+     * Moves the tables of each source schema into its target schema by one
+     * RENAME TABLE, and creates the views of the source in the target. The
+     * source is left with its views only.
+     *
+     * @param schemas Source schema to existing, empty, target schema
+     */
+    public void move(Map<String, String> schemas) throws SQLException {
+        final long start = System.currentTimeMillis();
+        int moved = 0;
+        for (Map.Entry<String, String> schema : schemas.entrySet()) {
+            final List<String> renames = new ArrayList<>();
+            for (String table : findTables(schema.getKey())) {
+                renames.add(schema.getKey() + ".`" + table + "` TO " + schema.getValue() + ".`" + table + "`");
+            }
+            if (!renames.isEmpty()) {
+                try (Connection conn = factory.getConnection();
+                        Statement statement = conn.createStatement()) {
+                    statement.execute("RENAME TABLE " + StringUtils.join(renames, ", "));
+                }
+            }
+            copyViews(schema.getKey(), schema.getValue());
+            moved += renames.size();
+        }
+
+        log.info("Moved " + moved + " tables of " + schemas.keySet() + " in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+    }
+
+    /**
+     * Creates each target schema again with empty tables like those of the
+     * source and with its views, so the definitions are kept even if the
+     * source tables are altered before {@link #copyRows(Map)}.
+     *
+     * @param schemas Source schema to target schema, dropped if it exists
+     */
+    public void copyDefinitions(Map<String, String> schemas) throws SQLException {
+        for (Map.Entry<String, String> schema : schemas.entrySet()) {
+            try (Connection conn = factory.getConnection();
+                    Statement statement = conn.createStatement()) {
+                statement.executeUpdate("DROP SCHEMA IF EXISTS " + schema.getValue());
+                statement.executeUpdate("CREATE SCHEMA " + schema.getValue());
+                for (String table : findTables(schema.getKey())) {
+                    statement.execute("CREATE TABLE " + schema.getValue() + ".`" + table + "`"
+                            + " LIKE " + schema.getKey() + ".`" + table + "`");
+                }
+            }
+            copyViews(schema.getKey(), schema.getValue());
+        }
+    }
+
+    /**
+     * Copies the rows of the tables of each target schema from the source
+     * schema concurrently, only the columns of the target tables (e.g. not
+     * the columns added to the source by the preprocessing).
+     *
+     * @param schemas Source schema to target schema created by
+     * {@link #copyDefinitions(Map)}
+     */
+    public void copyRows(Map<String, String> schemas) throws SQLException {
+        final long start = System.currentTimeMillis();
+
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (Map.Entry<String, String> schema : schemas.entrySet()) {
+            final List<String> targetTables = findTables(schema.getValue());
+            for (String table : findTables(schema.getKey())) {
+                if (targetTables.contains(table)) {
+                    tasks.add(new TableCopy(schema.getKey(), schema.getValue(), table));
+                }
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            final List<Future<Void>> futures = new ArrayList<>(tasks.size());
+            for (Callable<Void> task : tasks) {
+                futures.add(completion.submit(task));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while copying schemas.", ex);
+                } catch (ExecutionException ex) {
+                    for (Future<Void> future : futures) {
+                        future.cancel(true);
+                    }
+                    if (ex.getCause() instanceof SQLException) {
+                        throw (SQLException) ex.getCause();
+                    }
+                    throw new SQLException("Error to copy schemas.", ex.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Copied the rows of " + tasks.size() + " tables of " + schemas.keySet() + " in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+    }
+
+    /**
+     * @return Base tables, largest first
+     */
+    private List<String> findTables(String schema) throws SQLException {
+        final List<String> tables = new ArrayList<>();
+        try (Connection conn = factory.getConnection();
+                PreparedStatement statement = conn.prepareStatement(
+                        "SELECT table_name FROM information_schema.tables"
+                        + " WHERE table_schema = ? AND table_type = 'BASE TABLE'"
+                        + " ORDER BY data_length DESC")) {
+            statement.setString(1, schema);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    tables.add(result.getString(1));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private void copyViews(String source, String target) throws SQLException {
+        try (Connection conn = factory.getConnection();
+                PreparedStatement statement = conn.prepareStatement(
+                        "SELECT table_name, view_definition FROM information_schema.views"
+                        + " WHERE table_schema = ?")) {
+            statement.setString(1, source);
+
+            final List<String> createViews = new ArrayList<>();
+            try (ResultSet views = statement.executeQuery()) {
+                while (views.next()) {
+                    // the server qualifies every column with the source schema
+                    createViews.add("CREATE VIEW " + target + ".`" + views.getString(1) + "` AS "
+                            + views.getString(2).replace("`" + source + "`.", "`" + target + "`."));
+                }
+            }
+
+            // a view may select from another view: retries until no progress
+            SQLException lastError = null;
+            while (!createViews.isEmpty()) {
+                final List<String> failed = new ArrayList<>();
+                try (Statement create = conn.createStatement()) {
+                    for (String createView : createViews) {
+                        try {
+                            create.execute(createView);
+                        } catch (SQLException ex) {
+                            failed.add(createView);
+                            lastError = ex;
+                        }
+                    }
+                }
+                if (failed.size() == createViews.size()) {
+                    throw lastError;
+                }
+                createViews.retainAll(failed);
+            }
+        }
+    }
+
+    private class TableCopy implements Callable<Void> {
+
+        private final String source;
+        private final String target;
+        private final String table;
+
+        TableCopy(String source, String target, String table) {
+            this.source = source;
+            this.target = target;
+            this.table = table;
+        }
+
+        @Override
+        public Void call() throws SQLException {
+            try (Connection conn = factory.getConnection();
+                    Statement statement = conn.createStatement()) {
+                final String columns = StringUtils.join(findColumns(conn), ", ");
+                statement.execute("SET unique_checks = 0");
+                statement.execute("SET foreign_key_checks = 0");
+                try {
+                    statement.execute("INSERT INTO " + target + ".`" + table + "` (" + columns + ")"
+                            + " SELECT " + columns + " FROM " + source + ".`" + table + "`");
+                } finally {
+                    // the connection returns to the pool
+                    statement.execute("SET unique_checks = 1");
+                    statement.execute("SET foreign_key_checks = 1");
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return Quoted columns of the target table
+         */
+        private List<String> findColumns(Connection conn) throws SQLException {
+            final List<String> columns = new ArrayList<>();
+            try (PreparedStatement statement = conn.prepareStatement(
+                    "SELECT column_name FROM information_schema.columns"
+                    + " WHERE table_schema = ? AND table_name = ? ORDER BY ordinal_position")) {
+                statement.setString(1, target);
+                statement.setString(2, table);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        columns.add("`" + result.getString(1) + "`");
+                    }
+                }
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a SQL script (e.g. a mysqldump file) into statements, reading it in
+ * large chunks of bytes.
+ *
+ * Delimiters inside quoted strings, quoted identifiers and comments are
+ * ignored, backslash escapes are honored in strings, line comments ("-- " and
+ * "#") are dropped and block comments, including the versioned "/*!40101 ...
+ * *&#47;" of mysqldump, are kept. "DELIMITER" lines of the mysql client are
+ * supported. The script must be UTF-8 (or ASCII compatible).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class SqlStatementReader implements Closeable {
+
+    public static final String DEFAULT_DELIMITER = ";";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] DELIMITER_COMMAND = "DELIMITER".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+    private long position;
+    private boolean eof;
+
+    private byte[] delimiter = DEFAULT_DELIMITER.getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] statement = new byte[8192];
+    private int statementLength;
+    private boolean statementHasNewLine;
+
+    public SqlStatementReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return Next statement, without its delimiter, or null at the end of the
+     * script
+     */
+    public String next() throws IOException {
+        statementLength = 0;
+        statementHasNewLine = false;
+
+        int b;
+        while ((b = read()) >= 0) {
+            if (statementLength == 0 && isWhitespace(b)) {
+                continue;
+            }
+
+            if (b == '\'' || b == '"' || b == '`') {
+                append(b);
+                readQuoted(b);
+            } else if (b == '#' || (b == '-' && peek(0) == '-' && isWhitespaceOrEnd(peek(1)))) {
+                skipLine();
+                if (statementLength > 0) {
+                    append('\n');
+                    statementHasNewLine = true;
+                }
+            } else if (b == '/' && peek(0) == '*') {
+                append(b);
+                append(read());
+                readBlockComment();
+            } else if (b == delimiter[0] && matchesDelimiter() && !isDelimiterCommand()) {
+                skip(delimiter.length - 1);
+                if (statementLength > 0) {
+                    return toStatement();
+                }
+            } else if (b == '\n') {
+                if (isDelimiterCommand()) {
+                    changeDelimiter();
+                } else {
+                    append(b);
+                    statementHasNewLine = true;
+                }
+            } else {
+                append(b);
+            }
+        }
+
+        if (isDelimiterCommand()) {
+            changeDelimiter();
+        }
+        return statementLength > 0 ? toStatement() : null;
+    }
+
+    /**
+     * @return Number of bytes consumed from the stream
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readQuoted(int quote) throws IOException {
+        int b;
+        while ((b = read()) >= 0) {
+            append(b);
+            if (b == '\\' && quote != '`') {
+                int escaped = read();
+                if (escaped >= 0) {
+                    append(escaped);
+                }
+            } else if (b == quote) {
+                return;
+            }
+        }
+    }
+
+    private void readBlockComment() throws IOException {
+        int b;
+        while ((b = read()) >= 0) {
+            append(b);
+            if (b == '*' && peek(0) == '/') {
+                append(read());
+                return;
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+        while ((b = read()) >= 0 && b != '\n') {
+            // skips the comment
+        }
+    }
+
+    private boolean matchesDelimiter() throws IOException {
+        for (int i = 1; i < delimiter.length; i++) {
+            if (peek(i - 1) != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDelimiterCommand() {
+        if (statementHasNewLine || statementLength <= DELIMITER_COMMAND.length
+                || !isWhitespace(statement[DELIMITER_COMMAND.length])) {
+            return false;
+        }
+        for (int i = 0; i < DELIMITER_COMMAND.length; i++) {
+            if ((statement[i] & ~0x20) != DELIMITER_COMMAND[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void changeDelimiter() {
+        String newDelimiter = new String(statement, DELIMITER_COMMAND.length,
+                statementLength - DELIMITER_COMMAND.length, StandardCharsets.UTF_8).trim();
+        if (!newDelimiter.isEmpty()) {
+            delimiter = newDelimiter.getBytes(StandardCharsets.UTF_8);
+        }
+        statementLength = 0;
+    }
+
+    private String toStatement() {
+        int length = statementLength;
+        while (length > 0 && isWhitespace(statement[length - 1])) {
+            length--;
+        }
+        return new String(statement, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void append(int b) {
+        if (statementLength == statement.length) {
+            statement = Arrays.copyOf(statement, statement.length * 2);
+        }
+        statement[statementLength++] = (byte) b;
+    }
+
+    private int read() throws IOException {
+        if (bufferPosition == bufferLimit && !fill()) {
+            return -1;
+        }
+        position++;
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    private void skip(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            read();
+        }
+    }
+
+    /**
+     * @return Byte after the next {@code offset} bytes, without consuming it,
+     * or -1 at the end of the stream
+     */
+    private int peek(int offset) throws IOException {
+        while (bufferPosition + offset >= bufferLimit) {
+            if (eof) {
+                return -1;
+            }
+            if (bufferPosition > 0) {
+                System.arraycopy(buffer, bufferPosition, buffer, 0, bufferLimit - bufferPosition);
+                bufferLimit -= bufferPosition;
+                bufferPosition = 0;
+            }
+            int read = in.read(buffer, bufferLimit, buffer.length - bufferLimit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                bufferLimit += read;
+            }
+        }
+        return buffer[bufferPosition + offset] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            bufferPosition = bufferLimit = 0;
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = read;
+        return true;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static boolean isWhitespaceOrEnd(int b) {
+        return b < 0 || isWhitespace(b);
+    }
+}
@@ -0,0 +1,276 @@
+package br.edu.utfpr.minerador.preprocessor.script;
+
+import br.edu.utfpr.minerador.preprocessor.database.Checkpoints;
+import br.edu.utfpr.minerador.preprocessor.database.ConnectionFactory;
+import br.edu.utfpr.minerador.preprocessor.metrics.Gauge;
+import br.edu.utfpr.minerador.preprocessor.metrics.MetricRegistry;
+import br.edu.utfpr.minerador.preprocessor.metrics.ProgressReporter;
+import br.edu.utfpr.minerador.preprocessor.metrics.Timer;
+import br.edu.utfpr.minerador.preprocessor.restore.SqlStatementReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes a preprocessing script on pooled connections. A statement starts
+ * as soon as all previous statements that conflict with it (see
+ * {@link ScriptStatement#conflictsWith(ScriptStatement)}) have finished, so
+ * statements on different tables run concurrently and statements on the same
+ * table keep the order of the script.
+ *
+ * On the first error no more statements are started; the running ones are
+ * awaited and the error is thrown. With {@link Checkpoints}, each statement
+ * is recorded when it finishes and skipped by the next run.
+ *
+ * The time of each statement is recorded in the default
+ * {@link MetricRegistry} as "&lt;project&gt;.script.&lt;script name&gt;", and
+ * the progress reports the statements finished and the time the running ones
+ * have taken so far (see {@link ProgressReporter}).
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ParallelScriptExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelScriptExecutor.class);
+
+    private final ConnectionFactory factory;
+    private final int threads;
+
+    public ParallelScriptExecutor(ConnectionFactory factory, int threads) {
+        this.factory = factory;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Splits the script in statements.
+     */
+    public static List<ScriptStatement> parse(InputStream script) throws IOException {
+        final List<ScriptStatement> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(script)) {
+            String sql;
+            while ((sql = reader.next()) != null) {
+                statements.add(new ScriptStatement(statements.size(), sql));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @param project Replaces the "{0}" placeholder (e.g. derby)
+     */
+    public void execute(InputStream script, String project) throws IOException, SQLException {
+        execute(parse(script), project, null, null);
+    }
+
+    /**
+     * @param scriptName Identifies the statements in the checkpoints (e.g.
+     * preprocessing.sql)
+     * @param checkpoints Finished statements are skipped, may be null
+     */
+    public void execute(InputStream script, String project, String scriptName, Checkpoints checkpoints)
+            throws IOException, SQLException {
+        execute(parse(script), project, scriptName, checkpoints);
+    }
+
+    public void execute(List<ScriptStatement> statements, String project, String scriptName,
+            Checkpoints checkpoints) throws SQLException {
+        final long start = System.currentTimeMillis();
+        final int size = statements.size();
+        final String name = project + ".script." + (scriptName == null ? "unnamed" : scriptName);
+        final Timer timer = MetricRegistry.getDefault().timer(name);
+
+        final String[] steps = new String[size];
+        final boolean[] finished = new boolean[size];
+        int skipped = 0;
+        for (int i = 0; i < size; i++) {
+            if (checkpoints != null) {
+                steps[i] = step(scriptName, statements.get(i));
+                finished[i] = checkpoints.isFinished(steps[i]);
+                if (finished[i]) {
+                    skipped++;
+                }
+            }
+        }
+
+        final int[] pendingDependencies = new int[size];
+        final List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<Integer>());
+            for (int j = 0; j < i && !finished[i]; j++) {
+                if (!finished[j] && statements.get(i).conflictsWith(statements.get(j))) {
+                    dependents.get(j).add(i);
+                    pendingDependencies[i]++;
+                }
+            }
+        }
+
+        final Progress progress = new Progress();
+        final ProgressReporter reporter = ProgressReporter.start(name, "statements", size - skipped,
+                progress, progress.getRunning(), ProgressReporter.DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        try {
+            int running = 0;
+            for (int i = 0; i < size; i++) {
+                if (!finished[i] && pendingDependencies[i] == 0) {
+                    completion.submit(new StatementTask(statements.get(i), project, steps[i], checkpoints, timer, progress));
+                    running++;
+                }
+            }
+
+            SQLException error = null;
+            while (running > 0) {
+                final int done;
+                try {
+                    done = completion.take().get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while executing script.", ex);
+                } catch (ExecutionException ex) {
+                    running--;
+                    if (error == null) {
+                        error = ex.getCause() instanceof SQLException
+                                ? (SQLException) ex.getCause()
+                                : new SQLException("Error to execute script.", ex.getCause());
+                    }
+                    continue;
+                }
+                running--;
+
+                if (error != null) {
+                    continue;
+                }
+                for (int dependent : dependents.get(done)) {
+                    if (--pendingDependencies[dependent] == 0) {
+                        completion.submit(new StatementTask(statements.get(dependent), project,
+                                steps[dependent], checkpoints, timer, progress));
+                        running++;
+                    }
+                }
+            }
+
+            if (error != null) {
+                throw error;
+            }
+        } finally {
+            executor.shutdownNow();
+            reporter.close();
+        }
+
+        log.info("Executed " + (size - skipped) + " statements (" + skipped + " finished before) in "
+                + ((System.currentTimeMillis() - start) / 1000) + " secs.");
+    }
+
+    /**
+     * @return E.g. "preprocessing.sql#3:1a2b3c4d", the hash of the statement
+     * avoids skipping a statement whose position changed in the script
+     */
+    private static String step(String scriptName, ScriptStatement statement) {
+        return scriptName + "#" + (statement.getIndex() + 1) + ":" + Integer.toHexString(statement.getSql().hashCode());
+    }
+
+    private class StatementTask implements Callable<Integer> {
+
+        private final ScriptStatement statement;
+        private final String project;
+        private final String step;
+        private final Checkpoints checkpoints;
+        private final Timer timer;
+        private final Progress progress;
+
+        StatementTask(ScriptStatement statement, String project, String step, Checkpoints checkpoints,
+                Timer timer, Progress progress) {
+            this.statement = statement;
+            this.project = project;
+            this.step = step;
+            this.checkpoints = checkpoints;
+            this.timer = timer;
+            this.progress = progress;
+        }
+
+        @Override
+        public Integer call() throws SQLException {
+            final long start = System.currentTimeMillis();
+
+            progress.started(statement, start);
+            try (Connection conn = factory.getConnection();
+                    Statement currentStatement = conn.createStatement()) {
+                currentStatement.execute(statement.getSql().replace("{0}", project));
+            } catch (SQLException ex) {
+                log.error("Error executing " + statement + ".");
+                throw ex;
+            } finally {
+                progress.stopped(statement);
+            }
+            if (checkpoints != null) {
+                checkpoints.finished(step);
+            }
+
+            final long millis = System.currentTimeMillis() - start;
+            timer.update(millis, TimeUnit.MILLISECONDS);
+            log.info("Executed " + statement + " in " + millis + " ms.");
+            return statement.getIndex();
+        }
+    }
+
+    /**
+     * Statements finished and running, updated by the tasks and read by the
+     * {@link ProgressReporter}.
+     */
+    private static class Progress implements Gauge<Integer> {
+
+        private final AtomicInteger finished = new AtomicInteger();
+        // index > start millis
+        private final Map<Integer, Long> running = new ConcurrentHashMap<>();
+
+        void started(ScriptStatement statement, long millis) {
+            running.put(statement.getIndex(), millis);
+        }
+
+        void stopped(ScriptStatement statement) {
+            running.remove(statement.getIndex());
+            finished.incrementAndGet();
+        }
+
+        @Override
+        public Integer getValue() {
+            return finished.get();
+        }
+
+        /**
+         * @return E.g. "running #3 (120 secs), #7 (4 secs)"
+         */
+        Gauge<String> getRunning() {
+            return new Gauge<String>() {
+
+                @Override
+                public String getValue() {
+                    final long now = System.currentTimeMillis();
+                    final StringBuilder detail = new StringBuilder();
+                    for (Map.Entry<Integer, Long> statement : new TreeMap<>(running).entrySet()) {
+                        detail.append(detail.length() == 0 ? "running #" : ", #").append(statement.getKey() + 1)
+                                .append(" (").append((now - statement.getValue()) / 1000).append(" secs)");
+                    }
+                    return detail.toString();
+                }
+            };
+        }
+    }
+}
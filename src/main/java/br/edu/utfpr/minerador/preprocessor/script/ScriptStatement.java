@@ -0,0 +1,157 @@
+package br.edu.utfpr.minerador.preprocessor.script;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A statement of a preprocessing script and the tables it reads and writes,
+ * detected from the "{0}_issues.table" references of the script.
+ *
+ * The first table referenced by a DDL or DML statement (ALTER, CREATE,
+ * INSERT, UPDATE, etc.) is the one written, the others are read. "CREATE
+ * SCHEMA" and "DROP SCHEMA" lock the whole schema. A statement without table
+ * references is a barrier: it runs alone, after all previous statements and
+ * before all next ones.
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ScriptStatement {
+
+    private static final Pattern TABLE = Pattern.compile("\\{0\\}(_\\w+)?\\.(\\w+)");
+    private static final Pattern SCHEMA = Pattern.compile(
+            "^\\s*(CREATE|DROP)\\s+(SCHEMA|DATABASE)\\s+(IF\\s+(NOT\\s+)?EXISTS\\s+)?\\{0\\}(_\\w+)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(ALTER|CREATE|DELETE|DROP|INSERT|RENAME|REPLACE|TRUNCATE|UPDATE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final int index;
+    private final String sql;
+    private final String schema;
+    private final Set<String> writes;
+    private final Set<String> reads;
+
+    /**
+     * @param index Position of the statement in the script, from 0
+     * @param sql With the "{0}" placeholder
+     */
+    public ScriptStatement(int index, String sql) {
+        this.index = index;
+        this.sql = sql;
+
+        final Matcher schemaMatcher = SCHEMA.matcher(sql);
+        if (schemaMatcher.find()) {
+            schema = ("{0}" + nullToEmpty(schemaMatcher.group(5))).toLowerCase(Locale.ENGLISH);
+            writes = Collections.emptySet();
+            reads = Collections.emptySet();
+            return;
+        }
+        schema = null;
+
+        final Set<String> tables = new LinkedHashSet<>();
+        final Matcher tableMatcher = TABLE.matcher(sql);
+        while (tableMatcher.find()) {
+            tables.add(("{0}" + nullToEmpty(tableMatcher.group(1)) + "." + tableMatcher.group(2))
+                    .toLowerCase(Locale.ENGLISH));
+        }
+
+        if (!tables.isEmpty() && WRITE.matcher(sql).find()) {
+            final String written = tables.iterator().next();
+            tables.remove(written);
+            writes = Collections.singleton(written);
+        } else {
+            writes = Collections.emptySet();
+        }
+        reads = Collections.unmodifiableSet(tables);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return E.g. "{0}_issues" for "CREATE SCHEMA {0}_issues", otherwise null
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return E.g. "{0}_vcs.scmlog"
+     */
+    public Set<String> getWrites() {
+        return writes;
+    }
+
+    public Set<String> getReads() {
+        return reads;
+    }
+
+    public boolean isBarrier() {
+        return schema == null && writes.isEmpty() && reads.isEmpty();
+    }
+
+    /**
+     * @return True if this statement and the other one must run in the order
+     * of the script
+     */
+    public boolean conflictsWith(ScriptStatement other) {
+        if (isBarrier() || other.isBarrier()) {
+            return true;
+        }
+        if (schema != null || other.schema != null) {
+            return touchesSchema(other.schema) || other.touchesSchema(schema);
+        }
+        return intersects(writes, other.writes)
+                || intersects(writes, other.reads)
+                || intersects(reads, other.writes);
+    }
+
+    @Override
+    public String toString() {
+        final String firstLine = sql.trim().split("\n", 2)[0];
+        return "#" + (index + 1) + " " + (firstLine.length() > 80 ? firstLine.substring(0, 80) + "..." : firstLine);
+    }
+
+    private boolean touchesSchema(String otherSchema) {
+        if (otherSchema == null) {
+            return false;
+        }
+        if (otherSchema.equals(schema)) {
+            return true;
+        }
+        final String prefix = otherSchema.toLowerCase(Locale.ENGLISH) + ".";
+        for (String table : writes) {
+            if (table.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String table : reads) {
+            if (table.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean intersects(Set<String> a, Set<String> b) {
+        for (String table : a) {
+            if (b.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
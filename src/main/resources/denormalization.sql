@@ -0,0 +1,18 @@
+-- denormalize vcs schema
+CREATE SCHEMA {0};
+
+CREATE TABLE IF NOT EXISTS {0}.commits (
+    commit_id INT(11), -- scmlog
+    rev VARCHAR(40), -- scmlog
+    committer_id INT(11), -- scmlog
+    date DATETIME, -- scmlog
+    message LONGTEXT, -- scmlog
+    repository_id INT(11), -- scmlog, files
+    action_type VARCHAR(1), -- actions
+    branch_id INT(11),  -- actions
+    file_id INT(11), -- actions, files
+    file_path VARCHAR(4096), -- file_links
+    added_lines INT(11), -- commits_files_lines
+    removed_lines INT(11) -- commits_files_lines
+    -- the indexes are added after CommitsBuilder fills the table (see Main)
+);
\ No newline at end of file
@@ -0,0 +1,7 @@
+-- issues fixed by linked commits that changed source or configuration files
+-- filled by IssuesToAnalyzeBuilder, after {0}.commits (see Main)
+CREATE TABLE IF NOT EXISTS {0}.issues_to_analyze (
+    fixed_date DATETIME, -- for ordering purpose
+    issue_id INT(11) -- issue
+    -- the indexes are added after the rows (see Main)
+);
\ No newline at end of file
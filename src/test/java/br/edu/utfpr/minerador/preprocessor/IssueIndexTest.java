@@ -0,0 +1,47 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import br.edu.utfpr.minerador.preprocessor.model.Issue;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueIndexTest {
+
+    @Test
+    public void testSameIssuesAsKeys() {
+        final Map<String, Issue> issuesByKey = new HashMap<>();
+        issuesByKey.put("DERBY-1", new Issue(1, "10.1"));
+        issuesByKey.put("DERBY-4000", new Issue(2, "10.2"));
+        issuesByKey.put("JDO-7", new Issue(3, null));
+        issuesByKey.put("JDO-" + IssueIndex.MAX_DENSE_NUMBER, new Issue(4, null));
+        // other project, no number
+        issuesByKey.put("SOLR-1", new Issue(5, null));
+        issuesByKey.put("DERBY-", new Issue(7, null));
+        issuesByKey.put("DERBY", new Issue(8, null));
+
+        final IssueKeyScanner scanner = new IssueKeyScanner("DERBY", "JDO", "LUCENE");
+        final IssueIndex index = new IssueIndex(scanner, issuesByKey);
+        final String message = "DERBY-1, DERBY-4000, JDO-7, JDO-" + IssueIndex.MAX_DENSE_NUMBER
+                + " DERBY-2 DERBY-02 DERBY-4001 JDO-4000 LUCENE-1 DERBY-99999999999 ";
+        final IssueKeyScanner.Cursor cursor = scanner.cursor(message);
+        int found = 0;
+        while (cursor.find()) {
+            found++;
+            assertEquals(cursor.issueKey(), issuesByKey.get(cursor.issueKey()),
+                    index.get(cursor.keyIndex(), cursor.number()));
+        }
+        assertEquals(10, found);
+        assertEquals(Integer.valueOf(4), index.get(1, IssueIndex.MAX_DENSE_NUMBER).getId());
+        assertNull(index.get(0, 2));
+
+        // no issue key of Jira has leading zeros, so they are not indexed
+        issuesByKey.put("DERBY-02", new Issue(6, null));
+        assertNull(new IssueIndex(scanner, issuesByKey).get(0, 2));
+    }
+}
@@ -0,0 +1,188 @@
+package br.edu.utfpr.minerador.preprocessor;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Assert;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueKeyScannerTest {
+
+    @Test
+    public void testMatchPattern() {
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DEBRY").cursor("DEBRY-467 - Unseal one package in derby.jar iapi.services.context that is also in derbytools.jar.");
+        Assert.assertTrue(cursor.find());
+        assertEquals("DEBRY-467", cursor.issueKey());
+        assertEquals(467, cursor.number());
+    }
+
+    @Test
+    public void testMatchPattern2() {
+        String message = "    DERBY-2193-03: Adjust the import/export lob tests which assert different results based on the vm level.\n"
+                + "     \n"
+                + "     git-svn-id: https://svn.apache.org/repos/asf/db/derby/code/trunk@529322 13f79535-47bb-0310-9956-ffa450edef68\n"
+                + " ";
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DERBY").cursor(message);
+        Assert.assertTrue(cursor.find());
+        assertEquals("DERBY-2193", cursor.issueKey());
+    }
+
+    @Test
+    public void testMatchPattern3() {
+        String message = "This commit is for DERBY- 2528 Set the correct collation type in SchemaDescriptor. The collation type will be UCS_BASIC for system schemas but it can be\n"
+                + "    TERRITORY_BASED/UCS_BASIC for user schemas.";
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DERBY").cursor(message);
+        Assert.assertTrue(cursor.find());
+        assertEquals("DERBY-2528", cursor.issueKey());
+    }
+
+    @Test
+    public void testMatchPattern4() {
+        String message = "This commit is for DERBY -2528 Set the correct collation type in SchemaDescriptor. The collation type will be UCS_BASIC for system schemas but it can be\n"
+                + "    TERRITORY_BASED/UCS_BASIC for user schemas.";
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DERBY").cursor(message);
+        Assert.assertTrue(cursor.find());
+        assertEquals("DERBY-2528", cursor.issueKey());
+    }
+
+    @Test
+    public void testMatchPattern5() {
+        String message = "awdawdawd Aries-1. awdawd";
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("ARIES").cursor(message);
+        Assert.assertTrue(cursor.find());
+        assertEquals("Aries-1", message.substring(cursor.start(), cursor.end()));
+        assertEquals("ARIES-1", cursor.issueKey());
+    }
+
+    @Test
+    public void testNotMatchPattern() {
+        IssueKeyScanner scanner = new IssueKeyScanner("ARIES");
+        Assert.assertFalse(scanner.cursor("awdawdawd Aries-1.1 awdawd").find());
+        Assert.assertFalse(scanner.cursor("awdawdawd http://apache.org/aries-1.1 awdawd").find());
+        Assert.assertFalse(scanner.cursor("awdawdawd http://apache.org/aries-1.x awdawd").find());
+        Assert.assertTrue(scanner.cursor("awdawdawd http://apache.org/aries-1-1 awdawd").find());
+        Assert.assertFalse(scanner.cursor("awdawdawd http://apache.org/aries-1-x awdawd").find());
+        Assert.assertFalse(scanner.cursor("ends with ARIES-1").find());
+    }
+
+    @Test
+    public void testMultipleProjects() {
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DERBY", "SOLR", "LUCENE")
+                .cursor("LUCENE-12, SOLR-3 (see DERBY--4) and lucene - 5.");
+        Assert.assertTrue(cursor.find());
+        assertEquals("LUCENE-12", cursor.issueKey());
+        Assert.assertTrue(cursor.find());
+        assertEquals("SOLR-3", cursor.issueKey());
+        Assert.assertTrue(cursor.find());
+        assertEquals("DERBY-4", cursor.issueKey());
+        Assert.assertTrue(cursor.find());
+        assertEquals("LUCENE-5", cursor.issueKey());
+        assertEquals(5, cursor.number());
+        Assert.assertFalse(cursor.find());
+    }
+
+    @Test
+    public void testNumber() {
+        IssueKeyScanner.Cursor cursor = new IssueKeyScanner("DERBY")
+                .cursor("DERBY-0, DERBY - 0123, DERBY-99999999999 and DERBY-2147483647.");
+        Assert.assertTrue(cursor.find());
+        assertEquals(0, cursor.number());
+        Assert.assertTrue(cursor.find());
+        assertEquals("DERBY-0123", cursor.issueKey());
+        assertEquals(-1, cursor.number());
+        assertEquals(17, cursor.numberStart());
+        Assert.assertTrue(cursor.find());
+        assertEquals(-1, cursor.number());
+        Assert.assertTrue(cursor.find());
+        assertEquals(Integer.MAX_VALUE, cursor.number());
+    }
+
+    @Test
+    public void testStopsAtGitSvnId() {
+        IssueKeyScanner scanner = new IssueKeyScanner("CAMEL");
+        IssueKeyScanner.Cursor cursor = scanner.cursor("    Fix build error introduced by CAMEL-1134\n"
+                + "     \n"
+                + "     git-svn-id: https://svn.apache.org/repos/asf/activemq/camel/branches/camel-1.x@722153 13f79535-47bb-0310-9956-ffa450edef68\n"
+                + " ");
+        Assert.assertTrue(cursor.find());
+        assertEquals("CAMEL-1134", cursor.issueKey());
+        Assert.assertFalse(cursor.find());
+
+        // the key is followed by the end of the text once the trailer is removed
+        Assert.assertFalse(scanner.cursor("Fixed CAMEL-1\ngit-svn-id: https://svn.apache.org/camel-1.1.0").find());
+        Assert.assertTrue(scanner.cursor("Fixed CAMEL-1\ngit-svn-id: https://svn.apache.org/camel-1.1.0\n").find());
+        // not a trailer: no whitespace before or after "git-svn-id:", or another URL
+        Assert.assertFalse(scanner.cursor(" git-svn-id: https://svn.apache.org/ CAMEL-1 ").find());
+        Assert.assertTrue(scanner.cursor("x-git-svn-id: https://svn.apache.org/ CAMEL-1 ").find());
+        Assert.assertTrue(scanner.cursor(" git-svn-id:https://svn.apache.org/ CAMEL-1 ").find());
+        Assert.assertTrue(scanner.cursor(" git-svn-id: https://svn.example.org/ CAMEL-1 ").find());
+    }
+
+    @Test
+    public void testSameOccurrencesAsReplaceUrl() {
+        final IssueKeyScanner scanner = new IssueKeyScanner("ARIES");
+        final char[] alphabet = "ARIESaries- \t\n0123456789.:,;_()]xZ/".toCharArray();
+        final String[] trailers = {"git-svn-id: https://svn.apache.org/repos/asf/aries-1.0@1 13f79535",
+            "git-svn-id:\thttps://svn.apache.org/aries-2 ", "git-svn-id: https://svn.apache.org/"};
+        final String[] whitespaces = {"", " ", "\n", "\r\n", "\n\n ", "\t"};
+        final Random random = new Random(42);
+
+        for (int n = 0; n < 20000; n++) {
+            final StringBuilder text = new StringBuilder();
+            final int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(8) == 0) {
+                    text.append("aRiEs");
+                }
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            if (random.nextInt(4) > 0) {
+                text.append(whitespaces[random.nextInt(whitespaces.length)])
+                        .append(trailers[random.nextInt(trailers.length)])
+                        .append(whitespaces[random.nextInt(whitespaces.length)]);
+            }
+
+            final IssueKeyScanner.Cursor expected = scanner.cursor(Main.replaceUrl(text.toString()));
+            final IssueKeyScanner.Cursor cursor = scanner.cursor(text);
+            while (expected.find()) {
+                Assert.assertTrue(text.toString(), cursor.find());
+                assertEquals(text.toString(), expected.start(), cursor.start());
+                assertEquals(text.toString(), expected.issueKey(), cursor.issueKey());
+            }
+            Assert.assertFalse(text.toString(), cursor.find());
+        }
+    }
+
+    @Test
+    public void testSameOccurrencesAsPattern() {
+        final Pattern regex = Pattern.compile(Main.buildPatternByName("ARIES"), Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
+        final IssueKeyScanner scanner = new IssueKeyScanner("ARIES");
+        final char[] alphabet = "ARIESaries- \t\n0123456789.:,;_()]xZ/".toCharArray();
+        final Random random = new Random(42);
+
+        for (int n = 0; n < 20000; n++) {
+            final StringBuilder text = new StringBuilder();
+            final int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(8) == 0) {
+                    text.append("aRiEs");
+                }
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+
+            final Matcher matcher = regex.matcher(text);
+            final IssueKeyScanner.Cursor cursor = scanner.cursor(text);
+            while (matcher.find()) {
+                Assert.assertTrue(text.toString(), cursor.find());
+                assertEquals(text.toString(), matcher.start(), cursor.start());
+                assertEquals(text.toString(), matcher.end(), cursor.end());
+            }
+            Assert.assertFalse(text.toString(), cursor.find());
+        }
+    }
+}
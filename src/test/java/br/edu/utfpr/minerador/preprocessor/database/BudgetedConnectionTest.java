@@ -0,0 +1,54 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class BudgetedConnectionTest {
+
+    @Test
+    public void testCloseReleasesThePermitOnce() throws Exception {
+        final AtomicInteger closes = new AtomicInteger();
+        final Semaphore budget = new Semaphore(2);
+        budget.acquire();
+
+        Connection conn = BudgetedConnection.wrap(fakeConnection(closes), budget);
+        conn.close();
+        conn.close();
+
+        assertEquals(1, closes.get());
+        assertEquals(2, budget.availablePermits());
+    }
+
+    @Test
+    public void testDelegatesOtherMethods() throws Exception {
+        final AtomicInteger closes = new AtomicInteger();
+        Connection conn = BudgetedConnection.wrap(fakeConnection(closes), new Semaphore(1));
+
+        assertEquals("fake", conn.getCatalog());
+        assertEquals(0, closes.get());
+    }
+
+    private static Connection fakeConnection(final AtomicInteger closes) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("close".equals(method.getName())) {
+                            closes.incrementAndGet();
+                        }
+                        return "getCatalog".equals(method.getName()) ? "fake" : null;
+                    }
+                });
+    }
+}
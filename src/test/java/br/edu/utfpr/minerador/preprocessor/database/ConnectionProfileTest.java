@@ -0,0 +1,89 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ConnectionProfileTest {
+
+    @Test
+    public void testDefaults() {
+        ConnectionProfile profile = new ConnectionProfile(null, new Properties(), Collections.<String, String>emptyMap());
+
+        assertEquals("localhost", profile.getHost());
+        assertEquals(3306, profile.getPort());
+        assertEquals(0, profile.getMinimumIdle());
+        assertEquals(6, profile.getMaximumPoolSize(6));
+        assertEquals(4, profile.getStageConnections("restore", 4));
+    }
+
+    @Test
+    public void testEnvironmentOverridesProfileOverridesProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("db.host", "db1");
+        properties.setProperty("db.user", "miner");
+        properties.setProperty("server.db.user", "server");
+        properties.setProperty("pool.maximumPoolSize", "20");
+        properties.setProperty("stage.restore.connections", "3");
+        Map<String, String> environment = new HashMap<>();
+        environment.put("PREPROCESSOR_DB_HOST", "db2");
+
+        ConnectionProfile defaultProfile = new ConnectionProfile(null, properties, environment);
+        assertEquals("db2", defaultProfile.getHost());
+        assertEquals("miner", defaultProfile.getUser());
+        assertEquals(20, defaultProfile.getMaximumPoolSize(6));
+        assertEquals(3, defaultProfile.getStageConnections("restore", 8));
+
+        ConnectionProfile serverProfile = new ConnectionProfile("server", properties, environment);
+        assertEquals("server", serverProfile.getUser());
+    }
+
+    @Test
+    public void testDriverProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("driver.cachePrepStmts", "true");
+        properties.setProperty("driver.prepStmtCacheSize", "250");
+        properties.setProperty("server.driver.prepStmtCacheSize", "500");
+
+        ConnectionProfile profile = new ConnectionProfile("server", properties, Collections.<String, String>emptyMap());
+        Map<String, String> driverProperties = profile.getDriverProperties();
+
+        assertEquals(2, driverProperties.size());
+        assertEquals("true", driverProperties.get("cachePrepStmts"));
+        assertEquals("500", driverProperties.get("prepStmtCacheSize"));
+    }
+
+    @Test
+    public void testDedicatedConnections() {
+        Properties properties = new Properties();
+        properties.setProperty("db.host", "db1");
+        properties.setProperty("driver.useLocalSessionState", "true");
+        properties.setProperty("driver.elideSetAutoCommits", "true");
+        properties.setProperty("driver.characterEncoding", "UTF-8");
+
+        ConnectionProfile profile = new ConnectionProfile(null, properties, Collections.<String, String>emptyMap());
+        Properties connectionProperties = profile.getConnectionProperties();
+
+        assertEquals("jdbc:mysql://db1:3306/derby_vcs", profile.getJdbcUrl("derby_vcs"));
+        assertEquals("jdbc:mysql://db1:3306/", profile.getJdbcUrl(null));
+        assertEquals("UTF-8", connectionProperties.getProperty("characterEncoding"));
+        assertEquals("root", connectionProperties.getProperty("user"));
+        // the SET statements of a dump would make the caches stale
+        assertNull(connectionProperties.getProperty("useLocalSessionState"));
+        assertNull(connectionProperties.getProperty("elideSetAutoCommits"));
+    }
+
+    @Test
+    public void testToVariable() {
+        assertEquals("PREPROCESSOR_DB_HOST", ConnectionProfile.toVariable("db.host"));
+        assertEquals("PREPROCESSOR_STAGE_RESTORE_CONNECTIONS", ConnectionProfile.toVariable("stage.restore.connections"));
+    }
+}
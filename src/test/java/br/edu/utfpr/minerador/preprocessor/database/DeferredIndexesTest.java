@@ -0,0 +1,91 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DeferredIndexesTest {
+
+    @Test
+    public void testAlterStatement() {
+        final Map<String, String> indexes = new LinkedHashMap<>();
+        indexes.put("commit_id", "commit_id");
+        indexes.put("file_path", "file_path(255)");
+
+        assertEquals("ALTER TABLE p.commits ADD INDEX commit_id (commit_id), ADD INDEX file_path (file_path(255))",
+                DeferredIndexes.alterStatement("p.commits", indexes));
+    }
+
+    @Test
+    public void testBuildToString() {
+        final DeferredIndexes.IndexBuild build = new DeferredIndexes.IndexBuild("p.commits",
+                Arrays.asList("commit_id", "date"), 1200);
+
+        assertEquals("Added 2 indexes (commit_id, date) to p.commits in 1200 ms.", build.toString());
+    }
+
+    @Test
+    public void testSkipsExistingIndexes() throws Exception {
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:h2:mem:deferred_indexes;MODE=MySQL;DATABASE_TO_LOWER=TRUE")) {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("CREATE SCHEMA p_issues");
+                statement.execute("CREATE TABLE p_issues.issues_scmlog (id int(11) NOT NULL,"
+                        + " issue_id int(11), scmlog_id int(11), issue_key varchar(32), PRIMARY KEY (id))");
+                statement.execute("ALTER TABLE p_issues.issues_scmlog ADD INDEX issue_id (issue_id)");
+            }
+            final DeferredIndexes indexes = new DeferredIndexes()
+                    .add("p_issues.issues_scmlog", "issue_id", "issue_id")
+                    .add("p_issues.issues_scmlog", "scmlog_id", "scmlog_id")
+                    .add("p_issues.issues_scmlog", "issue_key", "issue_key")
+                    .setDialect(new DeferredIndexes.Dialect() {
+
+                        @Override
+                        public Set<String> findIndexNames(Connection conn, String table) throws SQLException {
+                            final String[] name = table.split("[.]", 2);
+                            final Set<String> names = new HashSet<>();
+                            try (ResultSet result = conn.getMetaData().getIndexInfo(null, name[0], name[1],
+                                    false, true)) {
+                                while (result.next()) {
+                                    names.add(result.getString("INDEX_NAME"));
+                                }
+                            }
+                            return names;
+                        }
+
+                        // H2 adds one index per ALTER TABLE
+                        @Override
+                        public List<String> alterStatements(String table, Map<String, String> indexes) {
+                            final List<String> statements = new ArrayList<>();
+                            for (Map.Entry<String, String> index : indexes.entrySet()) {
+                                statements.add(DeferredIndexes.alterStatement(table,
+                                        Collections.singletonMap(index.getKey(), index.getValue())));
+                            }
+                            return statements;
+                        }
+                    });
+
+            final List<DeferredIndexes.IndexBuild> builds = indexes.create(conn);
+
+            assertEquals(1, builds.size());
+            assertEquals(Arrays.asList("scmlog_id", "issue_key"), builds.get(0).getIndexNames());
+            assertEquals(Collections.emptyList(), indexes.create(conn));
+        }
+    }
+}
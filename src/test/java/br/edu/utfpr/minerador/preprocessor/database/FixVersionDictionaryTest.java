@@ -0,0 +1,32 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class FixVersionDictionaryTest {
+
+    @Test
+    public void testIdOf() {
+        FixVersionDictionary dictionary = new FixVersionDictionary(null, "derby");
+
+        assertEquals(1, dictionary.idOf("10.1.1"));
+        assertEquals(2, dictionary.idOf("10.2.1"));
+        assertEquals(1, dictionary.idOf("10.1.1"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void testMinorVersionsOrdered() {
+        FixVersionDictionary dictionary = new FixVersionDictionary(null, "derby");
+        for (String version : Arrays.asList("10.10.1", "10.2.1", "10.2.2", "10.1", "1-win")) {
+            dictionary.idOf(version);
+        }
+
+        assertEquals(Arrays.asList("1-win", "10.1", "10.2", "10.10"), dictionary.getMinorVersionsOrdered());
+    }
+}
@@ -0,0 +1,223 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueAggregatorTest {
+
+    /**
+     * The statements IssueAggregator replaced, with single quotes, as double
+     * quotes are identifiers in H2.
+     */
+    private static final String[] CORRELATED_UPDATES = {
+        "UPDATE {0}_issues.issues i SET i.fixed_on ="
+        + "  (SELECT MAX(c.changed_on)"
+        + "     FROM {0}_issues.changes c"
+        + "    WHERE c.issue_id = i.id"
+        + "      AND c.field = 'Resolution'"
+        + "      AND c.new_value = 'Fixed')"
+        + " WHERE i.resolution = 'Fixed'",
+        "UPDATE {0}_issues.issues i SET"
+        + " i.num_comments ="
+        + " (SELECT COUNT(DISTINCT(c.id))"
+        + "    FROM {0}_issues.comments c"
+        + "   WHERE c.issue_id = i.id),"
+        + " i.num_commenters ="
+        + " (SELECT COUNT(DISTINCT(c.submitted_by))"
+        + "    FROM {0}_issues.comments c"
+        + "   WHERE c.issue_id = i.id),"
+        + " i.num_dev_commenters ="
+        + " (SELECT COUNT(DISTINCT(c.submitted_by))"
+        + "    FROM {0}_issues.comments c"
+        + "    JOIN {0}_issues.people p ON c.submitted_by = p.id"
+        + "   WHERE c.issue_id = i.id"
+        + "     AND p.is_dev = 1),"
+        + " i.num_watchers ="
+        + " (SELECT COUNT(DISTINCT(iw.person_id))"
+        + "    FROM {0}_issues.issues_watchers iw"
+        + "   WHERE iw.issue_id = i.id),"
+        + " i.reopened_times ="
+        + " (SELECT COALESCE(COUNT(1), 0)"
+        + "    FROM {0}_issues.changes c"
+        + "   WHERE c.new_value = 'Reopened'"
+        + "     AND c.field = 'Status'"
+        + "     AND c.issue_id = i.id)"
+    };
+
+    private static final String AGGREGATES = "SELECT id, num_comments, num_commenters, num_dev_commenters,"
+            + " num_watchers, reopened_times, fixed_on FROM fixture_issues.issues ORDER BY id";
+
+    @Test
+    public void testSameValuesAsCorrelatedUpdates() throws Exception {
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:h2:mem:issue_aggregator;MODE=MySQL;DATABASE_TO_LOWER=TRUE")) {
+            createFixture(conn, "fixture");
+
+            try (Statement statement = conn.createStatement()) {
+                for (String update : CORRELATED_UPDATES) {
+                    statement.executeUpdate(update.replace("{0}", "fixture"));
+                }
+            }
+            final List<String> expected = select(conn, AGGREGATES);
+            clearAggregates(conn);
+
+            assertEquals(6, new IssueAggregator(streamingFetchIgnored(conn), "fixture", 2).aggregate());
+            assertEquals(expected, select(conn, AGGREGATES));
+            assertEquals(Arrays.asList(
+                    "1|3|2|1|2|2|2015-01-20 10:00:00",
+                    "2|1|1|0|0|0|null",
+                    "3|0|0|0|1|0|null",
+                    "4|0|0|0|0|0|null",
+                    "5|2|1|0|0|1|null",
+                    "6|0|0|0|0|0|null"), expected);
+        }
+    }
+
+    @Test
+    public void testSameValuesForGivenIssues() throws Exception {
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:h2:mem:issue_aggregator_incremental;MODE=MySQL;DATABASE_TO_LOWER=TRUE")) {
+            createFixture(conn, "fixture");
+
+            try (Statement statement = conn.createStatement()) {
+                for (String update : CORRELATED_UPDATES) {
+                    statement.executeUpdate(update.replace("{0}", "fixture"));
+                }
+            }
+            final List<String> expected = select(conn, AGGREGATES);
+            clearAggregates(conn);
+
+            // issue 7 does not exist, the others keep their values
+            assertEquals(3, new IssueAggregator(streamingFetchIgnored(conn), "fixture", 2)
+                    .aggregate(Arrays.asList(5, 1, 7)));
+            final List<String> aggregated = select(conn, AGGREGATES);
+            assertEquals(expected.get(0), aggregated.get(0));
+            assertEquals(expected.get(4), aggregated.get(4));
+            assertEquals("2|null|null|null|null|null|null", aggregated.get(1));
+        }
+    }
+
+    private static void createFixture(Connection conn, String project) throws SQLException {
+        final String issues = project + "_issues.";
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA " + project + "_issues");
+            statement.execute("CREATE TABLE " + issues + "people (id int(11) NOT NULL, name varchar(64),"
+                    + " is_dev tinyint(4) DEFAULT '0', PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "issues (id int(11) NOT NULL, resolution varchar(32),"
+                    + " num_comments int(11), num_commenters int(11), num_dev_commenters int(11),"
+                    + " num_watchers int(11), reopened_times int(11), fixed_on datetime, PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "comments (id int(11) NOT NULL, issue_id int(11),"
+                    + " submitted_by int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "issues_watchers (id int(11) NOT NULL,"
+                    + " issue_id int(11), person_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "changes (id int(11) NOT NULL, issue_id int(11),"
+                    + " field varchar(64), new_value varchar(64), changed_on datetime, PRIMARY KEY (id))");
+
+            statement.execute("INSERT INTO " + issues + "people VALUES"
+                    + " (1, 'dev', 1), (2, 'reporter', 0), (3, 'other dev', 1), (4, 'unknown', NULL)");
+            // 1: fixed twice, reopened; 2: fixed without change; 3: change without fix;
+            // 4: nothing; 5: comments without or by unknown people; 6: no resolution
+            statement.execute("INSERT INTO " + issues + "issues (id, resolution) VALUES"
+                    + " (1, 'Fixed'), (2, 'Fixed'), (3, 'Won''t Fix'), (4, 'Fixed'), (5, 'Duplicate'), (6, NULL)");
+            statement.execute("INSERT INTO " + issues + "comments VALUES"
+                    // repeated commenter, a developer and a reporter
+                    + " (1, 1, 1), (2, 1, 1), (3, 1, 2),"
+                    // commenter missing from people
+                    + " (4, 2, 99),"
+                    // no commenter, and a commenter with is_dev NULL
+                    + " (5, 5, NULL), (6, 5, 4),"
+                    // comment of a deleted issue
+                    + " (7, NULL, 3), (8, 42, 3)");
+            statement.execute("INSERT INTO " + issues + "issues_watchers VALUES"
+                    + " (1, 1, 1), (2, 1, 2), (3, 1, 2), (4, 3, 3), (5, NULL, 1), (6, 42, 1)");
+            statement.execute("INSERT INTO " + issues + "changes VALUES"
+                    + " (1, 1, 'Resolution', 'Fixed', '2015-01-10 10:00:00'),"
+                    + " (2, 1, 'Status', 'Reopened', '2015-01-12 10:00:00'),"
+                    + " (3, 1, 'Resolution', 'Fixed', '2015-01-20 10:00:00'),"
+                    + " (4, 1, 'Status', 'Reopened', '2015-01-22 10:00:00'),"
+                    // not counted: other field, other value, NULL date
+                    + " (5, 1, 'Resolution', 'Reopened', '2015-01-25 10:00:00'),"
+                    + " (6, 3, 'Resolution', 'Fixed', '2015-02-01 10:00:00'),"
+                    + " (7, 4, 'Resolution', 'Fixed', NULL),"
+                    + " (8, 5, 'Status', 'Reopened', '2015-03-01 10:00:00'),"
+                    + " (9, 6, 'Status', 'Closed', '2015-03-02 10:00:00')");
+        }
+    }
+
+    private static void clearAggregates(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("UPDATE fixture_issues.issues SET num_comments = NULL, num_commenters = NULL,"
+                    + " num_dev_commenters = NULL, num_watchers = NULL, reopened_times = NULL, fixed_on = NULL");
+        }
+    }
+
+    private static List<String> select(Connection conn, String sql) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery(sql)) {
+            final int columns = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int column = 1; column <= columns; column++) {
+                    row.append(column == 1 ? "" : "|").append(result.getString(column));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return Connection whose statements ignore the fetch size of
+     * Integer.MIN_VALUE, the streaming of the MySQL driver, which H2 rejects
+     */
+    private static Connection streamingFetchIgnored(final Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        final Object result = invokeOn(conn, method, args);
+                        if (!(result instanceof Statement) || !"createStatement".equals(method.getName())) {
+                            return result;
+                        }
+                        return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                                new Class<?>[]{Statement.class}, new InvocationHandler() {
+
+                                    @Override
+                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                            throws Throwable {
+                                        if ("setFetchSize".equals(method.getName()) && (Integer) args[0] < 0) {
+                                            return null;
+                                        }
+                                        return invokeOn(result, method, args);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.edu.utfpr.minerador.preprocessor.database;
+
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class LoadDataWriterTest {
+
+    private static String line(Object... values) {
+        final StringBuilder line = new StringBuilder();
+        LoadDataWriter.appendLine(line, values);
+        return line.toString();
+    }
+
+    @Test
+    public void testValues() {
+        assertEquals("1\tHADOOP-1\t\\N\t1\n", line(1, "HADOOP-1", null, true));
+    }
+
+    @Test
+    public void testEscaped() {
+        assertEquals("Fix\\tit\\nin C:\\\\tmp\\r\\0\n", line("Fix\tit\nin C:\\tmp\r\0"));
+    }
+
+    @Test
+    public void testNullTextIsNotNull() {
+        // only \N is NULL for LOAD DATA
+        assertEquals("N\t\\\\N\n", line("N", "\\N"));
+    }
+
+    @Test
+    public void testLoaded() throws SQLException {
+        LoadDataWriter.checkLoaded("derby.commits", 2, 2, null);
+    }
+
+    @Test
+    public void testWarningsFail() {
+        SQLWarning warnings = new SQLWarning("Duplicate entry '1-2' for key 'unq_issue_fix_version'", "23000");
+        warnings.setNextWarning(new SQLWarning("Data truncated for column 'message' at row 2", "01000"));
+        try {
+            LoadDataWriter.checkLoaded("derby_issues.issues_fix_version", 2, 1, warnings);
+            fail();
+        } catch (SQLException ex) {
+            assertEquals("Loaded 1 of 2 rows into derby_issues.issues_fix_version:"
+                    + " Duplicate entry '1-2' for key 'unq_issue_fix_version';"
+                    + " Data truncated for column 'message' at row 2.", ex.getMessage());
+            assertEquals("23000", ex.getSQLState());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void testMissingRowsFail() throws SQLException {
+        LoadDataWriter.checkLoaded("derby.commits", 2, 1, null);
+    }
+}
@@ -0,0 +1,72 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class CollationTest {
+
+    @Test
+    public void testOf() {
+        assertSame(Collation.CASE_INSENSITIVE, Collation.of("utf8_general_ci"));
+        assertSame(Collation.CASE_SENSITIVE, Collation.of("utf8_bin"));
+        assertSame(Collation.BINARY, Collation.of(null));
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals(Collation.CASE_INSENSITIVE.key("src/Main.java  "), Collation.CASE_INSENSITIVE.key("SRC/main.java"));
+        assertEquals(Collation.CASE_INSENSITIVE.key("café"), Collation.CASE_INSENSITIVE.key("CAFE"));
+        assertEquals("src/Main.java", Collation.CASE_SENSITIVE.key("src/Main.java "));
+        assertEquals("src/Main.java ", Collation.BINARY.key("src/Main.java "));
+        assertNull(Collation.CASE_INSENSITIVE.key(null));
+    }
+
+    @Test
+    public void testLikeSuffix() {
+        Collation collation = Collation.CASE_INSENSITIVE;
+
+        assertTrue(collation.like("/trunk/src/Main.java", "%Main.java"));
+        assertTrue(collation.like("/trunk/src/MAIN.JAVA", "%main.java"));
+        assertFalse(collation.like("/trunk/src/Main.java.orig", "%Main.java"));
+        assertFalse(Collation.CASE_SENSITIVE.like("/trunk/src/MAIN.JAVA", "%Main.java"));
+    }
+
+    @Test
+    public void testLikeWildcardsInFileName() {
+        Collation collation = Collation.CASE_INSENSITIVE;
+
+        // "_" in a file name matches any character
+        assertTrue(collation.like("/trunk/my-file.txt", "%my_file.txt"));
+        assertTrue(collation.like("/trunk/100%.txt", "%100%.txt"));
+        assertTrue(collation.like("/trunk/100abc.txt", "%100%.txt"));
+        assertTrue(collation.like("/trunk/my_file.txt", "%my\\_file.txt"));
+        assertFalse(collation.like("/trunk/my-file.txt", "%my\\_file.txt"));
+    }
+
+    @Test
+    public void testLikeTrailingSpacesAreSignificant() {
+        assertFalse(Collation.CASE_INSENSITIVE.like("/trunk/Main.java ", "%Main.java"));
+    }
+
+    @Test
+    public void testLikeNull() {
+        assertFalse(Collation.CASE_INSENSITIVE.like(null, "%Main.java"));
+        assertFalse(Collation.CASE_INSENSITIVE.like("/trunk/Main.java", null));
+    }
+
+    @Test
+    public void testLikeBacktracking() {
+        assertTrue(Collation.CASE_INSENSITIVE.like("aaab", "%a%b"));
+        assertTrue(Collation.CASE_INSENSITIVE.like("abcabd", "%abd"));
+        assertFalse(Collation.CASE_INSENSITIVE.like("abcab", "%abd"));
+        assertTrue(Collation.CASE_INSENSITIVE.like("", "%"));
+    }
+}
@@ -0,0 +1,171 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class CommitsBuilderTest {
+
+    /**
+     * The statement CommitsBuilder replaced. The CONCAT of MySQL is NULL if an
+     * argument is NULL, which H2 skips, so the CASE keeps the LIKE of MySQL.
+     */
+    private static final String INSERT_SELECT_DISTINCT = "INSERT INTO {0}.commits (commit_id, rev, committer_id,"
+            + " date, message, repository_id, action_type, branch_id, file_id, file_path, added_lines, removed_lines)"
+            + " SELECT DISTINCT s.id, s.rev, s.committer_id, s.date, s.message, s.repository_id, a.type, a.branch_id,"
+            + " fil.id, fill.file_path, filcl.added, filcl.removed"
+            + "  FROM {0}_vcs.scmlog s"
+            + "  JOIN {0}_vcs.actions a ON a.commit_id = s.id"
+            + "  JOIN {0}_vcs.files fil ON fil.id = a.file_id"
+            + "  JOIN {0}_vcs.file_links fill ON fill.file_id = fil.id AND fill.commit_id IN"
+            + "       (SELECT afill.commit_id"
+            + "          FROM {0}_vcs.file_links afill"
+            + "         WHERE afill.commit_id <= s.id"
+            + "           AND afill.file_id = fil.id"
+            + "           AND afill.file_path LIKE"
+            + "               CASE WHEN fil.file_name IS NULL THEN NULL ELSE CONCAT('%', fil.file_name) END)"
+            + "  JOIN {0}_vcs.commits_files_lines filcl ON filcl.commit = s.id AND filcl.path = fill.file_path"
+            + " WHERE s.id IN (SELECT DISTINCT(scmlog_id) FROM {0}_issues.issues_scmlog)"
+            + " ORDER BY date ASC";
+
+    @Test
+    public void testQualifyingKeys() {
+        final FilePathHistory.Builder builder = new FilePathHistory.Builder();
+        // renamed in commit 20 and again in commit 30, but not to Main.java
+        builder.add(1, 10, "/trunk/src/Main.java");
+        builder.add(1, 20, "/trunk/src/main.java");
+        builder.add(1, 20, "/trunk/src/Other.txt");
+        builder.add(1, 30, "/trunk/src/Other.txt");
+        builder.add(1, 40, "/trunk/src/Other.java");
+        final FilePathHistory.FileLinks links = builder.build().get(1);
+
+        final String[] keys = CommitsBuilder.qualifyingKeys(links, "%Main.java", Collation.CASE_INSENSITIVE);
+
+        // commit 20 qualifies by its first path, which has the key of commit 10
+        assertArrayEquals(new String[]{"/TRUNK/SRC/MAIN.JAVA", null, "/TRUNK/SRC/OTHER.TXT", null, null}, keys);
+    }
+
+    @Test
+    public void testSameRowsAsStatement() throws Exception {
+        // "=" and DISTINCT ignore case, accents and trailing spaces, as utf8_general_ci
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:commits_builder;MODE=MySQL;"
+                + "DATABASE_TO_LOWER=TRUE;COLLATION=ENGLISH STRENGTH PRIMARY")) {
+            createFixture(conn, "fixture");
+
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate(INSERT_SELECT_DISTINCT.replace("{0}", "fixture"));
+            }
+            final List<String> expected = selectCommits(conn, "fixture");
+
+            assertEquals(expected.size(), new CommitsBuilder(conn, "fixture", 2).build());
+            assertEquals(expected, selectCommits(conn, "fixture"));
+            assertEquals(10, expected.size());
+        }
+    }
+
+    private static void createFixture(Connection conn, String project) throws SQLException {
+        final String vcs = project + "_vcs.";
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA " + project);
+            statement.execute("CREATE SCHEMA " + project + "_vcs");
+            statement.execute("CREATE SCHEMA " + project + "_issues");
+            statement.execute("CREATE TABLE " + project + ".commits (commit_id int(11), rev varchar(40),"
+                    + " committer_id int(11), date datetime, message longtext, repository_id int(11),"
+                    + " action_type varchar(1), branch_id int(11), file_id int(11), file_path varchar(4096),"
+                    + " added_lines int(11), removed_lines int(11))");
+            statement.execute("CREATE TABLE " + vcs + "scmlog (id int(11) NOT NULL, rev mediumtext,"
+                    + " committer_id int(11), date datetime, message longtext, repository_id int(11),"
+                    + " PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "files (id int(11) NOT NULL, file_name varchar(255),"
+                    + " PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "actions (id int(11) NOT NULL, type varchar(1),"
+                    + " file_id int(11), commit_id int(11), branch_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "file_links (id int(11) NOT NULL, file_id int(11),"
+                    + " commit_id int(11), file_path varchar(4096), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + vcs + "commits_files_lines (id int(11) NOT NULL, commit int(11),"
+                    + " path varchar(4096), added int(11), removed int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + project + "_issues.issues_scmlog (id int(11) NOT NULL,"
+                    + " issue_id int(11), scmlog_id int(11), PRIMARY KEY (id))");
+
+            // commit 1 is not linked, commit 6 is older than commit 5
+            statement.execute("INSERT INTO " + vcs + "scmlog VALUES"
+                    + " (1, 'r1', 1, '2015-01-01 10:00:00', 'Initial import', 1),"
+                    + " (2, 'r2', 1, '2015-01-02 10:00:00', 'DERBY-1: add old and readme', 1),"
+                    + " (3, 'r3', 2, '2015-01-03 10:00:00', 'DERBY-2: rename by case', 1),"
+                    + " (4, 'r4', 2, '2015-01-04 10:00:00', 'DERBY-3: rename old to new', 1),"
+                    + " (5, 'r5', NULL, '2015-01-06 10:00:00', 'DERBY-4: move main', NULL),"
+                    + " (6, 'r6', 3, '2015-01-05 10:00:00', 'DERBY-5: accents', 1)");
+            statement.execute("INSERT INTO " + project + "_issues.issues_scmlog VALUES"
+                    + " (1, 1, 2), (2, 2, 3), (3, 3, 4), (4, 4, 5), (5, 4, 5), (6, 5, 6)");
+
+            // NULL file_name never matches the LIKE
+            statement.execute("INSERT INTO " + vcs + "files VALUES"
+                    + " (1, 'Main.java'), (2, 'Old.java'), (3, NULL), (4, 'Util.java')");
+            statement.execute("INSERT INTO " + vcs + "file_links VALUES"
+                    // renamed by case in commit 3, moved in commit 5
+                    + " (1, 1, 1, '/trunk/src/Main.java'),"
+                    + " (2, 1, 3, '/trunk/src/main.java'),"
+                    + " (3, 1, 5, '/trunk/lib/Main.java'),"
+                    // renamed in commit 4 to a path without its file name
+                    + " (4, 2, 2, '/trunk/Old.java'),"
+                    + " (5, 2, 4, '/trunk/New.java'),"
+                    + " (6, 3, 2, '/trunk/README'),"
+                    // two paths of the same commit, one with an accent
+                    + " (7, 4, 6, '/trunk/src/Útil.java'),"
+                    + " (8, 4, 6, '/trunk/src/Helper.java')");
+            statement.execute("INSERT INTO " + vcs + "actions VALUES"
+                    + " (1, 'A', 1, 1, 1), (2, 'A', 2, 2, 1), (3, 'A', 3, 2, 1), (4, 'M', 1, 3, 1),"
+                    + " (5, 'V', 2, 4, 1), (6, 'M', 1, 4, NULL), (7, 'V', 1, 5, 2), (8, 'A', 4, 6, 1),"
+                    + " (9, 'M', 1, 6, 1)");
+            statement.execute("INSERT INTO " + vcs + "commits_files_lines VALUES"
+                    + " (1, 1, '/trunk/src/Main.java', 10, 0),"
+                    // trailing spaces are ignored by "="
+                    + " (2, 2, '/trunk/Old.java  ', 5, 0),"
+                    + " (3, 2, '/trunk/README', 1, 0),"
+                    // case differs from both links, repeated lines are DISTINCT
+                    + " (4, 3, '/TRUNK/SRC/MAIN.JAVA', 2, 1),"
+                    + " (5, 3, '/TRUNK/SRC/MAIN.JAVA', 2, 1),"
+                    + " (6, 3, '/trunk/src/Main.java', 3, 3),"
+                    + " (7, 4, '/trunk/New.java', 0, 0),"
+                    + " (8, 4, '/trunk/Old.java', NULL, NULL),"
+                    + " (9, 4, '/trunk/src/main.java', 4, 4),"
+                    + " (10, 5, '/trunk/lib/Main.java', 0, 0),"
+                    + " (11, 5, '/trunk/src/Main.java', 1, 1),"
+                    + " (12, 6, '/trunk/src/Util.java', 7, 0),"
+                    + " (13, 6, '/trunk/src/Helper.java', 8, 0),"
+                    + " (14, 6, '/trunk/src/main.java', 9, 9)");
+        }
+    }
+
+    /**
+     * @return Rows of {0}.commits, sorted as there is no order in a table
+     */
+    private static List<String> selectCommits(Connection conn, String project) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery("SELECT * FROM " + project + ".commits")) {
+            final int columns = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int column = 1; column <= columns; column++) {
+                    row.append(column == 1 ? "" : "|").append(result.getString(column));
+                }
+                rows.add(row.toString());
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,68 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class FilePathHistoryTest {
+
+    private static FilePathHistory history() {
+        final FilePathHistory.Builder builder = new FilePathHistory.Builder();
+        builder.add(1, 30, "/trunk/src/B.java");
+        builder.add(1, 10, "/trunk/src/A.java");
+        builder.add(2, 10, new String("/trunk/src/A.java"));
+        builder.add(1, 20, "/trunk/src/A.java");
+        builder.add(1, 20, "/branches/1.0/src/A.java");
+        return builder.build();
+    }
+
+    @Test
+    public void testSortedByCommit() {
+        final FilePathHistory.FileLinks links = history().get(1);
+
+        assertEquals(4, links.size());
+        assertEquals(10, links.getCommitId(0));
+        assertEquals(20, links.getCommitId(1));
+        assertEquals(20, links.getCommitId(2));
+        assertEquals(30, links.getCommitId(3));
+        // the links of a commit keep the order they were read
+        assertEquals("/trunk/src/A.java", links.getPath(1));
+        assertEquals("/branches/1.0/src/A.java", links.getPath(2));
+    }
+
+    @Test
+    public void testCountAsOf() {
+        final FilePathHistory.FileLinks links = history().get(1);
+
+        assertEquals(0, links.countAsOf(9));
+        assertEquals(1, links.countAsOf(10));
+        assertEquals(1, links.countAsOf(19));
+        assertEquals(3, links.countAsOf(20));
+        assertEquals(4, links.countAsOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testPathAsOf() {
+        final FilePathHistory history = history();
+
+        assertNull(history.getPathAsOf(1, 5));
+        assertEquals("/trunk/src/A.java", history.getPathAsOf(1, 15));
+        assertEquals("/trunk/src/B.java", history.getPathAsOf(1, 30));
+        assertNull(history.getPathAsOf(3, 30));
+    }
+
+    @Test
+    public void testInterned() {
+        final FilePathHistory history = history();
+
+        assertSame(history.get(1).getPath(0), history.get(2).getPath(0));
+        assertEquals(5, history.getLinkCount());
+        assertEquals(3, history.getPathCount());
+        assertEquals(2, history.getFileCount());
+    }
+}
@@ -0,0 +1,121 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssueLifetimeIndexTest {
+
+    private static IssueLifetimeIndex index() {
+        return new IssueLifetimeIndex.Builder()
+                .add(3, 30, 60)
+                .add(1, 10, 20)
+                .add(2, 10, 50)
+                .add(4, 40, 40)
+                .build();
+    }
+
+    @Test
+    public void testOpenAt() {
+        IssueLifetimeIndex index = index();
+
+        assertEquals(4, index.size());
+        assertArrayEquals(new int[0], index.openAt(5));
+        // the ends are exclusive, as "s.date > i.submitted_on AND s.date < i.fixed_on"
+        assertArrayEquals(new int[0], index.openAt(10));
+        assertArrayEquals(new int[]{1, 2}, sorted(index.openAt(15)));
+        assertArrayEquals(new int[]{2}, index.openAt(20));
+        assertArrayEquals(new int[]{2, 3}, sorted(index.openAt(45)));
+        assertArrayEquals(new int[]{3}, index.openAt(50));
+        assertArrayEquals(new int[0], index.openAt(60));
+    }
+
+    @Test
+    public void testSweep() {
+        IssueLifetimeIndex.Sweep sweep = index().sweep();
+
+        sweep.advanceTo(15);
+        assertTrue(sweep.isOpen(1));
+        assertTrue(sweep.isOpen(2));
+        assertFalse(sweep.isOpen(3));
+        assertEquals(2, sweep.getOpenCount());
+
+        sweep.advanceTo(40);
+        assertFalse(sweep.isOpen(1));
+        assertTrue(sweep.isOpen(3));
+        // empty lifetime
+        assertFalse(sweep.isOpen(4));
+        assertFalse(sweep.isOpen(99));
+        assertEquals(2, sweep.getOpenCount());
+
+        sweep.advanceTo(40);
+        assertEquals(2, sweep.getOpenCount());
+
+        sweep.advanceTo(100);
+        assertEquals(0, sweep.getOpenCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSweepBackwards() {
+        IssueLifetimeIndex.Sweep sweep = index().sweep();
+        sweep.advanceTo(20);
+        sweep.advanceTo(19);
+    }
+
+    @Test
+    public void testEmpty() {
+        IssueLifetimeIndex index = new IssueLifetimeIndex.Builder().build();
+
+        assertArrayEquals(new int[0], index.openAt(0));
+        IssueLifetimeIndex.Sweep sweep = index.sweep();
+        sweep.advanceTo(0);
+        assertFalse(sweep.isOpen(1));
+    }
+
+    @Test
+    public void testSameAsScan() {
+        Random random = new Random(42);
+        int count = 500;
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        IssueLifetimeIndex.Builder builder = new IssueLifetimeIndex.Builder();
+        for (int i = 0; i < count; i++) {
+            starts[i] = random.nextInt(1000);
+            ends[i] = starts[i] + random.nextInt(200);
+            builder.add(i, starts[i], ends[i]);
+        }
+        IssueLifetimeIndex index = builder.build();
+        IssueLifetimeIndex.Sweep sweep = index.sweep();
+
+        for (long time = -1; time <= 1201; time += 1 + random.nextInt(3)) {
+            int[] expected = new int[count];
+            int expectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (starts[i] < time && time < ends[i]) {
+                    expected[expectedCount++] = i;
+                }
+            }
+            assertArrayEquals("at " + time, Arrays.copyOf(expected, expectedCount), sorted(index.openAt(time)));
+
+            sweep.advanceTo(time);
+            assertEquals("at " + time, expectedCount, sweep.getOpenCount());
+            for (int i = 0; i < count; i++) {
+                assertEquals("at " + time, starts[i] < time && time < ends[i], sweep.isOpen(i));
+            }
+        }
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,159 @@
+package br.edu.utfpr.minerador.preprocessor.denormalization;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class IssuesToAnalyzeBuilderTest {
+
+    /**
+     * The statement IssuesToAnalyzeBuilder replaced, with single quotes, as
+     * double quotes are identifiers in H2, and into fixed_date, the column of
+     * the table (it named index_fixed_date).
+     */
+    private static final String INSERT_SELECT_DISTINCT = "INSERT INTO {0}.issues_to_analyze (fixed_date, issue_id)"
+            + "  SELECT DISTINCT i.fixed_on, i.id"
+            + "    FROM {0}_issues.issues i"
+            + "    JOIN {0}_issues.changes c ON c.issue_id = i.id"
+            + "    JOIN {0}_issues.issues_scmlog i2s ON i2s.issue_id = i.id"
+            + "    JOIN {0}_issues.issues_fix_version ifv ON ifv.issue_id = i2s.issue_id"
+            + "    JOIN {0}_issues.issues_ext_jira iej ON iej.issue_id = i.id"
+            + "    JOIN {0}_vcs.scmlog s ON s.id = i2s.scmlog_id"
+            + "    JOIN {0}.commits com ON com.commit_id = i2s.scmlog_id"
+            + "   WHERE i.fixed_on IS NOT NULL"
+            + "     AND s.date > i.submitted_on"
+            + "     AND s.date < i.fixed_on"
+            + "     AND i.resolution = 'Fixed'"
+            + "     AND c.field = 'Resolution'"
+            + "     AND c.new_value = i.resolution"
+            + "     AND s.num_files <= 20"
+            + "     AND s.num_files > 0"
+            + "     AND (com.file_path LIKE '%.xml' OR com.file_path LIKE '%.java')"
+            + "     AND com.file_path NOT LIKE '%Test.java'"
+            + "     AND com.file_path NOT LIKE '%_test.java'"
+            + "   ORDER BY i.fixed_on ASC";
+
+    private static final String ROWS = "SELECT fixed_date, issue_id FROM fixture.issues_to_analyze"
+            + " ORDER BY fixed_date, issue_id";
+
+    @Test
+    public void testSameRowsAsStatement() throws Exception {
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:h2:mem:issues_to_analyze;MODE=MySQL;DATABASE_TO_LOWER=TRUE")) {
+            createFixture(conn, "fixture");
+
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate(INSERT_SELECT_DISTINCT.replace("{0}", "fixture"));
+            }
+            final List<String> expected = select(conn, ROWS);
+
+            assertEquals(expected.size(), new IssuesToAnalyzeBuilder(conn, "fixture").build());
+            assertEquals(expected, select(conn, ROWS));
+            assertEquals(Arrays.asList(
+                    "2015-01-10 00:00:00|1",
+                    "2015-01-10 00:00:00|7",
+                    "2015-02-01 00:00:00|2"), expected);
+        }
+    }
+
+    private static void createFixture(Connection conn, String project) throws SQLException {
+        final String issues = project + "_issues.";
+        final String vcs = project + "_vcs.";
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE SCHEMA " + project);
+            statement.execute("CREATE SCHEMA " + project + "_issues");
+            statement.execute("CREATE SCHEMA " + project + "_vcs");
+            statement.execute("CREATE TABLE " + project + ".issues_to_analyze (fixed_date datetime,"
+                    + " issue_id int(11))");
+            statement.execute("CREATE TABLE " + project + ".commits (commit_id int(11), file_path varchar(4096))");
+            statement.execute("CREATE TABLE " + vcs + "scmlog (id int(11) NOT NULL, date datetime,"
+                    + " num_files int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "issues (id int(11) NOT NULL, resolution varchar(32),"
+                    + " submitted_on datetime, fixed_on datetime, PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "changes (id int(11) NOT NULL, issue_id int(11),"
+                    + " field varchar(64), new_value varchar(64), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "issues_scmlog (id int(11) NOT NULL, issue_id int(11),"
+                    + " scmlog_id int(11), PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE " + issues + "issues_fix_version (issue_id int(11),"
+                    + " fix_version varchar(64))");
+            statement.execute("CREATE TABLE " + issues + "issues_ext_jira (issue_id int(11))");
+
+            statement.execute("INSERT INTO " + issues + "issues VALUES"
+                    // analyzed: by its second commit, and by two commits
+                    + " (1, 'Fixed', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    + " (2, 'Fixed', '2015-01-05 00:00:00', '2015-02-01 00:00:00'),"
+                    // commit only at the start and at the end, which are exclusive
+                    + " (3, 'Fixed', '2015-01-03 00:00:00', '2015-01-08 00:00:00'),"
+                    // no submission date, not fixed, no fix version, not in Jira
+                    + " (4, 'Fixed', NULL, '2015-01-10 00:00:00'),"
+                    + " (5, 'Won''t Fix', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    + " (6, 'Fixed', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    + " (7, 'Fixed', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    + " (8, 'Fixed', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    // fixed without change, fixed_on NULL
+                    + " (9, 'Fixed', '2015-01-01 00:00:00', '2015-01-10 00:00:00'),"
+                    + " (10, 'Fixed', '2015-01-01 00:00:00', NULL),"
+                    // only commits of tests, of too many files or of no file
+                    + " (11, 'Fixed', '2015-01-01 00:00:00', '2015-03-01 00:00:00')");
+            statement.execute("INSERT INTO " + issues + "changes VALUES"
+                    + " (1, 1, 'Resolution', 'Fixed'), (2, 1, 'Resolution', 'Fixed'), (3, 2, 'Resolution', 'Fixed'),"
+                    + " (4, 3, 'Resolution', 'Fixed'), (5, 4, 'Resolution', 'Fixed'), (6, 5, 'Resolution', 'Fixed'),"
+                    + " (7, 6, 'Resolution', 'Fixed'), (8, 7, 'Resolution', 'Fixed'), (9, 8, 'Resolution', 'Fixed'),"
+                    + " (10, 9, 'Status', 'Closed'), (11, 10, 'Resolution', 'Fixed'),"
+                    + " (12, 11, 'Resolution', 'Fixed')");
+            statement.execute("INSERT INTO " + issues + "issues_fix_version VALUES"
+                    + " (1, '1.0'), (1, '1.1'), (2, '1.0'), (3, '1.0'), (4, '1.0'), (5, '1.0'), (7, '1.0'),"
+                    + " (8, '1.0'), (9, '1.0'), (10, '1.0'), (11, '1.0')");
+            statement.execute("INSERT INTO " + issues + "issues_ext_jira VALUES"
+                    + " (1), (2), (3), (4), (5), (6), (7), (9), (10), (11)");
+
+            statement.execute("INSERT INTO " + vcs + "scmlog VALUES"
+                    + " (1, '2014-12-31 00:00:00', 1),"
+                    + " (2, '2015-01-03 00:00:00', 2),"
+                    + " (3, '2015-01-08 00:00:00', 1),"
+                    + " (4, '2015-01-09 00:00:00', 20),"
+                    + " (5, '2015-01-20 00:00:00', 3),"
+                    + " (6, '2015-02-10 00:00:00', 21),"
+                    + " (7, '2015-02-11 00:00:00', 0),"
+                    + " (8, '2015-02-12 00:00:00', 1),"
+                    + " (9, NULL, 1)");
+            statement.execute("INSERT INTO " + project + ".commits VALUES"
+                    + " (1, '/trunk/src/Main.java'),"
+                    + " (2, '/trunk/src/Main.java'), (2, '/trunk/pom.xml'),"
+                    + " (3, '/trunk/src/Main.java'),"
+                    + " (4, '/trunk/README'), (4, '/trunk/build.xml'),"
+                    + " (5, '/trunk/src/Util.java'),"
+                    + " (6, '/trunk/src/Util.java'),"
+                    + " (7, '/trunk/src/Util.java'),"
+                    + " (8, '/trunk/src/UtilTest.java'), (8, '/trunk/src/util_test.java'),"
+                    + " (9, '/trunk/src/Util.java')");
+            // commit 2 is linked to many issues, commit 4 to issue 1 twice
+            statement.execute("INSERT INTO " + issues + "issues_scmlog VALUES"
+                    + " (1, 1, 1), (2, 1, 4), (3, 1, 4), (4, 2, 5), (5, 2, 2), (6, 3, 2), (7, 3, 3),"
+                    + " (8, 4, 2), (9, 5, 2), (10, 6, 2), (11, 7, 4), (12, 8, 2), (13, 9, 2), (14, 10, 2),"
+                    + " (15, 11, 6), (16, 11, 7), (17, 11, 8), (18, 11, 9), (19, 2, 9), (20, 99, 2)");
+        }
+    }
+
+    private static List<String> select(Connection conn, String sql) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery(sql)) {
+            while (result.next()) {
+                rows.add(result.getString(1) + "|" + result.getString(2));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,80 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import javax.management.MBeanServer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class MetricRegistryTest {
+
+    @Test
+    public void testSameMetricByName() {
+        MetricRegistry metrics = new MetricRegistry();
+
+        assertSame(metrics.counter("derby.linking.pattern_hits"), metrics.counter("derby.linking.pattern_hits"));
+        assertSame(metrics.timer("derby.stage.linking"), metrics.timer("derby.stage.linking"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNameOfAnotherType() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.counter("derby.stage.linking");
+        metrics.timer("derby.stage.linking");
+    }
+
+    @Test
+    public void testValues() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.counter("derby.linking.commits_scanned").inc(3);
+        metrics.register("connections.in_use", new Gauge<Integer>() {
+
+            @Override
+            public Integer getValue() {
+                return 2;
+            }
+        });
+        metrics.register("broken", new Gauge<Integer>() {
+
+            @Override
+            public Integer getValue() {
+                throw new IllegalStateException();
+            }
+        });
+
+        SortedMap<String, Object> values = metrics.getValues();
+
+        assertEquals("[broken, connections.in_use, derby.linking.commits_scanned]", values.keySet().toString());
+        assertNull(values.get("broken"));
+        assertEquals(2, values.get("connections.in_use"));
+        assertEquals(3L, ((Map<?, ?>) values.get("derby.linking.commits_scanned")).get("count"));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.counter("derby.linking.commits_scanned").inc(3);
+        JvmGauges.register(metrics);
+        JmxExporter exporter = JmxExporter.register(metrics,
+                "br.edu.utfpr.minerador.preprocessor:type=Metrics,name=test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(3L, server.getAttribute(exporter.getName(), "derby.linking.commits_scanned.count"));
+            assertTrue((Long) server.getAttribute(exporter.getName(), "jvm.heap.peak_used_bytes") > 0);
+
+            // metrics registered later are exported too
+            metrics.timer("derby.stage.linking").update(1000000);
+            assertEquals(1L, server.getAttribute(exporter.getName(), "derby.stage.linking.count"));
+        } finally {
+            exporter.unregister();
+        }
+    }
+}
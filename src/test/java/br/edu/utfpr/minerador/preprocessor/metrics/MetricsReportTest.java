@@ -0,0 +1,63 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class MetricsReportTest {
+
+    @Test
+    public void testToJson() {
+        MetricRegistry metrics = new MetricRegistry();
+        metrics.register("jvm.heap.peak_used_bytes", new Gauge<Long>() {
+
+            @Override
+            public Long getValue() {
+                return 1024L;
+            }
+        });
+        Map<String, Object> project = new LinkedHashMap<>();
+        project.put("project", "derby");
+        project.put("succeeded", false);
+        project.put("error", "java.sql.SQLException: \"derby\"\n\tfailed");
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("seconds", 12L);
+        run.put("projects", Arrays.asList(project));
+
+        assertEquals("{\n"
+                + "  \"run\": {\n"
+                + "    \"seconds\": 12,\n"
+                + "    \"projects\": [{\n"
+                + "      \"project\": \"derby\",\n"
+                + "      \"succeeded\": false,\n"
+                + "      \"error\": \"java.sql.SQLException: \\\"derby\\\"\\n\\tfailed\"\n"
+                + "    }]\n"
+                + "  },\n"
+                + "  \"metrics\": {\n"
+                + "    \"jvm.heap.peak_used_bytes\": 1024\n"
+                + "  }\n"
+                + "}", MetricsReport.toJson(run, metrics));
+    }
+
+    @Test
+    public void testNumbers() {
+        StringBuilder json = new StringBuilder();
+        MetricsReport.append(json, Arrays.asList(1.5, Double.NaN, Double.POSITIVE_INFINITY, 3, null), "");
+
+        assertEquals("[1.5, null, null, 3, null]", json.toString());
+    }
+
+    @Test
+    public void testControlCharacters() {
+        StringBuilder json = new StringBuilder();
+        MetricsReport.appendString(json, "a\u0001b\\");
+
+        assertEquals("\"a\\u0001b\\\\\"", json.toString());
+    }
+}
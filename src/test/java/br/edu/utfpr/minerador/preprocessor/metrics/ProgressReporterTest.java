@@ -0,0 +1,68 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ProgressReporterTest {
+
+    @Test
+    public void testFormat() {
+        assertEquals("derby.linking: 12000 of 50000 commits (24.0%), 1500 commits/s, ETA 25 secs",
+                ProgressReporter.format("derby.linking", "commits", 12000, 50000, 1500, 25));
+        assertEquals("derby.script.preprocessing: 3 statements, 0.5 statements/s",
+                ProgressReporter.format("derby.script.preprocessing", "statements", 3, 0, 0.5, -1));
+        assertEquals("derby.restore: 1.5 MB of 3.0 GB (0.0%), 512 B/s, ETA 2 h 10 min",
+                ProgressReporter.format("derby.restore", ProgressReporter.BYTES,
+                        1536 * 1024, 3L * 1024 * 1024 * 1024, 512, 7800));
+    }
+
+    @Test
+    public void testNoEtaWhenFinished() {
+        assertEquals("derby.linking: 10 of 10 commits (100.0%), 2.0 commits/s",
+                ProgressReporter.format("derby.linking", "commits", 10, 10, 2, 0));
+    }
+
+    @Test
+    public void testFormatDuration() {
+        assertEquals("45 secs", ProgressReporter.formatDuration(45));
+        assertEquals("3 min 05 secs", ProgressReporter.formatDuration(185));
+        assertEquals("2 h 10 min", ProgressReporter.formatDuration(7800));
+    }
+
+    @Test
+    public void testFormatBytes() {
+        assertEquals("1023 B", ProgressReporter.formatBytes(1023));
+        assertEquals("1.0 KB", ProgressReporter.formatBytes(1024));
+        assertEquals("2.5 GB", ProgressReporter.formatBytes(5L * 512 * 1024 * 1024));
+    }
+
+    @Test
+    public void testGauge() throws Exception {
+        final AtomicLong processed = new AtomicLong();
+        try (ProgressReporter progress = ProgressReporter.start("test.progress_reporter", "rows", 100,
+                new Gauge<Long>() {
+
+                    @Override
+                    public Long getValue() {
+                        return processed.get();
+                    }
+                }, null, 10, TimeUnit.MILLISECONDS)) {
+            processed.set(40);
+            Thread.sleep(50);
+        }
+
+        Map<?, ?> values = (Map<?, ?>) MetricRegistry.getDefault().getValues()
+                .get("test.progress_reporter.progress");
+        assertEquals(40L, values.get("processed"));
+        assertEquals(100L, values.get("total"));
+        assertTrue((Long) values.get("eta_secs") >= 0);
+    }
+}
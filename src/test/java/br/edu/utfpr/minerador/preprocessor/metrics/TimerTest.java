@@ -0,0 +1,74 @@
+package br.edu.utfpr.minerador.preprocessor.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class TimerTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int bucket = Timer.bucketOf(value);
+            assertTrue(value + " in " + bucket, value <= Timer.upperBoundOf(bucket));
+            assertTrue(value + " in " + bucket, bucket == 0 || value > Timer.upperBoundOf(bucket - 1));
+        }
+        assertTrue(Timer.upperBoundOf(Timer.bucketOf(Long.MAX_VALUE)) == Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testPercentiles() {
+        Timer timer = new Timer();
+        for (int i = 1; i <= 100; i++) {
+            timer.update(i, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(100, timer.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), timer.getTotalNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), timer.getMaxNanos());
+        assertNear(TimeUnit.MILLISECONDS.toNanos(50), timer.getPercentileNanos(0.5));
+        assertNear(TimeUnit.MILLISECONDS.toNanos(95), timer.getPercentileNanos(0.95));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), timer.getPercentileNanos(1));
+    }
+
+    @Test
+    public void testEmpty() {
+        Timer timer = new Timer();
+        timer.update(-1);
+
+        assertEquals(0, timer.getCount());
+        assertEquals(0, timer.getPercentileNanos(0.99));
+        assertEquals(0, timer.getMeanNanos(), 0);
+    }
+
+    @Test
+    public void testContextRecordsOnce() {
+        Timer timer = new Timer();
+        try (Timer.Context context = timer.time()) {
+            context.stop();
+        }
+
+        assertEquals(1, timer.getCount());
+    }
+
+    @Test
+    public void testToMap() {
+        Timer timer = new Timer();
+        timer.update(2, TimeUnit.MILLISECONDS);
+        Map<String, Object> values = timer.toMap();
+
+        assertEquals(1L, values.get("count"));
+        assertEquals(2.0, (Double) values.get("max_ms"), 0);
+        assertEquals(2.0, (Double) values.get("mean_ms"), 0);
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(actual + " is not near " + expected, actual >= expected && actual <= expected * 5 / 4);
+    }
+}
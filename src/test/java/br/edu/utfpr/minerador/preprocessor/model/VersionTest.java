@@ -0,0 +1,114 @@
+package br.edu.utfpr.minerador.preprocessor.model;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class VersionTest {
+
+    @Test
+    public void testParse() {
+        Version version = Version.of("1.21-M2.win");
+
+        assertEquals(3, version.size());
+        assertEquals(1, version.getNumber(0));
+        assertNull(version.getQualifier(0));
+        assertEquals(21, version.getNumber(1));
+        assertEquals("21-M2", version.getQualifier(1));
+        assertEquals(Version.NOT_A_NUMBER, version.getNumber(2));
+    }
+
+    @Test
+    public void testMinorAndMajorVersion() {
+        assertEquals("1.1", Version.of("1.1.1").getMinorVersion());
+        assertEquals("1.1", Version.of("1.1").getMinorVersion());
+        assertEquals("1", Version.of("1.1.1").getMajorVersion());
+        assertEquals("1-win", Version.of("1-win").getMajorVersion());
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(Version.of("1.2.3"), Version.of(new String("1.2.3")));
+    }
+
+    @Test
+    public void testCompare() {
+        assertEquals(-1, Version.of("1.2").compareTo(Version.of("1.10")));
+        assertEquals(1, Version.of("2.0").compareTo(Version.of("1-win")));
+        assertEquals(-1, Version.of("1.21-M1").compareTo(Version.of("1.21-M2")));
+        assertEquals(0, Version.of("1.1").compareTo(Version.of("1.1.1")));
+        assertEquals(0, Version.of("1.0").compareTo(Version.of("1.00")));
+    }
+
+    @Test
+    public void testSameAsStringComparison() {
+        final String alphabet = "0123456789.-M";
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final String o1 = randomVersion(random, alphabet);
+            final String o2 = randomVersion(random, alphabet);
+            final int expected;
+            try {
+                expected = compareStrings(o1, o2);
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                // a component of dashes only (e.g. "1.-") used to throw
+                continue;
+            }
+            assertEquals(o1 + " vs " + o2, expected, Version.of(o1).compareTo(Version.of(o2)));
+        }
+    }
+
+    private static String randomVersion(Random random, String alphabet) {
+        final StringBuilder version = new StringBuilder();
+        final int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            version.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return version.toString();
+    }
+
+    /**
+     * Comparison of the versions as strings, before {@link Version}
+     */
+    private static int compareStrings(String o1, String o2) {
+        String[] version1 = o1.split("[.]");
+        String[] version2 = o2.split("[.]");
+
+        int length = Math.min(version1.length, version2.length);
+        for (int i = 0; i < length; i++) {
+            Integer i0;
+            try {
+                i0 = Integer.parseInt(version1[i].split("[-]")[0]);
+            } catch (NumberFormatException ex) {
+                i0 = 9999;
+            }
+            Integer i1;
+            try {
+                i1 = Integer.parseInt(version2[i].split("[-]")[0]);
+            } catch (NumberFormatException ex) {
+                i1 = 9999;
+            }
+
+            if (version1[i].contains("-") && version2[i].contains("-")) {
+                if (version1[i].compareTo(version2[i]) < 0) {
+                    return -1;
+                } else if (version2[i].compareTo(version1[i]) < 0) {
+                    return 1;
+                }
+            } else {
+                if (i0.compareTo(i1) < 0) {
+                    return -1;
+                } else if (i1.compareTo(i0) < 0) {
+                    return 1;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,54 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DumpFingerprintTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(byte[] content, long lastModified) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content);
+        Assert.assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+
+    @Test
+    public void testSameContent() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024];
+        Arrays.fill(content, (byte) 'a');
+
+        Assert.assertEquals(DumpFingerprint.of(write(content, 1420070400000L)),
+                DumpFingerprint.of(write(content, 1420070400000L)));
+    }
+
+    @Test
+    public void testChangedTail() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024];
+        Arrays.fill(content, (byte) 'a');
+        String fingerprint = DumpFingerprint.of(write(content, 1420070400000L));
+
+        content[content.length - 1] = 'b';
+        Assert.assertNotEquals(fingerprint, DumpFingerprint.of(write(content, 1420070400000L)));
+    }
+
+    @Test
+    public void testChangedModificationTime() throws IOException {
+        byte[] content = "SELECT 1;".getBytes("UTF-8");
+
+        Assert.assertNotEquals(DumpFingerprint.of(write(content, 1420070400000L)),
+                DumpFingerprint.of(write(content, 1420070401000L)));
+    }
+}
@@ -0,0 +1,80 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class DumpIndexTest {
+
+    private static final String HEADER = "-- MySQL dump 10.13\n"
+            + "/*!40101 SET NAMES utf8 */;\n"
+            + "\n";
+
+    private static final String SCMLOG = "--\n"
+            + "-- Table structure for table `scmlog`\n"
+            + "--\n"
+            + "\n"
+            + "DROP TABLE IF EXISTS `scmlog`;\n"
+            + "CREATE TABLE `scmlog` (\n"
+            + "  `id` int(11) NOT NULL\n"
+            + ");\n"
+            + "INSERT INTO `scmlog` VALUES (1),(2);\n";
+
+    private static final String ACTIONS = "-- Table structure for table `actions`\n"
+            + "DROP TABLE IF EXISTS `actions`;\n"
+            + "CREATE TABLE `actions` (`id` int(11) NOT NULL);\n"
+            + "INSERT INTO `actions` VALUES (1,'DROP TABLE IF EXISTS `x`');\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testSections() throws IOException {
+        DumpIndex index = DumpIndex.build(write(HEADER + SCMLOG + ACTIONS));
+
+        Assert.assertTrue(index.isSplittable());
+        Assert.assertEquals(HEADER.length() + 3, index.getHeaderEnd());
+
+        List<DumpIndex.Section> sections = index.getSections();
+        Assert.assertEquals(2, sections.size());
+        Assert.assertEquals("scmlog", sections.get(0).getTable());
+        Assert.assertEquals(HEADER.length() + 3, sections.get(0).getStart());
+        Assert.assertEquals(HEADER.length() + SCMLOG.length(), sections.get(0).getEnd());
+        Assert.assertEquals("actions", sections.get(1).getTable());
+        Assert.assertEquals(HEADER.length() + SCMLOG.length(), sections.get(1).getStart());
+        Assert.assertEquals(HEADER.length() + SCMLOG.length() + ACTIONS.length(), sections.get(1).getEnd());
+    }
+
+    @Test
+    public void testViews() throws IOException {
+        DumpIndex index = DumpIndex.build(write(HEADER + SCMLOG
+                + "-- Temporary view structure for view `v`\n"
+                + "/*!50001 CREATE VIEW `v` AS SELECT 1 AS `id`*/;\n"));
+
+        Assert.assertFalse(index.isSplittable());
+    }
+
+    @Test
+    public void testWithoutTables() throws IOException {
+        DumpIndex index = DumpIndex.build(write(HEADER));
+
+        Assert.assertFalse(index.isSplittable());
+        Assert.assertEquals(HEADER.length(), index.getHeaderEnd());
+    }
+}
@@ -0,0 +1,89 @@
+package br.edu.utfpr.minerador.preprocessor.restore;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class SqlStatementReaderTest {
+
+    private static List<String> split(String script) throws IOException {
+        List<String> statements = new ArrayList<>();
+        try (SqlStatementReader reader = new SqlStatementReader(
+                new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)))) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    @Test
+    public void testMysqldump() throws IOException {
+        String dump = "-- MySQL dump 10.13\n"
+                + "--\n"
+                + "/*!40101 SET NAMES utf8 */;\n"
+                + "\n"
+                + "DROP TABLE IF EXISTS `scmlog`;\n"
+                + "CREATE TABLE `scmlog` (\n"
+                + "  `id` int(11) NOT NULL AUTO_INCREMENT,\n"
+                + "  `message` longtext\n"
+                + ") ENGINE=MyISAM;\n"
+                + "INSERT INTO `scmlog` VALUES (1,'DERBY-1; it\\'s fixed'),(2,'-- not a comment\\n# neither');\n";
+
+        Assert.assertEquals(Arrays.asList(
+                "/*!40101 SET NAMES utf8 */",
+                "DROP TABLE IF EXISTS `scmlog`",
+                "CREATE TABLE `scmlog` (\n"
+                + "  `id` int(11) NOT NULL AUTO_INCREMENT,\n"
+                + "  `message` longtext\n"
+                + ") ENGINE=MyISAM",
+                "INSERT INTO `scmlog` VALUES (1,'DERBY-1; it\\'s fixed'),(2,'-- not a comment\\n# neither')"),
+                split(dump));
+    }
+
+    @Test
+    public void testQuotesAndComments() throws IOException {
+        Assert.assertEquals(Arrays.asList(
+                "SELECT 'a''b;c', \"d;\", `e;f`",
+                "SELECT 1 /* ; */ + 2",
+                "SELECT 3--1",
+                "SELECT 'çã;'"),
+                split("SELECT 'a''b;c', \"d;\", `e;f`; SELECT 1 /* ; */ + 2;\n"
+                        + "SELECT 3--1; -- comment; with delimiter\n"
+                        + "# another; comment\n"
+                        + "SELECT 'çã;'"));
+    }
+
+    @Test
+    public void testDelimiter() throws IOException {
+        Assert.assertEquals(Arrays.asList(
+                "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET @x = 1; END",
+                "SELECT 1"),
+                split("DELIMITER ;;\n"
+                        + "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET @x = 1; END ;;\n"
+                        + "DELIMITER ;\n"
+                        + "SELECT 1;\n"));
+    }
+
+    @Test
+    public void testPosition() throws IOException {
+        byte[] script = "SELECT 1;\nSELECT 2;\n".getBytes(StandardCharsets.UTF_8);
+        try (SqlStatementReader reader = new SqlStatementReader(new ByteArrayInputStream(script))) {
+            reader.next();
+            Assert.assertEquals(9, reader.getPosition());
+            reader.next();
+            Assert.assertNull(reader.next());
+            Assert.assertEquals(script.length, reader.getPosition());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.edu.utfpr.minerador.preprocessor.script;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Rodrigo T. Kuroda
+ */
+public class ScriptStatementTest {
+
+    private static ScriptStatement statement(String sql) {
+        return new ScriptStatement(0, sql);
+    }
+
+    @Test
+    public void testReadsAndWrites() {
+        ScriptStatement update = statement("UPDATE {0}_vcs.scmlog s SET s.num_files =\n"
+                + "(SELECT COUNT(DISTINCT(ca.file_id))\n"
+                + "          FROM {0}_vcs.actions ca\n"
+                + "         WHERE ca.commit_id = s.id)");
+
+        Assert.assertEquals(Collections.singleton("{0}_vcs.scmlog"), update.getWrites());
+        Assert.assertEquals(Collections.singleton("{0}_vcs.actions"), update.getReads());
+        Assert.assertFalse(update.isBarrier());
+
+        ScriptStatement select = statement("SELECT 1 FROM {0}_vcs.scmlog");
+        Assert.assertEquals(Collections.emptySet(), select.getWrites());
+        Assert.assertEquals(Collections.singleton("{0}_vcs.scmlog"), select.getReads());
+    }
+
+    @Test
+    public void testConflicts() {
+        ScriptStatement scmlogIndex = statement("ALTER TABLE {0}_vcs.scmlog ADD INDEX (date)");
+        ScriptStatement scmlogRevIndex = statement("ALTER TABLE {0}_vcs.scmlog ADD INDEX (rev(255))");
+        ScriptStatement fileLinksIndex = statement("ALTER TABLE {0}_vcs.file_links ADD INDEX (file_path)");
+        ScriptStatement actionsIndex = statement("ALTER TABLE {0}_vcs.actions ADD INDEX (commit_id)");
+        ScriptStatement numFiles = statement("UPDATE {0}_vcs.scmlog s SET s.num_files ="
+                + " (SELECT COUNT(1) FROM {0}_vcs.actions ca WHERE ca.commit_id = s.id)");
+        ScriptStatement readActions = statement("INSERT INTO {0}.commits SELECT * FROM {0}_vcs.actions");
+
+        Assert.assertTrue(scmlogIndex.conflictsWith(scmlogRevIndex));
+        Assert.assertFalse(scmlogIndex.conflictsWith(fileLinksIndex));
+        Assert.assertTrue(numFiles.conflictsWith(actionsIndex));
+        Assert.assertTrue(actionsIndex.conflictsWith(numFiles));
+        Assert.assertFalse(numFiles.conflictsWith(readActions));
+    }
+
+    @Test
+    public void testSchemaAndBarrier() {
+        ScriptStatement createSchema = statement("CREATE SCHEMA {0}");
+        ScriptStatement createTable = statement("CREATE TABLE IF NOT EXISTS {0}.commits (commit_id INT(11))");
+        ScriptStatement issues = statement("ALTER TABLE {0}_issues.issues ADD COLUMN fixed_on DATETIME");
+        ScriptStatement barrier = statement("SET @x = 1");
+
+        Assert.assertEquals("{0}", createSchema.getSchema());
+        Assert.assertTrue(createSchema.conflictsWith(createTable));
+        Assert.assertTrue(createTable.conflictsWith(createSchema));
+        Assert.assertFalse(createSchema.conflictsWith(issues));
+
+        Assert.assertTrue(barrier.isBarrier());
+        Assert.assertTrue(barrier.conflictsWith(issues));
+        Assert.assertTrue(issues.conflictsWith(barrier));
+    }
+
+    @Test
+    public void testPreprocessingScript() throws IOException {
+        List<ScriptStatement> statements = ParallelScriptExecutor.parse(
+                getClass().getClassLoader().getResourceAsStream("preprocessing.sql"));
+
+        for (ScriptStatement statement : statements) {
+            Assert.assertFalse(statement.toString(), statement.isBarrier());
+        }
+
+        ScriptStatement isDev = null;
+        for (ScriptStatement statement : statements) {
+            if (statement.getSql().startsWith("UPDATE {0}_issues.people")) {
+                isDev = statement;
+                break;
+            }
+        }
+        Assert.assertNotNull(isDev);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("{0}_vcs.people")), isDev.getReads());
+    }
+}